@@ -0,0 +1,34 @@
+package com.rental.car.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Stand-in for a Spring Data repository interface in benchmarks: answers the named methods from
+ * memory and fails on anything else, so a benchmark never silently measures an unstubbed call.
+ */
+public final class InMemoryRepository {
+
+    private InMemoryRepository() {
+    }
+
+    public static <T> T of(Class<T> repositoryType, Map<String, Function<Object[], Object>> answers) {
+        Object proxy = Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+                (self, method, args) -> {
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer != null) {
+                        return answer.apply(args);
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "hashCode" -> System.identityHashCode(self);
+                            case "equals" -> self == args[0];
+                            default -> repositoryType.getSimpleName() + " stand-in";
+                        };
+                    }
+                    throw new UnsupportedOperationException(repositoryType.getSimpleName() + "." + method.getName());
+                });
+        return repositoryType.cast(proxy);
+    }
+}
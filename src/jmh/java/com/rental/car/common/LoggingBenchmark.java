@@ -0,0 +1,141 @@
+package com.rental.car.common;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caller-side cost of Hibernate-style SQL logging (a statement and its two bindings) with eight
+ * threads logging at once, against a console stand-in that burns {@code writeCost} tokens per
+ * write. SYNC writes on the calling thread; the async modes hand events to an {@link AsyncAppender}
+ * that either waits for queue space or, as configured for prod, drops events once it is full.
+ * {@code sampleRate} is the {@link SqlLogSampler} rate, so 100 keeps one statement in a hundred.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LoggingBenchmark {
+
+    public enum Sink {SYNC, ASYNC_BLOCKING, ASYNC_DROPPING}
+
+    private static final String STATEMENT = "select r1_0.id,r1_0.car_id,r1_0.pickup_date,r1_0.return_date,"
+            + "r1_0.status from reservations r1_0 where r1_0.car_id=? and r1_0.status=?";
+
+    @Param({"SYNC", "ASYNC_BLOCKING", "ASYNC_DROPPING"})
+    public Sink sink;
+
+    @Param({"1", "100"})
+    public int sampleRate;
+
+    @Param({"500"})
+    public long writeCost;
+
+    private LoggerContext context;
+    private Logger sql;
+    private Logger bind;
+
+    @Setup
+    public void setUp() {
+        context = new LoggerContext();
+        // Spring's context gets one from the SLF4J provider; without it every event throws internally
+        context.setMDCAdapter(new LogbackMDCAdapter());
+
+        SqlLogSampler sampler = new SqlLogSampler();
+        sampler.setContext(context);
+        sampler.setSampleRate(sampleRate);
+        sampler.start();
+        context.addTurboFilter(sampler);
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{ISO8601} %-5level [%thread] %logger{36} - %msg%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> console = new OutputStreamAppender<>();
+        console.setContext(context);
+        console.setName("CONSOLE");
+        console.setEncoder(encoder);
+        console.setOutputStream(new SlowOutputStream(writeCost));
+        console.start();
+
+        Appender<ILoggingEvent> appender = console;
+        if (sink != Sink.SYNC) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setName("ASYNC_CONSOLE");
+            async.setQueueSize(8192);
+            // Blocking mode keeps every event so it measures back-pressure, not discarding
+            async.setDiscardingThreshold(sink == Sink.ASYNC_BLOCKING ? 0 : -1);
+            async.setNeverBlock(sink == Sink.ASYNC_DROPPING);
+            async.addAppender(console);
+            async.start();
+            appender = async;
+        }
+
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+        sql = context.getLogger("org.hibernate.SQL");
+        sql.setLevel(Level.DEBUG);
+        bind = context.getLogger("org.hibernate.orm.jdbc.bind");
+        bind.setLevel(Level.TRACE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+    }
+
+    @Benchmark
+    public void logStatementWithBindings() {
+        sql.debug(STATEMENT);
+        bind.trace("binding parameter (1:BIGINT) <- [{}]", 42L);
+        bind.trace("binding parameter (2:VARCHAR) <- [{}]", "CONFIRMED");
+    }
+
+    private static final class SlowOutputStream extends OutputStream {
+
+        private final long cost;
+
+        SlowOutputStream(long cost) {
+            this.cost = cost;
+        }
+
+        @Override
+        public void write(int b) {
+            Blackhole.consumeCPU(cost);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            Blackhole.consumeCPU(cost);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.rental.car.inventory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CarWithDistance to CarDTO mapping at the end of searchWithFilters, for one result page.
+ *
+ * Native queries return interface projections backed by a map of column values; the projection
+ * rows reproduce that, and the plain rows show the cost of the mapping itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CarSearchMappingBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private Page<CarWithDistance> plainPage;
+    private Page<CarWithDistance> projectionPage;
+
+    @Setup
+    public void setUp() {
+        SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+        List<CarWithDistance> plain = new ArrayList<>(pageSize);
+        List<CarWithDistance> projected = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Map<String, Object> columns = columns(i);
+            plain.add(new Row(columns));
+            projected.add(projections.createProjection(CarWithDistance.class, columns));
+        }
+        plainPage = new PageImpl<>(plain, PageRequest.of(0, pageSize), 500);
+        projectionPage = new PageImpl<>(projected, PageRequest.of(0, pageSize), 500);
+    }
+
+    @Benchmark
+    public Page<CarDTO> mapPlainRows() {
+        return plainPage.map(CarDTO::from);
+    }
+
+    @Benchmark
+    public Page<CarDTO> mapProjectionRows() {
+        return projectionPage.map(CarDTO::from);
+    }
+
+    private static Map<String, Object> columns(int i) {
+        Map<String, Object> columns = new HashMap<>();
+        columns.put("id", 1_000L + i);
+        columns.put("type", CarType.values()[i % CarType.values().length].name());
+        columns.put("licensePlate", "MA-" + (1_000 + i));
+        columns.put("make", i % 2 == 0 ? "Toyota" : "Ford");
+        columns.put("model", i % 2 == 0 ? "Camry" : "Explorer");
+        columns.put("year", 2021 + i % 4);
+        columns.put("branchCode", "BOS");
+        columns.put("branchName", "Boston Logan Airport");
+        columns.put("branchCity", "Boston");
+        columns.put("available", i % 5 != 0);
+        columns.put("distanceKm", 0.5 * i);
+        return columns;
+    }
+
+    private record Row(Map<String, Object> columns) implements CarWithDistance {
+        public Long getId() { return (Long) columns.get("id"); }
+        public String getType() { return (String) columns.get("type"); }
+        public String getLicensePlate() { return (String) columns.get("licensePlate"); }
+        public String getMake() { return (String) columns.get("make"); }
+        public String getModel() { return (String) columns.get("model"); }
+        public Integer getYear() { return (Integer) columns.get("year"); }
+        public String getBranchCode() { return (String) columns.get("branchCode"); }
+        public String getBranchName() { return (String) columns.get("branchName"); }
+        public String getBranchCity() { return (String) columns.get("branchCity"); }
+        public Boolean getAvailable() { return (Boolean) columns.get("available"); }
+        public Double getDistanceKm() { return (Double) columns.get("distanceKm"); }
+    }
+}
@@ -0,0 +1,72 @@
+package com.rental.car.inventory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of a 20-car carSearch page, compact format against JDK serialization.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CarSearchPageSerializerBenchmark {
+
+    private final CarSearchPageSerializer compact = new CarSearchPageSerializer();
+    private final JdkSerializationRedisSerializer jdk = new JdkSerializationRedisSerializer();
+
+    private Page<CarDTO> page;
+    private byte[] compactBytes;
+    private byte[] jdkBytes;
+
+    @Setup
+    public void setUp() {
+        List<CarDTO> cars = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            cars.add(new CarDTO(1_000L + i, i % 2 == 0 ? CarType.SEDAN : CarType.SUV, "MA-" + (1_000 + i),
+                    "Toyota", i % 3 == 0 ? "Camry" : "RAV4", 2022 + i % 3, "BOS", "Boston Logan Airport",
+                    "Boston", i % 5 != 0, 1.5 * i));
+        }
+        page = new PageImpl<>(cars, PageRequest.of(0, 20), 137);
+        compactBytes = compact.serialize(page);
+        jdkBytes = jdk.serialize(page);
+    }
+
+    @Benchmark
+    public byte[] compactSerialize() {
+        return compact.serialize(page);
+    }
+
+    @Benchmark
+    public Object compactDeserialize() {
+        return compact.deserialize(compactBytes);
+    }
+
+    @Benchmark
+    public byte[] jdkSerialize() {
+        return jdk.serialize(page);
+    }
+
+    @Benchmark
+    public Object jdkDeserialize() {
+        return jdk.deserialize(jdkBytes);
+    }
+}
@@ -0,0 +1,68 @@
+package com.rental.car.reservation;
+
+import com.rental.car.inventory.CarType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quote cost against the in-memory pricing snapshot, by rental length. Airport pickup with a
+ * one-way return, so every line item is exercised.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PricingBenchmark {
+
+    @Param({"3", "10", "45", "400"})
+    public int rentalDays;
+
+    private PricingService pricingService;
+    private LocalDate pickup;
+    private LocalDate dropoff;
+    private List<PriceQuery> batch;
+
+    @Setup
+    public void setUp() {
+        pricingService = PricingFixtures.pricingService(new StandInInventory());
+        pickup = LocalDate.of(2026, 6, 5);
+        dropoff = pickup.plusDays(rentalDays);
+        batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(new PriceQuery(CarType.values()[i % CarType.values().length], i % 2 == 0 ? "BOS" : "SFO",
+                    "LAX", pickup, dropoff, true));
+        }
+    }
+
+    @Benchmark
+    public PriceCalculationResponse calculatePrice() {
+        return pricingService.calculatePrice(CarType.SEDAN, "BOS", "LAX", pickup, dropoff, true);
+    }
+
+    @Benchmark
+    public PricingService.PriceTotal calculateTotal() {
+        return pricingService.calculateTotal(CarType.SEDAN, "BOS", "LAX", pickup, dropoff);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<PriceCalculationResponse> calculatePricesBatchOf20() {
+        return pricingService.calculatePrices(batch);
+    }
+}
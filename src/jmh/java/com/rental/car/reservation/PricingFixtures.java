@@ -0,0 +1,54 @@
+package com.rental.car.reservation;
+
+import com.rental.car.benchmark.InMemoryRepository;
+import com.rental.car.inventory.CarType;
+import com.rental.car.inventory.InventoryService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pricing data shaped like the Flyway seed: one rate plan per branch and car type plus the
+ * standard rule set, served from in-memory repositories.
+ */
+final class PricingFixtures {
+
+    private PricingFixtures() {
+    }
+
+    static PricingService pricingService(InventoryService inventory) {
+        List<RatePlan> plans = new ArrayList<>();
+        long daily = 4_500;
+        for (String branch : StandInInventory.BRANCHES) {
+            for (CarType type : CarType.values()) {
+                plans.add(new RatePlan(null, branch, type, LocalDate.of(2020, 1, 1), LocalDate.of(2099, 12, 31),
+                        BigDecimal.valueOf(daily, 2), BigDecimal.valueOf(daily * 6, 2), new BigDecimal("1.20"),
+                        "USD", branch + " " + type, true));
+                daily += 250;
+            }
+        }
+        List<PricingRule> rules = List.of(
+                rule("MA_SALES_TAX", PricingRule.PricingRuleType.TAX, new BigDecimal("6.25"), null),
+                rule("ONE_WAY_FEE", PricingRule.PricingRuleType.ONE_WAY_FEE, null, new BigDecimal("75.00")),
+                rule("AIRPORT_FEE_LOGAN", PricingRule.PricingRuleType.AIRPORT_FEE, null, new BigDecimal("30.00")),
+                rule("WEEKLY_DISCOUNT", PricingRule.PricingRuleType.LENGTH_DISCOUNT, new BigDecimal("12.00"), null),
+                rule("MONTHLY_DISCOUNT", PricingRule.PricingRuleType.LENGTH_DISCOUNT, new BigDecimal("18.00"), null)
+        );
+
+        RatePlanRepository ratePlanRepo = InMemoryRepository.of(RatePlanRepository.class,
+                Map.of("findByActiveTrue", args -> plans));
+        PricingRuleRepository pricingRuleRepo = InMemoryRepository.of(PricingRuleRepository.class,
+                Map.of("findByActiveTrue", args -> rules));
+        PricingService service = new PricingService(ratePlanRepo, pricingRuleRepo, inventory);
+        service.reloadPricing();
+        return service;
+    }
+
+    private static PricingRule rule(String code, PricingRule.PricingRuleType type, BigDecimal percentage,
+                                    BigDecimal fixedAmount) {
+        return new PricingRule(null, code, code, type, percentage, fixedAmount, null, true);
+    }
+}
@@ -0,0 +1,92 @@
+package com.rental.car.reservation;
+
+import com.rental.car.benchmark.InMemoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The createReservation path without the database: bean validation of the request, then the
+ * service's car and branch checks, pricing, entity construction, stage timers and expiry
+ * scheduling against in-memory stand-ins.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private ReservationService reservationService;
+    private ReservationCreateRequest request;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+
+        StandInInventory inventory = new StandInInventory();
+        ReservationRepository reservationRepo = InMemoryRepository.of(ReservationRepository.class, Map.of(
+                "save", args -> {
+                    // One id, so the expiry wheel reschedules instead of growing
+                    Reservation reservation = (Reservation) args[0];
+                    reservation.setId(1L);
+                    return reservation;
+                }
+        ));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        reservationService = new ReservationService(reservationRepo, inventory,
+                PricingFixtures.pricingService(inventory),
+                new ReservationExpiryService(reservationRepo, inventory, registry, 500, Duration.ofSeconds(1)),
+                registry);
+
+        LocalDate pickup = LocalDate.now().plusDays(14);
+        request = new ReservationCreateRequest(10L, "customer@example.com", "Jane Doe", "+1-555-0100",
+                "BOS", "LAX", pickup, pickup.plusDays(5), "Child seat");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ReservationCreateRequest>> validateRequest() {
+        return validator.validate(request);
+    }
+
+    @Benchmark
+    public Reservation createReservation() {
+        return reservationService.createReservation(request);
+    }
+
+    @Benchmark
+    public Reservation validateAndCreate() {
+        if (!validator.validate(request).isEmpty()) {
+            throw new IllegalStateException("Benchmark request must be valid");
+        }
+        return reservationService.createReservation(request);
+    }
+}
@@ -0,0 +1,54 @@
+package com.rental.car.reservation;
+
+import com.rental.car.inventory.CarBooking;
+import com.rental.car.inventory.CarDTO;
+import com.rental.car.inventory.CarType;
+import com.rental.car.inventory.InventoryService;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * InventoryService answering from fixed in-memory data, for benchmarks of the reservation side.
+ * Index and cache side effects are no-ops.
+ */
+class StandInInventory extends InventoryService {
+
+    static final Set<String> BRANCHES = Set.of("BOS", "LAX", "SFO", "NYC", "ORD");
+    static final Set<String> AIRPORTS = Set.of("BOS", "LAX");
+
+    private final Map<Long, CarDTO> cars = Map.of(
+            10L, new CarDTO(10L, CarType.SEDAN, "MA-1010", "Toyota", "Camry", 2024,
+                    "BOS", "Boston Logan Airport", "Boston", true, null),
+            11L, new CarDTO(11L, CarType.SUV, "CA-1011", "Ford", "Explorer", 2023,
+                    "LAX", "Los Angeles Airport", "Los Angeles", true, null)
+    );
+
+    StandInInventory() {
+        super(null, null, null, null, null, null, null);
+    }
+
+    @Override
+    public Optional<CarDTO> getCarById(Long id) {
+        return Optional.ofNullable(cars.get(id));
+    }
+
+    @Override
+    public boolean isValidBranch(String branchCode) {
+        return BRANCHES.contains(branchCode);
+    }
+
+    @Override
+    public boolean isAirportBranch(String branchCode) {
+        return AIRPORTS.contains(branchCode);
+    }
+
+    @Override
+    public void markCarBooked(CarBooking booking) {
+    }
+
+    @Override
+    public void invalidateSearchesForCar(Long carId) {
+    }
+}
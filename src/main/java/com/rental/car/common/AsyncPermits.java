@@ -0,0 +1,86 @@
+package com.rental.car.common;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many asynchronous calls run at once without blocking the caller.
+ *
+ * A submitted call starts immediately while fewer than the limit are running; otherwise it waits
+ * in a bounded queue and starts when a running call completes. When the queue is full the call is
+ * rejected straight away with a {@link RejectedExecutionException}, so a slow downstream sheds
+ * load instead of piling up waiters.
+ */
+final class AsyncPermits {
+
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Deque<Runnable> queue = new ArrayDeque<>();
+    private int running;
+
+    AsyncPermits(int maxConcurrent, int maxQueued) {
+        if (maxConcurrent < 1 || maxQueued < 0) {
+            throw new IllegalArgumentException("Need at least one permit and a non-negative queue");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+    }
+
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> started;
+            try {
+                started = call.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            started.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+        synchronized (this) {
+            if (running >= maxConcurrent) {
+                if (queue.size() >= maxQueued) {
+                    return CompletableFuture.failedFuture(new RejectedExecutionException(
+                            "All " + maxConcurrent + " permits in use and " + maxQueued + " calls queued"));
+                }
+                queue.addLast(start);
+                return result;
+            }
+            running++;
+        }
+        start.run();
+        return result;
+    }
+
+    synchronized int running() {
+        return running;
+    }
+
+    synchronized int queued() {
+        return queue.size();
+    }
+
+    // Hand the permit straight to the next queued call, if any
+    private void release() {
+        Runnable next;
+        synchronized (this) {
+            next = queue.pollFirst();
+            if (next == null) {
+                running--;
+            }
+        }
+        if (next != null) {
+            next.run();
+        }
+    }
+}
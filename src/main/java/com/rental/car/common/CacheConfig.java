@@ -1,11 +1,20 @@
 package com.rental.car.common;
 
+import com.rental.car.inventory.BranchFacetIndex;
+import com.rental.car.inventory.CarAvailabilityIndex;
+import com.rental.car.inventory.CarSearchGenerations;
+import com.rental.car.inventory.CarSearchPageSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
 
 import java.time.Duration;
 import java.util.HashMap;
@@ -15,26 +24,74 @@ import java.util.Map;
 @EnableCaching
 public class CacheConfig {
 
+    // Holds GeocodingResult values; renamed from "geocoding", whose entries were bare coordinates
+    public static final String GEOCODING_CACHE = "geocodingResults";
+
+    @Value("${geocoding.cache.hit-ttl:PT24H}")
+    private Duration geocodingHitTtl;
+
+    @Value("${geocoding.cache.miss-ttl:PT1H}")
+    private Duration geocodingMissTtl;
+
+    @Value("${cache.local.geocoding.maximum-size:10000}")
+    private long geocodingLocalSize;
+
+    @Value("${cache.local.geocoding.ttl:PT1H}")
+    private Duration geocodingLocalTtl;
+
+    @Value("${cache.local.car-search.maximum-size:1000}")
+    private long carSearchLocalSize;
+
+    @Value("${cache.local.car-search.ttl:PT1M}")
+    private Duration carSearchLocalTtl;
+
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory, StringRedisTemplate redis) {
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(3));
 
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
-        
-        cacheConfigurations.put("geocoding", 
+
+        // Places rarely move, but an address the geocoder did not know may be added later
+        cacheConfigurations.put(GEOCODING_CACHE,
             RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(24))
+                .entryTtl((key, value) -> value instanceof GeocodingResult.Miss ? geocodingMissTtl : geocodingHitTtl)
         );
-        
-        cacheConfigurations.put("carSearch", 
+
+        cacheConfigurations.put("carSearch",
             RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(3))
+                .serializeValuesWith(SerializationPair.fromSerializer(new CarSearchPageSerializer()))
         );
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // L1 TTLs stay below the Redis TTLs so a missed invalidation heals quickly
+        Map<String, TwoLevelCacheManager.LocalSpec> localSpecs = Map.of(
+                GEOCODING_CACHE, new TwoLevelCacheManager.LocalSpec(geocodingLocalSize, geocodingLocalTtl),
+                "carSearch", new TwoLevelCacheManager.LocalSpec(carSearchLocalSize, carSearchLocalTtl)
+        );
+
+        return new TwoLevelCacheManager(redisCacheManager, localSpecs, redis);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                   TwoLevelCacheManager cacheManager,
+                                                                   CarSearchGenerations searchGenerations,
+                                                                   CarAvailabilityIndex availabilityIndex,
+                                                                   BranchFacetIndex facetIndex) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        ChannelTopic invalidations = new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL);
+        container.addMessageListener(cacheManager, invalidations);
+        container.addMessageListener(searchGenerations, invalidations);
+        container.addMessageListener(availabilityIndex, invalidations);
+        container.addMessageListener(facetIndex, invalidations);
+        return container;
     }
 }
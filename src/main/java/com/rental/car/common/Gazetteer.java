@@ -0,0 +1,219 @@
+package com.rental.car.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Offline geocoder over a gazetteer file of place names and their centroids, consulted before
+ * the remote geocoder.
+ *
+ * The file is tab-separated, one {@code name<TAB>lat<TAB>lon} entry per line, with blank lines
+ * and lines starting with {@code #} ignored. Names must already be in {@link #canonical} form,
+ * e.g. {@code boston, ma}, {@code 02116} or {@code 125 high st, boston, ma}. The file is memory
+ * mapped and stays off-heap; the only index on the heap is an array of line offsets sorted by
+ * name, which serves exact lookups and prefix ranges by binary search. Disabled when
+ * {@code geocoding.gazetteer.path} is empty.
+ */
+@Component
+public class Gazetteer {
+
+    private static final Logger log = LoggerFactory.getLogger(Gazetteer.class);
+
+    private static final Pattern COUNTRY_SUFFIX = Pattern.compile(",\\s*(usa|us|united states( of america)?)$");
+    private static final Pattern DOTS = Pattern.compile("\\.");
+
+    private final ByteBuffer data;
+    private final int[] offsets;
+
+    Gazetteer(@Value("${geocoding.gazetteer.path:}") String path) {
+        if (path == null || path.isBlank()) {
+            data = ByteBuffer.allocate(0);
+            offsets = new int[0];
+            return;
+        }
+        long start = System.nanoTime();
+        data = map(Path.of(path));
+        offsets = index(data);
+        log.info("Loaded {} gazetteer entries from {} in {} ms",
+                offsets.length, path, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Coordinates as {lat, lon} for the address, if the gazetteer has it. Falls back to the one
+     * entry starting with "{address}, " when exactly one does, so "cambridge" finds
+     * "cambridge, ma" but an ambiguous "springfield" finds nothing.
+     */
+    public Optional<double[]> find(String address) {
+        if (offsets.length == 0 || address == null) {
+            return Optional.empty();
+        }
+        String key = canonical(address);
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+        byte[] exact = key.getBytes(StandardCharsets.UTF_8);
+        int index = lowerBound(exact);
+        if (index < offsets.length && compareKey(offsets[index], exact, false) == 0) {
+            return Optional.of(coordinates(offsets[index]));
+        }
+        if (key.indexOf(',') < 0) {
+            byte[] prefix = (key + ", ").getBytes(StandardCharsets.UTF_8);
+            int first = lowerBound(prefix);
+            if (first < offsets.length && compareKey(offsets[first], prefix, true) == 0
+                    && (first + 1 == offsets.length || compareKey(offsets[first + 1], prefix, true) != 0)) {
+                return Optional.of(coordinates(offsets[first]));
+            }
+        }
+        return Optional.empty();
+    }
+
+    public boolean contains(String address) {
+        return find(address).isPresent();
+    }
+
+    int size() {
+        return offsets.length;
+    }
+
+    /**
+     * Lookup form of an address: normalized like geocoding cache keys, without periods and
+     * without a trailing US country name.
+     */
+    static String canonical(String address) {
+        String normalized = DOTS.matcher(GeocodingService.normalize(address)).replaceAll("");
+        return COUNTRY_SUFFIX.matcher(normalized).replaceFirst("").trim();
+    }
+
+    private static ByteBuffer map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Gazetteer " + path + " is larger than 2 GB");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read gazetteer " + path, e);
+        }
+    }
+
+    private static int[] index(ByteBuffer data) {
+        int[] lines = new int[1024];
+        int count = 0;
+        int lineNumber = 0;
+        int position = 0;
+        int limit = data.limit();
+        while (position < limit) {
+            int end = position;
+            while (end < limit && data.get(end) != '\n') {
+                end++;
+            }
+            lineNumber++;
+            if (end > position && data.get(position) != '#' && !isBlank(data, position, end)) {
+                String line = decode(data, position, end).stripTrailing();
+                String[] fields = line.split("\t");
+                if (fields.length != 3 || !fields[0].equals(canonical(fields[0]))) {
+                    throw new IllegalStateException("Invalid gazetteer entry on line " + lineNumber
+                            + ", expected canonical name, latitude and longitude: " + line);
+                }
+                Double.parseDouble(fields[1]);
+                Double.parseDouble(fields[2]);
+                if (count == lines.length) {
+                    lines = Arrays.copyOf(lines, count * 2);
+                }
+                lines[count++] = position;
+            }
+            position = end + 1;
+        }
+        Integer[] sorted = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = lines[i];
+        }
+        Arrays.sort(sorted, (a, b) -> compareKeys(data, a, b));
+        return Arrays.stream(sorted).mapToInt(Integer::intValue).toArray();
+    }
+
+    // Index of the first entry whose name is not less than the key
+    private int lowerBound(byte[] key) {
+        int lo = 0;
+        int hi = offsets.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareKey(offsets[mid], key, false) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Compares the name at offset with the key as unsigned bytes; as a prefix test when asked
+    private int compareKey(int offset, byte[] key, boolean prefix) {
+        for (int i = 0; i < key.length; i++) {
+            int b = nameByte(data, offset + i);
+            if (b < 0) {
+                return -1;
+            }
+            int diff = b - (key[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return prefix || nameByte(data, offset + key.length) < 0 ? 0 : 1;
+    }
+
+    private static int compareKeys(ByteBuffer data, int a, int b) {
+        for (int i = 0; ; i++) {
+            int x = nameByte(data, a + i);
+            int y = nameByte(data, b + i);
+            if (x != y || x < 0) {
+                return x - y;
+            }
+        }
+    }
+
+    // Unsigned byte of a name, or -1 at the tab that ends it
+    private static int nameByte(ByteBuffer data, int position) {
+        if (position >= data.limit()) {
+            return -1;
+        }
+        byte b = data.get(position);
+        return b == '\t' ? -1 : b & 0xFF;
+    }
+
+    private double[] coordinates(int offset) {
+        int end = offset;
+        while (end < data.limit() && data.get(end) != '\n') {
+            end++;
+        }
+        String[] fields = decode(data, offset, end).stripTrailing().split("\t");
+        return new double[]{Double.parseDouble(fields[1]), Double.parseDouble(fields[2])};
+    }
+
+    private static String decode(ByteBuffer data, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        data.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isBlank(ByteBuffer data, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isWhitespace(data.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
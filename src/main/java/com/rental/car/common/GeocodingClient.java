@@ -0,0 +1,166 @@
+package com.rental.car.common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.car.exceptions.ExternalServiceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Non-blocking client for a Nominatim-compatible search endpoint.
+ *
+ * Concurrent lookups of the same query share one remote call: the first caller starts it and
+ * later callers join it until it completes. Remote calls are capped by {@link AsyncPermits}, and
+ * each has a connect and a response timeout, so every returned future completes in bounded time.
+ * A {@link CircuitBreaker} counts failed remote calls and, once open, fails lookups with
+ * {@link CircuitOpenException} without calling out. Callers are expected to pass normalized
+ * queries (see {@link GeocodingService#normalize}).
+ */
+@Component
+class GeocodingClient {
+
+    private static final String USER_AGENT = "CarRentalDemo/1.0";
+
+    private final HttpClient http;
+    private final String searchUrl;
+    private final Duration readTimeout;
+    private final AsyncPermits permits;
+    private final CircuitBreaker breaker;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ConcurrentMap<String, CompletableFuture<Optional<double[]>>> inFlight = new ConcurrentHashMap<>();
+
+    GeocodingClient(
+            @Value("${geocoding.base-url:https://nominatim.openstreetmap.org}") String baseUrl,
+            @Value("${geocoding.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${geocoding.read-timeout:PT5S}") Duration readTimeout,
+            @Value("${geocoding.max-concurrent-requests:2}") int maxConcurrent,
+            @Value("${geocoding.max-queued-requests:50}") int maxQueued,
+            @Value("${geocoding.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${geocoding.circuit-breaker.open-duration:PT30S}") Duration openDuration
+    ) {
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.searchUrl = baseUrl.replaceAll("/+$", "") + "/search";
+        this.readTimeout = readTimeout;
+        this.permits = new AsyncPermits(maxConcurrent, maxQueued);
+        this.breaker = new CircuitBreaker(failureThreshold, openDuration);
+    }
+
+    /**
+     * Coordinates as {lat, lon}, or empty if the service found nothing. Completes exceptionally on
+     * timeouts, transport errors, non-2xx responses, when the request queue is full and while the
+     * circuit is open.
+     */
+    CompletableFuture<Optional<double[]>> lookup(String query) {
+        CompletableFuture<Optional<double[]>> pending = inFlight.get(query);
+        if (pending == null) {
+            CompletableFuture<Optional<double[]>> created = new CompletableFuture<>();
+            pending = inFlight.putIfAbsent(query, created);
+            if (pending == null) {
+                pending = created;
+                // Unregister before completing, so callers arriving afterwards start a fresh call
+                permits.submit(() -> guarded(query)).whenComplete((result, error) -> {
+                    inFlight.remove(query, created);
+                    if (error != null) {
+                        created.completeExceptionally(error);
+                    } else {
+                        created.complete(result);
+                    }
+                });
+            }
+        }
+        // A copy, so one caller cancelling does not cancel the shared call
+        return pending.copy();
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    CircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    // Checked when the call gets its permit, so queued calls also fail fast once the circuit opens
+    private CompletableFuture<Optional<double[]>> guarded(String query) {
+        if (!breaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new CircuitOpenException());
+        }
+        CompletableFuture<Optional<double[]>> call;
+        try {
+            call = send(query);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        return call.whenComplete((result, error) -> {
+            if (error != null) {
+                breaker.recordFailure();
+            } else {
+                breaker.recordSuccess();
+            }
+        });
+    }
+
+    private CompletableFuture<Optional<double[]>> send(String query) {
+        URI uri = UriComponentsBuilder.fromUriString(searchUrl)
+                .queryParam("q", query)
+                .queryParam("format", "json")
+                .queryParam("limit", 1)
+                .build()
+                .encode()
+                .toUri();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> parse(query, response));
+    }
+
+    private Optional<double[]> parse(String query, HttpResponse<byte[]> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new ExternalServiceException("Geocoding returned HTTP " + response.statusCode() + " for '" + query + "'");
+        }
+        try {
+            JsonNode results = mapper.readTree(response.body());
+            if (results == null || !results.isArray() || results.isEmpty()) {
+                return Optional.empty();
+            }
+            JsonNode first = results.get(0);
+            return Optional.of(new double[]{
+                    Double.parseDouble(first.path("lat").asText()),
+                    Double.parseDouble(first.path("lon").asText())
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (NumberFormatException e) {
+            throw new ExternalServiceException("Geocoding returned invalid coordinates for '" + query + "'", e);
+        }
+    }
+
+    /**
+     * Lookup refused because recent remote calls kept failing.
+     */
+    static final class CircuitOpenException extends ExternalServiceException {
+        CircuitOpenException() {
+            super("Geocoding circuit is open after repeated failures");
+        }
+    }
+}
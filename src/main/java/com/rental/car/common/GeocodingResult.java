@@ -0,0 +1,28 @@
+package com.rental.car.common;
+
+import java.io.Serializable;
+
+/**
+ * Outcome of geocoding an address. A {@link Hit} has coordinates; a {@link Miss} means the
+ * geocoder answered but knows no such place; a {@link Failure} means it could not be asked
+ * (timeout, error response, open circuit). Hits and misses are cached with their own TTLs,
+ * failures are never cached.
+ */
+public sealed interface GeocodingResult extends Serializable {
+
+    /**
+     * Whether the result describes the address rather than the state of the geocoder.
+     */
+    default boolean cacheable() {
+        return !(this instanceof Failure);
+    }
+
+    record Hit(double latitude, double longitude) implements GeocodingResult {
+    }
+
+    record Miss() implements GeocodingResult {
+    }
+
+    record Failure(String reason) implements GeocodingResult {
+    }
+}
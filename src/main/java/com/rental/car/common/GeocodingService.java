@@ -1,65 +1,141 @@
 package com.rental.car.common;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
-import java.net.URI;
-import java.util.List;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class GeocodingService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    
-    private static final String API_BASE = "https://nominatim.openstreetmap.org/search";
+    private static final Logger log = LoggerFactory.getLogger(GeocodingService.class);
 
-    @Cacheable(value = "geocoding", key = "#fullAddress.toLowerCase().trim()")
-    public double[] getCoordinates(String fullAddress) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.add("User-Agent", "CarRentalDemo/1.0");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
+    /**
+     * How a lookup that reached this service was answered, tagged on {@code geocoding.lookups}.
+     */
+    enum Outcome {
+        LOCAL, HIT, MISS, FAILURE, REJECTED, SHORT_CIRCUITED, TIMED_OUT;
 
-            // Properly build URI with encoded query parameters
-            URI uri = UriComponentsBuilder.fromUriString(API_BASE)
-                    .queryParam("q", fullAddress)
-                    .queryParam("format", "json")
-                    .queryParam("limit", 1)
-                    .build()
-                    .toUri();
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
 
-            System.out.println("Geocoding: " + fullAddress + " -> " + uri);
+    private final GeocodingClient client;
+    private final Gazetteer gazetteer;
+    private final Duration deadline;
+    private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+
+    public GeocodingService(
+            GeocodingClient client,
+            Gazetteer gazetteer,
+            MeterRegistry meterRegistry,
+            @Value("${geocoding.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${geocoding.read-timeout:PT5S}") Duration readTimeout
+    ) {
+        this.client = client;
+        this.gazetteer = gazetteer;
+        // What one remote call may take, so a caller queued behind others gives up rather than
+        // waiting for the whole queue to drain
+        this.deadline = connectTimeout.plus(readTimeout);
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Counter.builder("geocoding.lookups")
+                    .description("Geocoding lookups not answered from the cache, by outcome")
+                    .tag("outcome", outcome.tag())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("geocoding.circuit.open", client, c -> c.circuitState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .description("1 while remote geocoding is short-circuited or on trial after failures")
+                .register(meterRegistry);
+    }
 
-            ResponseEntity<List<Map<String, Object>>> responseEntity = restTemplate.exchange(
-                uri, 
-                HttpMethod.GET, 
-                entity, 
-                new ParameterizedTypeReference<List<Map<String, Object>>>() {}
-            );
-            
-            List<Map<String, Object>> response = responseEntity.getBody();
+    /**
+     * Geocode an address. Hits and misses are cached (with TTLs set per type in
+     * {@link CacheConfig}); failures are not, so the next search asks again. Addresses in the local
+     * gazetteer are answered from it and bypass the cache; concurrent calls for the same uncached
+     * address wait on a single remote lookup. A caller waits at most the geocoder's connect plus
+     * read timeout, then gets a {@link GeocodingResult.Failure}.
+     */
+    @Cacheable(value = CacheConfig.GEOCODING_CACHE,
+            key = "T(com.rental.car.common.GeocodingService).normalize(#fullAddress)",
+            condition = "!@gazetteer.contains(#fullAddress)",
+            unless = "!#result.cacheable()")
+    public GeocodingResult geocode(String fullAddress) {
+        return lookup(fullAddress).join();
+    }
 
-            if (response != null && !response.isEmpty()) {
-                Map<String, Object> location = response.get(0);
-                double lat = Double.parseDouble(location.get("lat").toString());
-                double lon = Double.parseDouble(location.get("lon").toString());
-                System.out.println("Geocoded successfully: [" + lat + ", " + lon + "]");
-                return new double[]{lat, lon};
-            } else {
-                System.err.println("Geocoding returned no results for: " + fullAddress);
+    // Never completes exceptionally; errors and timeouts become a GeocodingResult.Failure
+    private CompletableFuture<GeocodingResult> lookup(String fullAddress) {
+        String query = normalize(fullAddress);
+        if (query.isEmpty()) {
+            return CompletableFuture.completedFuture(new GeocodingResult.Miss());
+        }
+        Optional<double[]> local = gazetteer.find(query);
+        if (local.isPresent()) {
+            count(Outcome.LOCAL);
+            return CompletableFuture.completedFuture(new GeocodingResult.Hit(local.get()[0], local.get()[1]));
+        }
+        // Set on this caller's copy of the lookup, so the shared remote call keeps running for the others
+        CompletableFuture<Optional<double[]>> answer = client.lookup(query)
+                .orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        return answer.handle((coordinates, error) -> {
+            if (error != null) {
+                return failed(query, error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
             }
-        } catch (Exception e) {
-            System.err.println("Geocoding failed for '" + fullAddress + "': " + e.getMessage());
-            e.printStackTrace();
+            if (coordinates.isEmpty()) {
+                log.debug("Geocoding returned no results for '{}'", query);
+                count(Outcome.MISS);
+                return new GeocodingResult.Miss();
+            }
+            count(Outcome.HIT);
+            return new GeocodingResult.Hit(coordinates.get()[0], coordinates.get()[1]);
+        });
+    }
+
+    /**
+     * Cache and single-flight key for an address: lower case, trimmed, inner whitespace collapsed.
+     */
+    public static String normalize(String fullAddress) {
+        if (fullAddress == null) {
+            return "";
+        }
+        return fullAddress.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private GeocodingResult failed(String query, Throwable cause) {
+        if (cause instanceof GeocodingClient.CircuitOpenException) {
+            count(Outcome.SHORT_CIRCUITED);
+        } else if (cause instanceof TimeoutException) {
+            count(Outcome.TIMED_OUT);
+            log.warn("Geocoding of '{}' took longer than {}, giving up", query, deadline);
+            return new GeocodingResult.Failure("No answer within " + deadline);
+        } else if (cause instanceof RejectedExecutionException) {
+            count(Outcome.REJECTED);
+            log.warn("Geocoding request queue full, not looking up '{}'", query);
+        } else {
+            count(Outcome.FAILURE);
+            log.warn("Geocoding failed for '{}': {}", query, cause.toString());
         }
-        return new double[]{0.0, 0.0};
+        return new GeocodingResult.Failure(cause.getMessage() != null ? cause.getMessage() : cause.toString());
+    }
+
+    private void count(Outcome outcome) {
+        outcomes.get(outcome).increment();
     }
 }
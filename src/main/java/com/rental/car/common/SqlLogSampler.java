@@ -0,0 +1,62 @@
+package com.rental.car.common;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logback turbo filter that keeps one in {@code sampleRate} SQL statement log events, together
+ * with the parameter bindings logged after them on the same thread, and drops the rest before
+ * they are formatted. Statements come from {@code statementLogger} (Hibernate's
+ * {@code org.hibernate.SQL}); bindings from loggers under {@code bindingLogger}
+ * ({@code org.hibernate.orm.jdbc.bind}). Everything else passes through untouched.
+ *
+ * Configured in logback-spring.xml from {@code logging.sql.sample-rate}; a rate of 1 keeps all.
+ */
+public class SqlLogSampler extends TurboFilter {
+
+    private final AtomicLong statements = new AtomicLong();
+    private final ThreadLocal<Boolean> statementSampled = ThreadLocal.withInitial(() -> Boolean.TRUE);
+
+    private String statementLogger = "org.hibernate.SQL";
+    private String bindingLogger = "org.hibernate.orm.jdbc.bind";
+    private int sampleRate = 1;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // Level checks (isDebugEnabled and the like) come without a format: answer them by level
+        // alone, so only real events count toward the sample and decide whether bindings follow
+        if (sampleRate <= 1 || !isStarted() || format == null) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        if (name.equals(statementLogger)) {
+            if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+                return FilterReply.NEUTRAL;
+            }
+            boolean sampled = statements.getAndIncrement() % sampleRate == 0;
+            statementSampled.set(sampled);
+            return sampled ? FilterReply.NEUTRAL : FilterReply.DENY;
+        }
+        if (name.startsWith(bindingLogger)) {
+            return statementSampled.get() ? FilterReply.NEUTRAL : FilterReply.DENY;
+        }
+        return FilterReply.NEUTRAL;
+    }
+
+    public void setStatementLogger(String statementLogger) {
+        this.statementLogger = statementLogger;
+    }
+
+    public void setBindingLogger(String bindingLogger) {
+        this.bindingLogger = bindingLogger;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+}
@@ -0,0 +1,102 @@
+package com.rental.car.common;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps a remote cache manager and puts a Caffeine near-cache in front of the caches that have
+ * a local spec; other caches are returned as-is.
+ *
+ * Every put, evict and clear is published on {@link #INVALIDATION_CHANNEL} as
+ * {@code nodeId|cacheName|key} (an empty key clears the cache). Each node listens on the channel
+ * and drops its L1 copy, skipping messages it sent itself.
+ */
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    public static final String INVALIDATION_CHANNEL = "cache:invalidation";
+    private static final String SEPARATOR = "|";
+
+    private final CacheManager remote;
+    private final Map<String, LocalSpec> localSpecs;
+    private final StringRedisTemplate redis;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remote, Map<String, LocalSpec> localSpecs, StringRedisTemplate redis) {
+        this.remote = remote;
+        this.localSpecs = Map.copyOf(localSpecs);
+        this.redis = redis;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> decorate(remoteCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    private Cache decorate(Cache remoteCache) {
+        LocalSpec spec = localSpecs.get(remoteCache.getName());
+        if (spec == null) {
+            return remoteCache;
+        }
+        com.github.benmanes.caffeine.cache.Cache<Object, Cache.ValueWrapper> local = Caffeine.newBuilder()
+                .maximumSize(spec.maximumSize())
+                .expireAfterWrite(spec.ttl())
+                .build();
+        return new TwoLevelCache(remoteCache, local, this::publishInvalidation);
+    }
+
+    void publishInvalidation(String cacheName, Object key) {
+        String message = nodeId + SEPARATOR + cacheName + SEPARATOR + (key != null ? key.toString() : "");
+        try {
+            redis.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (RuntimeException ex) {
+            // Other nodes fall back to their L1 TTL; the write itself already reached Redis
+            log.warn("Failed to publish cache invalidation for {}: {}", cacheName, ex.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\" + SEPARATOR, 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        if (caches.get(parts[1]) instanceof TwoLevelCache cache) {
+            cache.evictLocal(parts[2].isEmpty() ? null : parts[2]);
+        }
+    }
+
+    /**
+     * Size and time bounds for a cache's on-heap level.
+     */
+    public record LocalSpec(long maximumSize, Duration ttl) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.rental.car.common;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, which happens when they block
+ * inside a synchronized block or a native frame. A pinned thread holds its carrier for the whole
+ * wait, so a few of them on a hot path (a synchronized cache or client pool, say) undo the point
+ * of running requests on virtual threads.
+ *
+ * Listens for the JDK's {@code jdk.VirtualThreadPinned} flight recorder event over a streaming
+ * recording, logs each one over the threshold with the top of its stack, and counts them in
+ * {@code jvm.threads.virtual.pinned}. Only active when virtual threads are enabled; on runtimes
+ * before Java 21 it logs that the setting has no effect.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+class VirtualThreadDiagnostics {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadDiagnostics.class);
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Duration threshold;
+    private final Counter pinned;
+    private RecordingStream stream;
+
+    VirtualThreadDiagnostics(
+            @Value("${diagnostics.virtual-threads.pinned-threshold:PT0.02S}") Duration threshold,
+            MeterRegistry meterRegistry
+    ) {
+        this.threshold = threshold;
+        this.pinned = Counter.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads pinned to their carrier for longer than the threshold")
+                .register(meterRegistry);
+    }
+
+    static boolean supported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!supported()) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; "
+                    + "requests run on platform threads", Runtime.version().feature());
+            return;
+        }
+        if (stream != null) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Reporting virtual threads pinned for longer than {}", threshold);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    synchronized boolean isRecording() {
+        return stream != null;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        if (log.isWarnEnabled()) {
+            String thread = event.getThread() != null ? event.getThread().getJavaName() : "?";
+            log.warn("Virtual thread {} pinned for {} ms at{}", thread, event.getDuration().toMillis(),
+                    describe(event.getStackTrace()));
+        }
+    }
+
+    static String describe(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return " <no stack trace>";
+        }
+        StringBuilder frames = new StringBuilder();
+        List<RecordedFrame> all = stackTrace.getFrames();
+        for (int i = 0; i < Math.min(LOGGED_FRAMES, all.size()); i++) {
+            RecordedFrame frame = all.get(i);
+            frames.append("\n\t")
+                    .append(frame.getMethod().getType().getName())
+                    .append('.')
+                    .append(frame.getMethod().getName())
+                    .append(':')
+                    .append(frame.getLineNumber());
+        }
+        if (all.size() > LOGGED_FRAMES) {
+            frames.append("\n\t...");
+        }
+        return frames.toString();
+    }
+}
@@ -0,0 +1,248 @@
+package com.rental.car.inventory;
+
+import com.rental.car.common.TwoLevelCacheManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-branch counts of available cars by type, make and year.
+ *
+ * Loaded from a single group-by query and then kept current by applying each committed car
+ * change as a decrement of its old facet and an increment of its new one. Changes are announced
+ * on {@link TwoLevelCacheManager#INVALIDATION_CHANNEL} and applied by the other nodes too; one
+ * lost while Redis is unreachable lingers until the next reload. Orderings match the SELECT
+ * DISTINCT queries it replaces: types and makes ascending, years descending.
+ */
+@Component
+public class BranchFacetIndex implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(BranchFacetIndex.class);
+
+    private static final Comparator<CarType> TYPE_ORDER = Comparator.comparing(CarType::name);
+
+    static final String CHANNEL_PREFIX = "branchFacets";
+    private static final String SEPARATOR = "|";
+    private static final String SIDES = ";";
+    private static final String FIELDS = ",";
+
+    private final StringRedisTemplate redis;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, NavigableMap<CarType, NavigableMap<String, NavigableMap<Integer, Long>>>> branches = new HashMap<>();
+    private boolean loaded;
+
+    BranchFacetIndex(StringRedisTemplate redis) {
+        this.redis = redis;
+    }
+
+    void rebuild(Collection<CarFacet> counts) {
+        Map<String, NavigableMap<CarType, NavigableMap<String, NavigableMap<Integer, Long>>>> rebuilt = new HashMap<>();
+        for (CarFacet facet : counts) {
+            adjust(rebuilt, facet, facet.count());
+        }
+        lock.writeLock().lock();
+        try {
+            branches = rebuilt;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Move one car from its old facet to its new one; either side may be null.
+     */
+    void apply(CarFacet before, CarFacet after) {
+        if (before != null && before.equals(after)) {
+            return;
+        }
+        move(before, after);
+        publish(before, after);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\" + SEPARATOR, 3);
+        if (parts.length < 3 || !CHANNEL_PREFIX.equals(parts[1]) || nodeId.equals(parts[0])) {
+            return;
+        }
+        String[] sides = parts[2].split(SIDES, -1);
+        if (sides.length != 2) {
+            return;
+        }
+        move(decode(sides[0]), decode(sides[1]));
+    }
+
+    private void move(CarFacet before, CarFacet after) {
+        lock.writeLock().lock();
+        try {
+            if (before != null) {
+                adjust(branches, before, -1);
+            }
+            if (after != null) {
+                adjust(branches, after, 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<CarType> types(String branchCode) {
+        lock.readLock().lock();
+        try {
+            var types = branches.get(branchCode);
+            return types != null ? List.copyOf(types.keySet()) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<String> makes(String branchCode, CarType type) {
+        lock.readLock().lock();
+        try {
+            var types = branches.get(branchCode);
+            if (types == null) {
+                return List.of();
+            }
+            if (type != null) {
+                var makes = types.get(type);
+                return makes != null ? List.copyOf(makes.keySet()) : List.of();
+            }
+            TreeMap<String, Boolean> makes = new TreeMap<>();
+            types.values().forEach(byMake -> byMake.keySet().forEach(make -> makes.put(make, true)));
+            return List.copyOf(makes.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Integer> years(String branchCode, CarType type, String make) {
+        lock.readLock().lock();
+        try {
+            var types = branches.get(branchCode);
+            if (types == null) {
+                return List.of();
+            }
+            TreeMap<Integer, Boolean> years = new TreeMap<>(Comparator.reverseOrder());
+            types.forEach((t, byMake) -> {
+                if (type == null || type == t) {
+                    byMake.forEach((m, byYear) -> {
+                        if (make == null || make.equals(m)) {
+                            byYear.keySet().forEach(year -> years.put(year, true));
+                        }
+                    });
+                }
+            });
+            return List.copyOf(years.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    BranchFacets facets(String branchCode) {
+        lock.readLock().lock();
+        try {
+            var types = branches.getOrDefault(branchCode, new TreeMap<>(TYPE_ORDER));
+            List<BranchFacets.TypeFacet> typeFacets = new ArrayList<>(types.size());
+            long branchTotal = 0;
+            for (var byType : types.entrySet()) {
+                List<BranchFacets.MakeFacet> makeFacets = new ArrayList<>(byType.getValue().size());
+                long typeTotal = 0;
+                for (var byMake : byType.getValue().entrySet()) {
+                    List<BranchFacets.YearFacet> yearFacets = new ArrayList<>(byMake.getValue().size());
+                    long makeTotal = 0;
+                    for (var byYear : byMake.getValue().entrySet()) {
+                        yearFacets.add(new BranchFacets.YearFacet(byYear.getKey(), byYear.getValue()));
+                        makeTotal += byYear.getValue();
+                    }
+                    makeFacets.add(new BranchFacets.MakeFacet(byMake.getKey(), makeTotal, yearFacets));
+                    typeTotal += makeTotal;
+                }
+                typeFacets.add(new BranchFacets.TypeFacet(byType.getKey(), typeTotal, makeFacets));
+                branchTotal += typeTotal;
+            }
+            return new BranchFacets(branchCode, branchTotal, typeFacets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void publish(CarFacet before, CarFacet after) {
+        try {
+            // Shares the cache invalidation channel; TwoLevelCacheManager ignores the unknown cache name
+            redis.convertAndSend(TwoLevelCacheManager.INVALIDATION_CHANNEL,
+                    nodeId + SEPARATOR + CHANNEL_PREFIX + SEPARATOR + encode(before) + SIDES + encode(after));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to announce branch facet change: {}", ex.getMessage());
+        }
+    }
+
+    // The make is free text, so it goes last and URL-encoded to keep the separators out of it
+    private static String encode(CarFacet facet) {
+        if (facet == null) {
+            return "";
+        }
+        return String.join(FIELDS, facet.branchCode(), facet.type().name(), String.valueOf(facet.year()),
+                URLEncoder.encode(facet.make(), StandardCharsets.UTF_8));
+    }
+
+    private static CarFacet decode(String encoded) {
+        if (encoded.isEmpty()) {
+            return null;
+        }
+        String[] fields = encoded.split(FIELDS, 4);
+        return new CarFacet(fields[0], CarType.valueOf(fields[1]),
+                URLDecoder.decode(fields[3], StandardCharsets.UTF_8), Integer.parseInt(fields[2]), 1);
+    }
+
+    // Empty levels are pruned so the listings never show a value with no available cars
+    private static void adjust(Map<String, NavigableMap<CarType, NavigableMap<String, NavigableMap<Integer, Long>>>> branches,
+                               CarFacet facet, long delta) {
+        var types = branches.computeIfAbsent(facet.branchCode(), code -> new TreeMap<>(TYPE_ORDER));
+        var makes = types.computeIfAbsent(facet.type(), type -> new TreeMap<>());
+        var years = makes.computeIfAbsent(facet.make(), make -> new TreeMap<>(Comparator.reverseOrder()));
+        long count = years.getOrDefault(facet.year(), 0L) + delta;
+        if (count > 0) {
+            years.put(facet.year(), count);
+            return;
+        }
+        years.remove(facet.year());
+        if (years.isEmpty()) {
+            makes.remove(facet.make());
+            if (makes.isEmpty()) {
+                types.remove(facet.type());
+                if (types.isEmpty()) {
+                    branches.remove(facet.branchCode());
+                }
+            }
+        }
+    }
+}
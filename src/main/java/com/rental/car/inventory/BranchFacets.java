@@ -0,0 +1,18 @@
+package com.rental.car.inventory;
+
+import java.util.List;
+
+/**
+ * Available cars at a branch broken down type → make → year, with counts at every level.
+ */
+public record BranchFacets(String branchCode, long availableCars, List<TypeFacet> types) {
+
+    public record TypeFacet(CarType type, long count, List<MakeFacet> makes) {
+    }
+
+    public record MakeFacet(String make, long count, List<YearFacet> years) {
+    }
+
+    public record YearFacet(int year, long count) {
+    }
+}
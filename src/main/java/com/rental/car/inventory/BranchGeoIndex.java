@@ -0,0 +1,261 @@
+package com.rental.car.inventory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory grid of branch coordinates with one-degree cells.
+ *
+ * Resolves the branches within a radius of a point, with their distances, by scanning only the
+ * cells the radius can reach. Searches use it in place of per-row ST_Distance/ST_DWithin, so
+ * distance work depends on the number of branches rather than cars. Distances are geodesics on
+ * the WGS84 spheroid, as PostGIS computes them for geography, so the same branches fall inside
+ * the search radius. Snapshots are immutable and swapped whole: single-branch changes copy the snapshot,
+ * which is cheap at branch counts and keeps readers lock-free.
+ *
+ * Nearest-branch lookups quantize the point to a small cell and cache, per cell, the branches
+ * that can be among the N nearest for any point in it; only those are ranked per request.
+ * The cache belongs to the snapshot, so any branch change starts from an empty one.
+ */
+@Component
+class BranchGeoIndex {
+
+    // WGS84
+    private static final double SEMI_MAJOR_AXIS_M = 6_378_137.0;
+    private static final double FLATTENING = 1 / 298.257223563;
+    private static final double SEMI_MINOR_AXIS_M = (1 - FLATTENING) * SEMI_MAJOR_AXIS_M;
+    static final double MEAN_RADIUS_KM = 6371.0088;
+    // Shortest degree of latitude (110.574 km, at the equator), rounded down, so the cells scanned
+    // for a radius always cover it; a degree of longitude is never shorter than this times cos(lat)
+    private static final double KM_PER_DEGREE = 110.5;
+    private static final int LON_CELLS = 360;
+    static final double NEAREST_CELL_DEGREES = 0.01;
+    private static final int NEAREST_CACHE_SIZE = 10_000;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), false);
+
+    synchronized void rebuild(Collection<BranchLocation> branches) {
+        Map<String, BranchLocation> byCode = new LinkedHashMap<>();
+        for (BranchLocation branch : branches) {
+            byCode.put(branch.code(), branch);
+        }
+        snapshot = new Snapshot(byCode, true);
+    }
+
+    synchronized void upsert(BranchLocation branch) {
+        Map<String, BranchLocation> byCode = new LinkedHashMap<>(snapshot.byCode);
+        byCode.put(branch.code(), branch);
+        snapshot = new Snapshot(byCode, snapshot.loaded);
+    }
+
+    synchronized void remove(String code) {
+        Map<String, BranchLocation> byCode = new LinkedHashMap<>(snapshot.byCode);
+        byCode.remove(code);
+        snapshot = new Snapshot(byCode, snapshot.loaded);
+    }
+
+    boolean isLoaded() {
+        return snapshot.loaded;
+    }
+
+    List<BranchLocation> all() {
+        return List.copyOf(snapshot.byCode.values());
+    }
+
+    Optional<BranchLocation> find(String code) {
+        return Optional.ofNullable(snapshot.byCode.get(code));
+    }
+
+    /**
+     * Branches within radiusKm of the point, nearest first.
+     */
+    List<BranchDistance> findWithin(double lat, double lon, double radiusKm) {
+        Snapshot current = snapshot;
+        List<BranchDistance> result = new ArrayList<>();
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        int minLatCell = latCell(Math.max(-90.0, lat - latSpan));
+        int maxLatCell = latCell(Math.min(90.0, lat + latSpan));
+
+        // The widest longitude span is at the band edge closest to a pole
+        double maxAbsLat = Math.min(90.0, Math.abs(lat) + latSpan);
+        double cosLat = Math.cos(Math.toRadians(maxAbsLat));
+        double lonSpan = cosLat > 1e-9 ? radiusKm / (KM_PER_DEGREE * cosLat) : 360.0;
+        int firstLon = (int) Math.floor(lon - lonSpan);
+        int lonCount = lonSpan * 2 + 2 >= LON_CELLS ? LON_CELLS : (int) Math.floor(lon + lonSpan) - firstLon + 1;
+
+        for (int latIdx = minLatCell; latIdx <= maxLatCell; latIdx++) {
+            for (int i = 0; i < lonCount; i++) {
+                List<BranchLocation> cell = current.cells.get(cellKey(latIdx, lonCellOfDegree(firstLon + i)));
+                if (cell == null) {
+                    continue;
+                }
+                for (BranchLocation branch : cell) {
+                    double distance = distanceKm(lat, lon, branch.latitude(), branch.longitude());
+                    if (distance <= radiusKm) {
+                        result.add(new BranchDistance(branch, distance));
+                    }
+                }
+            }
+        }
+        result.sort(Comparator.comparingDouble(BranchDistance::distanceKm));
+        return result;
+    }
+
+    /**
+     * The limit branches nearest to the point, nearest first.
+     */
+    List<BranchDistance> findNearest(double lat, double lon, int limit) {
+        Snapshot current = snapshot;
+        long latCell = (long) Math.floor(lat / NEAREST_CELL_DEGREES);
+        long lonCell = (long) Math.floor(lon / NEAREST_CELL_DEGREES);
+        List<BranchLocation> candidates = current.nearestCandidates.get(
+                new NearestKey(latCell, lonCell, limit),
+                key -> nearestCandidates(current, key));
+
+        List<BranchDistance> ranked = new ArrayList<>(candidates.size());
+        for (BranchLocation branch : candidates) {
+            ranked.add(new BranchDistance(branch, distanceKm(lat, lon, branch.latitude(), branch.longitude())));
+        }
+        ranked.sort(Comparator.comparingDouble(BranchDistance::distanceKm));
+        return ranked.size() > limit ? List.copyOf(ranked.subList(0, limit)) : ranked;
+    }
+
+    // Any point p in the cell is within h of its center c, so a branch among p's N nearest is
+    // within D_N(c) + 2h of c, where D_N(c) is the distance from c to its N-th nearest branch.
+    private static List<BranchLocation> nearestCandidates(Snapshot current, NearestKey key) {
+        List<BranchLocation> branches = List.copyOf(current.byCode.values());
+        if (branches.size() <= key.limit()) {
+            return branches;
+        }
+        double south = key.latCell() * NEAREST_CELL_DEGREES;
+        double west = key.lonCell() * NEAREST_CELL_DEGREES;
+        double centerLat = south + NEAREST_CELL_DEGREES / 2;
+        double centerLon = west + NEAREST_CELL_DEGREES / 2;
+        double halfDiagonal = Math.max(
+                distanceKm(centerLat, centerLon, south, west),
+                distanceKm(centerLat, centerLon, south + NEAREST_CELL_DEGREES, west));
+
+        double[] distances = new double[branches.size()];
+        for (int i = 0; i < distances.length; i++) {
+            BranchLocation branch = branches.get(i);
+            distances[i] = distanceKm(centerLat, centerLon, branch.latitude(), branch.longitude());
+        }
+        double[] sorted = distances.clone();
+        Arrays.sort(sorted);
+        double bound = sorted[key.limit() - 1] + 2 * halfDiagonal;
+
+        List<BranchLocation> candidates = new ArrayList<>();
+        for (int i = 0; i < distances.length; i++) {
+            if (distances[i] <= bound) {
+                candidates.add(branches.get(i));
+            }
+        }
+        return List.copyOf(candidates);
+    }
+
+    /**
+     * Geodesic distance on the WGS84 spheroid (Vincenty's inverse formula), matching ST_Distance
+     * on geography to well under a metre. Nearly antipodal points, where the iteration may not
+     * converge, fall back to the great-circle distance.
+     */
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double l = Math.toRadians(lon2 - lon1);
+        double u1 = Math.atan((1 - FLATTENING) * Math.tan(Math.toRadians(lat1)));
+        double u2 = Math.atan((1 - FLATTENING) * Math.tan(Math.toRadians(lat2)));
+        double sinU1 = Math.sin(u1);
+        double cosU1 = Math.cos(u1);
+        double sinU2 = Math.sin(u2);
+        double cosU2 = Math.cos(u2);
+
+        double lambda = l;
+        for (int i = 0; i < 100; i++) {
+            double sinLambda = Math.sin(lambda);
+            double cosLambda = Math.cos(lambda);
+            double sinSigma = Math.sqrt(Math.pow(cosU2 * sinLambda, 2)
+                    + Math.pow(cosU1 * sinU2 - sinU1 * cosU2 * cosLambda, 2));
+            if (sinSigma == 0) {
+                return 0.0;
+            }
+            double cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            double sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+            double cosSqAlpha = 1 - sinAlpha * sinAlpha;
+            // Zero on the equator, where both points have u = 0
+            double cos2SigmaM = cosSqAlpha != 0 ? cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha : 0;
+            double c = FLATTENING / 16 * cosSqAlpha * (4 + FLATTENING * (4 - 3 * cosSqAlpha));
+            double previous = lambda;
+            lambda = l + (1 - c) * FLATTENING * sinAlpha
+                    * (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+            if (Math.abs(lambda - previous) < 1e-12) {
+                double uSq = cosSqAlpha * (SEMI_MAJOR_AXIS_M * SEMI_MAJOR_AXIS_M - SEMI_MINOR_AXIS_M * SEMI_MINOR_AXIS_M)
+                        / (SEMI_MINOR_AXIS_M * SEMI_MINOR_AXIS_M);
+                double a = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+                double b = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+                double deltaSigma = b * sinSigma * (cos2SigmaM + b / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+                        - b / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+                return SEMI_MINOR_AXIS_M * a * (sigma - deltaSigma) / 1000.0;
+            }
+        }
+        return greatCircleKm(lat1, lon1, lat2, lon2);
+    }
+
+    static double greatCircleKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * MEAN_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private static int latCell(double lat) {
+        return Math.min(179, (int) Math.floor(lat + 90.0));
+    }
+
+    private static int lonCell(double lon) {
+        return Math.floorMod((int) Math.floor(lon + 180.0), LON_CELLS);
+    }
+
+    private static int lonCellOfDegree(int lonDegree) {
+        return Math.floorMod(lonDegree + 180, LON_CELLS);
+    }
+
+    private static int cellKey(int latCell, int lonCell) {
+        return latCell * LON_CELLS + lonCell;
+    }
+
+    record BranchDistance(BranchLocation branch, double distanceKm) {
+    }
+
+    private record NearestKey(long latCell, long lonCell, int limit) {
+    }
+
+    private static final class Snapshot {
+        private final Map<String, BranchLocation> byCode;
+        private final Map<Integer, List<BranchLocation>> cells = new HashMap<>();
+        private final Cache<NearestKey, List<BranchLocation>> nearestCandidates = Caffeine.newBuilder()
+                .maximumSize(NEAREST_CACHE_SIZE)
+                .build();
+        private final boolean loaded;
+
+        Snapshot(Map<String, BranchLocation> byCode, boolean loaded) {
+            this.byCode = byCode;
+            this.loaded = loaded;
+            for (BranchLocation branch : byCode.values()) {
+                cells.computeIfAbsent(cellKey(latCell(branch.latitude()), lonCell(branch.longitude())),
+                        k -> new ArrayList<>()).add(branch);
+            }
+        }
+    }
+}
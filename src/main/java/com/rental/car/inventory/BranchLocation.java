@@ -0,0 +1,37 @@
+package com.rental.car.inventory;
+
+/**
+ * Immutable copy of a branch and its address, as held by {@link BranchGeoIndex}.
+ */
+record BranchLocation(
+    Long id,
+    String code,
+    String name,
+    String phoneNumber,
+    String street1,
+    String city,
+    String state,
+    String country,
+    String zipCode,
+    double latitude,
+    double longitude,
+    boolean airport
+) {
+    static BranchLocation from(Branch branch) {
+        Address address = branch.getAddress();
+        return new BranchLocation(
+            branch.getId(),
+            branch.getCode(),
+            branch.getName(),
+            branch.getPhoneNumber(),
+            address.getStreet1(),
+            address.getCity(),
+            address.getState(),
+            address.getCountry(),
+            address.getZipCode(),
+            address.getLatitude(),
+            address.getLongitude(),
+            Boolean.TRUE.equals(branch.getIsAirport())
+        );
+    }
+}
@@ -0,0 +1,248 @@
+package com.rental.car.inventory;
+
+import com.rental.car.common.TwoLevelCacheManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process day-occupancy index: one bitset per car, one bit per day over a fixed
+ * horizon starting at the day of the last rebuild, derived from the car's bookings so that
+ * releases and bookings of the same days can be applied in either order.
+ *
+ * Mirrors the reservation overlap predicate of searchFleetUnified, so date-aware searches
+ * can exclude booked cars without the correlated NOT EXISTS subquery. Queries falling
+ * outside the horizon, or issued before the first rebuild, return empty and the caller
+ * falls back to SQL.
+ *
+ * The database remains the source of truth. Bookings and releases are announced on
+ * {@link TwoLevelCacheManager#INVALIDATION_CHANNEL}, so other nodes apply them within the
+ * pub/sub delay; one lost while Redis is unreachable lingers until the next rebuild. Changes
+ * made while a rebuild is loading are replayed onto the rebuilt state, which may not see them.
+ */
+@Component
+public class CarAvailabilityIndex implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CarAvailabilityIndex.class);
+
+    static final int HORIZON_DAYS = 365;
+
+    static final String CHANNEL_PREFIX = "carAvailability";
+    private static final String SEPARATOR = "|";
+    private static final String BOOKED = "B";
+    private static final String RELEASED = "R";
+
+    private final StringRedisTemplate redis;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, CarDays> cars = new HashMap<>();
+    private long horizonStart;
+    private boolean loaded;
+    // Changes applied since the running rebuild started loading, null when none is running
+    private List<Change> pending;
+
+    CarAvailabilityIndex(StringRedisTemplate redis) {
+        this.redis = redis;
+    }
+
+    void rebuild(LocalDate start, Collection<CarBooking> bookings) {
+        rebuild(start, () -> bookings);
+    }
+
+    /**
+     * Replace the index with the bookings returned by the loader, then replay the changes
+     * applied while it ran.
+     */
+    void rebuild(LocalDate start, Supplier<? extends Collection<CarBooking>> loader) {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long startDay = start.toEpochDay();
+        Map<Long, CarDays> rebuilt = new HashMap<>();
+        try {
+            for (CarBooking booking : loader.get()) {
+                set(rebuilt, startDay, booking, true);
+            }
+        } catch (RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Change change : pending) {
+                set(rebuilt, startDay, change.booking(), change.booked());
+            }
+            pending = null;
+            cars = rebuilt;
+            horizonStart = startDay;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void markBooked(CarBooking booking) {
+        update(booking, true);
+        publish(booking, true);
+    }
+
+    void markReleased(CarBooking booking) {
+        update(booking, false);
+        publish(booking, false);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\" + SEPARATOR, 3);
+        if (parts.length < 3 || !CHANNEL_PREFIX.equals(parts[1]) || nodeId.equals(parts[0])) {
+            return;
+        }
+        String[] change = parts[2].split(",");
+        if (change.length != 4) {
+            return;
+        }
+        CarBooking booking = new CarBooking(
+                Long.valueOf(change[1]), LocalDate.parse(change[2]), LocalDate.parse(change[3]));
+        update(booking, BOOKED.equals(change[0]));
+    }
+
+    /**
+     * Cars with at least one booked day in [pickupDate, returnDate), or empty when the
+     * index cannot answer for this range.
+     */
+    Optional<Set<Long>> findBookedCarIds(LocalDate pickupDate, LocalDate returnDate) {
+        lock.readLock().lock();
+        try {
+            if (!loaded) {
+                return Optional.empty();
+            }
+            int from = (int) (pickupDate.toEpochDay() - horizonStart);
+            int to = (int) (returnDate.toEpochDay() - horizonStart);
+            if (from < 0 || to > HORIZON_DAYS || from >= to) {
+                return Optional.empty();
+            }
+
+            Set<Long> booked = new HashSet<>();
+            for (Map.Entry<Long, CarDays> entry : cars.entrySet()) {
+                int next = entry.getValue().days.nextSetBit(from);
+                if (next >= 0 && next < to) {
+                    booked.add(entry.getKey());
+                }
+            }
+            return Optional.of(booked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(CarBooking booking, boolean booked) {
+        lock.writeLock().lock();
+        try {
+            set(cars, horizonStart, booking, booked);
+            if (pending != null) {
+                pending.add(new Change(booking, booked));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void publish(CarBooking booking, boolean booked) {
+        String change = String.join(",", booked ? BOOKED : RELEASED, String.valueOf(booking.carId()),
+                booking.pickupDate().toString(), booking.returnDate().toString());
+        try {
+            // Shares the cache invalidation channel; TwoLevelCacheManager ignores the unknown cache name
+            redis.convertAndSend(TwoLevelCacheManager.INVALIDATION_CHANNEL,
+                    nodeId + SEPARATOR + CHANNEL_PREFIX + SEPARATOR + change);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to announce availability change for car {}: {}", booking.carId(), ex.getMessage());
+        }
+    }
+
+    private record Change(CarBooking booking, boolean booked) {
+    }
+
+    // Releasing rebuilds the car's days from its remaining bookings rather than clearing the
+    // released range: a booking of the same days applied before the release must stay visible
+    private static void set(Map<Long, CarDays> cars, long startDay, CarBooking booking, boolean booked) {
+        if (!overlapsHorizon(startDay, booking)) {
+            return;
+        }
+        if (booked) {
+            CarDays car = cars.computeIfAbsent(booking.carId(), id -> new CarDays());
+            if (car.bookings.add(booking)) {
+                mark(car.days, startDay, booking);
+            }
+            return;
+        }
+        CarDays car = cars.get(booking.carId());
+        if (car == null || !car.bookings.remove(booking)) {
+            return;
+        }
+        if (car.bookings.isEmpty()) {
+            cars.remove(booking.carId());
+            return;
+        }
+        car.days.clear();
+        for (CarBooking remaining : car.bookings) {
+            mark(car.days, startDay, remaining);
+        }
+    }
+
+    private static boolean overlapsHorizon(long startDay, CarBooking booking) {
+        return booking.returnDate().toEpochDay() > startDay
+                && booking.pickupDate().toEpochDay() < startDay + HORIZON_DAYS;
+    }
+
+    private static void mark(BitSet days, long startDay, CarBooking booking) {
+        int from = (int) Math.max(0, booking.pickupDate().toEpochDay() - startDay);
+        int to = (int) Math.min(HORIZON_DAYS, booking.returnDate().toEpochDay() - startDay);
+        days.set(from, to);
+    }
+
+    /**
+     * A car's bookings within the horizon and the days they cover.
+     */
+    private static final class CarDays {
+        private final Set<CarBooking> bookings = new HashSet<>(2);
+        private final BitSet days = new BitSet(HORIZON_DAYS);
+    }
+}
@@ -0,0 +1,9 @@
+package com.rental.car.inventory;
+
+import java.time.LocalDate;
+
+/**
+ * A car blocked for the half-open day range [pickupDate, returnDate).
+ */
+public record CarBooking(Long carId, LocalDate pickupDate, LocalDate returnDate) {
+}
@@ -33,4 +33,20 @@ public record CarDTO(
             null
         );
     }
+
+    static CarDTO from(CarWithDistance result) {
+        return new CarDTO(
+            result.getId(),
+            CarType.valueOf(result.getType()),
+            result.getLicensePlate(),
+            result.getMake(),
+            result.getModel(),
+            result.getYear(),
+            result.getBranchCode(),
+            result.getBranchName(),
+            result.getBranchCity(),
+            result.getAvailable(),
+            result.getDistanceKm()
+        );
+    }
 }
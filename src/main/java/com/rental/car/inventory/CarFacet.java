@@ -0,0 +1,18 @@
+package com.rental.car.inventory;
+
+/**
+ * Facet coordinates of an available car, optionally with the number of cars sharing them.
+ */
+record CarFacet(String branchCode, CarType type, String make, int year, long count) {
+
+    static CarFacet of(Car car) {
+        return new CarFacet(car.getCurrentBranch().getCode(), car.getType(), car.getMake(), car.getYear(), 1);
+    }
+
+    /**
+     * The car's facet if it counts towards the filters (available cars only), otherwise null.
+     */
+    static CarFacet ofAvailable(Car car) {
+        return car.isAvailable() ? of(car) : null;
+    }
+}
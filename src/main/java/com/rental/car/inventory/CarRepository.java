@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,13 @@ interface CarRepository extends JpaRepository<Car, Long> {
     List<Car> findAvailableCarsAtBranch(@Param("type") CarType type, @Param("branchCode") String branchCode);
 
     Optional<Car> findByLicensePlate(String licensePlate);
+
+    @Query("SELECT c FROM Car c JOIN FETCH c.currentBranch b JOIN FETCH b.address WHERE c.id = :id")
+    Optional<Car> findWithBranchById(@Param("id") Long id);
+
+    @Query("SELECT c FROM Car c JOIN FETCH c.currentBranch b JOIN FETCH b.address WHERE c.id IN :ids")
+    List<Car> findAllWithBranchByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("""
         SELECT c FROM Car c 
         WHERE c.available = true 
@@ -33,6 +41,15 @@ interface CarRepository extends JpaRepository<Car, Long> {
         Pageable pageable
     );
 
+    /**
+     * Unified fleet search. Date availability is either checked here against reservations
+     * (pickupDate/returnDate) or resolved beforehand by the availability index and passed as
+     * excludedCarIds, a Postgres array literal such as '{1,2,3}'. Address searches pass the
+     * nearby branches and their distances from the branch geo index as parallel array literals
+     * (branchIds, branchDistances); cars are then filtered by branch id only. Reservations are
+     * matched on their stored period with the status filter of reservations_no_overlap_per_car,
+     * so the NOT EXISTS is answered by that constraint's GiST index.
+     */
     @Query(value = """
         SELECT 
             c.id AS id,
@@ -45,42 +62,36 @@ interface CarRepository extends JpaRepository<Car, Long> {
             b.name AS branchName,
             a.city AS branchCity,
             c.available AS available,
-            CASE 
-                WHEN :lat IS NULL OR :lon IS NULL THEN NULL
-                ELSE ST_Distance(
-                    geography(ST_MakePoint(:lon, :lat)),
-                    geography(ST_MakePoint(a.longitude, a.latitude))
-                ) / 1000.0
-            END AS distanceKm
+            nb.distance_km AS distanceKm
         FROM cars c
         JOIN branches b ON c.current_branch_id = b.id
         JOIN addresses a ON b.address_id = a.id
+        LEFT JOIN unnest(
+            CAST(CAST(:branchIds AS text) AS bigint[]),
+            CAST(CAST(:branchDistances AS text) AS float8[])
+        ) AS nb(branch_id, distance_km) ON nb.branch_id = b.id
         WHERE c.available = true
         AND (:branchCode IS NULL OR b.code = :branchCode)
         AND (:type IS NULL OR c.type = :type)
         AND (:make IS NULL OR LOWER(c.make) LIKE LOWER(CONCAT('%', :make, '%')))
         AND (:year IS NULL OR c.year = :year)
+        AND (CAST(:branchIds AS text) IS NULL OR nb.branch_id IS NOT NULL)
         AND (
-            :lat IS NULL OR :lon IS NULL OR :maxDistanceKm IS NULL
-            OR ST_DWithin(
-                geography(ST_MakePoint(:lon, :lat)),
-                geography(ST_MakePoint(a.longitude, a.latitude)),
-                :maxDistanceKm * 1000.0
-            )
+            CAST(:excludedCarIds AS text) IS NULL
+            OR c.id <> ALL(CAST(CAST(:excludedCarIds AS text) AS bigint[]))
         )
         AND (
             :pickupDate IS NULL OR :returnDate IS NULL
             OR NOT EXISTS (
                 SELECT 1 FROM reservations r
                 WHERE r.car_id = c.id
-                AND r.status IN ('PENDING', 'CONFIRMED', 'ACTIVE')
-                AND r.pickup_date < CAST(:returnDate AS date)
-                AND r.return_date > CAST(:pickupDate AS date)
+                AND r.status NOT IN ('CANCELLED', 'COMPLETED')
+                AND r.period && daterange(CAST(:pickupDate AS date), CAST(:returnDate AS date), '[)')
             )
         )
         ORDER BY
-            CASE WHEN :lat IS NULL OR :lon IS NULL THEN 1 ELSE 0 END,
-            CASE WHEN :lat IS NULL OR :lon IS NULL THEN c.id ELSE NULL END ASC,
+            CASE WHEN CAST(:branchIds AS text) IS NULL THEN 1 ELSE 0 END,
+            CASE WHEN CAST(:branchIds AS text) IS NULL THEN c.id ELSE NULL END ASC,
             distanceKm ASC
     """, 
     countQuery = """
@@ -88,73 +99,166 @@ interface CarRepository extends JpaRepository<Car, Long> {
         FROM cars c
         JOIN branches b ON c.current_branch_id = b.id
         JOIN addresses a ON b.address_id = a.id
+        LEFT JOIN unnest(
+            CAST(CAST(:branchIds AS text) AS bigint[]),
+            CAST(CAST(:branchDistances AS text) AS float8[])
+        ) AS nb(branch_id, distance_km) ON nb.branch_id = b.id
         WHERE c.available = true
         AND (:branchCode IS NULL OR b.code = :branchCode)
         AND (:type IS NULL OR c.type = :type)
         AND (:make IS NULL OR LOWER(c.make) LIKE LOWER(CONCAT('%', :make, '%')))
         AND (:year IS NULL OR c.year = :year)
+        AND (CAST(:branchIds AS text) IS NULL OR nb.branch_id IS NOT NULL)
         AND (
-            :lat IS NULL OR :lon IS NULL OR :maxDistanceKm IS NULL
-            OR ST_DWithin(
-                geography(ST_MakePoint(:lon, :lat)),
-                geography(ST_MakePoint(a.longitude, a.latitude)),
-                :maxDistanceKm * 1000.0
-            )
+            CAST(:excludedCarIds AS text) IS NULL
+            OR c.id <> ALL(CAST(CAST(:excludedCarIds AS text) AS bigint[]))
         )
         AND (
             :pickupDate IS NULL OR :returnDate IS NULL
             OR NOT EXISTS (
                 SELECT 1 FROM reservations r
                 WHERE r.car_id = c.id
-                AND r.status IN ('PENDING', 'CONFIRMED', 'ACTIVE')
-                AND r.pickup_date < CAST(:returnDate AS date)
-                AND r.return_date > CAST(:pickupDate AS date)
+                AND r.status NOT IN ('CANCELLED', 'COMPLETED')
+                AND r.period && daterange(CAST(:pickupDate AS date), CAST(:returnDate AS date), '[)')
             )
         )
     """,
     nativeQuery = true)
     Page<CarWithDistance> searchFleetUnified(
-        @Param("lat") Double lat,
-        @Param("lon") Double lon,
-        @Param("maxDistanceKm") Double maxDistanceKm,
+        @Param("branchIds") String branchIds,
+        @Param("branchDistances") String branchDistances,
         @Param("branchCode") String branchCode,
         @Param("type") String type,
         @Param("make") String make,
         @Param("year") Integer year,
         @Param("pickupDate") LocalDate pickupDate,
         @Param("returnDate") LocalDate returnDate,
+        @Param("excludedCarIds") String excludedCarIds,
         Pageable pageable
     );
 
-    boolean existsByLicensePlate(String licensePlate);
-    
-    // Branch-centric filtering queries - branchCode is required
-    @Query("""
-        SELECT DISTINCT c.type FROM Car c 
-        WHERE c.available = true 
-        AND c.currentBranch.code = :branchCode
-        ORDER BY c.type
-    """)
-    List<CarType> findAvailableTypes(@Param("branchCode") String branchCode);
-    
-    @Query("""
-        SELECT DISTINCT c.make FROM Car c 
-        WHERE c.available = true 
-        AND c.currentBranch.code = :branchCode
+    /**
+     * Keyset variant of {@link #searchFleetUnified}: rows are ordered by (distanceKm, id) and
+     * start strictly after the (afterDistanceKm, afterId) position, so deep pages cost the same
+     * as the first one. Distance is null without a search point, leaving the order by id alone.
+     * Fetch one row more than the page size to learn whether another page exists.
+     */
+    @Query(value = """
+        SELECT s.* FROM (
+            SELECT 
+                c.id AS id,
+                c.type AS type,
+                c.license_plate AS licensePlate,
+                c.make AS make,
+                c.model AS model,
+                c.year AS year,
+                b.code AS branchCode,
+                b.name AS branchName,
+                a.city AS branchCity,
+                c.available AS available,
+                nb.distance_km AS distanceKm
+            FROM cars c
+            JOIN branches b ON c.current_branch_id = b.id
+            JOIN addresses a ON b.address_id = a.id
+            LEFT JOIN unnest(
+                CAST(CAST(:branchIds AS text) AS bigint[]),
+                CAST(CAST(:branchDistances AS text) AS float8[])
+            ) AS nb(branch_id, distance_km) ON nb.branch_id = b.id
+            WHERE c.available = true
+            AND (:branchCode IS NULL OR b.code = :branchCode)
+            AND (:type IS NULL OR c.type = :type)
+            AND (:make IS NULL OR LOWER(c.make) LIKE LOWER(CONCAT('%', :make, '%')))
+            AND (:year IS NULL OR c.year = :year)
+            AND (CAST(:branchIds AS text) IS NULL OR nb.branch_id IS NOT NULL)
+            AND (
+                CAST(:excludedCarIds AS text) IS NULL
+                OR c.id <> ALL(CAST(CAST(:excludedCarIds AS text) AS bigint[]))
+            )
+            AND (
+                :pickupDate IS NULL OR :returnDate IS NULL
+                OR NOT EXISTS (
+                    SELECT 1 FROM reservations r
+                    WHERE r.car_id = c.id
+                    AND r.status NOT IN ('CANCELLED', 'COMPLETED')
+                    AND r.period && daterange(CAST(:pickupDate AS date), CAST(:returnDate AS date), '[)')
+                )
+            )
+        ) s
+        WHERE CAST(:afterId AS bigint) IS NULL
+        OR (s.distanceKm IS NULL AND s.id > CAST(:afterId AS bigint))
+        OR s.distanceKm > CAST(:afterDistanceKm AS float8)
+        OR (s.distanceKm = CAST(:afterDistanceKm AS float8) AND s.id > CAST(:afterId AS bigint))
+        ORDER BY s.distanceKm ASC, s.id ASC
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<CarWithDistance> scrollFleetUnified(
+        @Param("branchIds") String branchIds,
+        @Param("branchDistances") String branchDistances,
+        @Param("branchCode") String branchCode,
+        @Param("type") String type,
+        @Param("make") String make,
+        @Param("year") Integer year,
+        @Param("pickupDate") LocalDate pickupDate,
+        @Param("returnDate") LocalDate returnDate,
+        @Param("excludedCarIds") String excludedCarIds,
+        @Param("afterDistanceKm") Double afterDistanceKm,
+        @Param("afterId") Long afterId,
+        @Param("limit") int limit
+    );
+
+    /**
+     * Number of cars matching {@link #scrollFleetUnified}, for callers that ask for a total.
+     */
+    @Query(value = """
+        SELECT count(*)
+        FROM cars c
+        JOIN branches b ON c.current_branch_id = b.id
+        JOIN addresses a ON b.address_id = a.id
+        LEFT JOIN unnest(
+            CAST(CAST(:branchIds AS text) AS bigint[]),
+            CAST(CAST(:branchDistances AS text) AS float8[])
+        ) AS nb(branch_id, distance_km) ON nb.branch_id = b.id
+        WHERE c.available = true
+        AND (:branchCode IS NULL OR b.code = :branchCode)
         AND (:type IS NULL OR c.type = :type)
-        ORDER BY c.make
-    """)
-    List<String> findAvailableMakes(@Param("branchCode") String branchCode, @Param("type") CarType type);
+        AND (:make IS NULL OR LOWER(c.make) LIKE LOWER(CONCAT('%', :make, '%')))
+        AND (:year IS NULL OR c.year = :year)
+        AND (CAST(:branchIds AS text) IS NULL OR nb.branch_id IS NOT NULL)
+        AND (
+            CAST(:excludedCarIds AS text) IS NULL
+            OR c.id <> ALL(CAST(CAST(:excludedCarIds AS text) AS bigint[]))
+        )
+        AND (
+            :pickupDate IS NULL OR :returnDate IS NULL
+            OR NOT EXISTS (
+                SELECT 1 FROM reservations r
+                WHERE r.car_id = c.id
+                AND r.status NOT IN ('CANCELLED', 'COMPLETED')
+                AND r.period && daterange(CAST(:pickupDate AS date), CAST(:returnDate AS date), '[)')
+            )
+        )
+    """, nativeQuery = true)
+    long countFleetUnified(
+        @Param("branchIds") String branchIds,
+        @Param("branchDistances") String branchDistances,
+        @Param("branchCode") String branchCode,
+        @Param("type") String type,
+        @Param("make") String make,
+        @Param("year") Integer year,
+        @Param("pickupDate") LocalDate pickupDate,
+        @Param("returnDate") LocalDate returnDate,
+        @Param("excludedCarIds") String excludedCarIds
+    );
+
+    boolean existsByLicensePlate(String licensePlate);
     
     @Query("""
-        SELECT DISTINCT c.year FROM Car c 
-        WHERE c.available = true 
-        AND c.currentBranch.code = :branchCode
-        AND (:type IS NULL OR c.type = :type)
-        AND (CAST(:make AS string) IS NULL OR c.make = :make)
-        ORDER BY c.year DESC
+        SELECT new com.rental.car.inventory.CarFacet(c.currentBranch.code, c.type, c.make, c.year, COUNT(c))
+        FROM Car c
+        WHERE c.available = true
+        GROUP BY c.currentBranch.code, c.type, c.make, c.year
     """)
-    List<Integer> findAvailableYears(@Param("branchCode") String branchCode, @Param("type") CarType type, @Param("make") String make);
+    List<CarFacet> countAvailableByFacet();
 
     /**
      * Atomically update car availability only if current availability matches expected value.
@@ -0,0 +1,18 @@
+package com.rental.car.inventory;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One page of a keyset fleet search. Pass nextCursor back as the cursor parameter to continue;
+ * totalElements is only filled when the caller asked for it.
+ */
+public record CarScrollResponse(
+    List<CarDTO> content,
+    String nextCursor,
+    boolean hasNext,
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Long totalElements
+) {
+}
@@ -0,0 +1,140 @@
+package com.rental.car.inventory;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.rental.car.common.TwoLevelCacheManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Generation counters for the carSearch cache, kept in Redis so every node sees the same values.
+ *
+ * A search is scoped by (branch, type), either of which may be "any". Its current generation
+ * is part of the cache key, so bumping a scope orphans only the entries of searches that could
+ * see the change; they then age out through the cache TTL. A change to a car at (B, T) bumps
+ * (B, T), (B, any), (any, T) and (any, any). Address searches span branches and use (any, T).
+ *
+ * Each node keeps the generations it read for {@code cache.local.car-search.generation-ttl}, so
+ * building a cache key does not cost a Redis round trip. Bumps are sent as one pipeline and
+ * announced on {@link TwoLevelCacheManager#INVALIDATION_CHANNEL}, which drops the bumped scopes
+ * on every node. While Redis is unreachable searches use {@link #FALLBACK} instead of failing.
+ */
+@Component
+public class CarSearchGenerations implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CarSearchGenerations.class);
+
+    private static final String KEY_PREFIX = "carSearch:gen:";
+    private static final String ANY = "*";
+    private static final String SEPARATOR = "|";
+    static final String FALLBACK = "offline";
+
+    private final StringRedisTemplate redis;
+    private final LoadingCache<String, String> local;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    CarSearchGenerations(
+            StringRedisTemplate redis,
+            @Value("${cache.local.car-search.generation-ttl:PT5S}") Duration localTtl
+    ) {
+        this.redis = redis;
+        this.local = Caffeine.newBuilder()
+                .expireAfterWrite(localTtl)
+                .build(this::load);
+    }
+
+    /**
+     * Current generation for the search scope, referenced from the carSearch cache key.
+     */
+    public String current(String branchCode, CarType type) {
+        return local.get(key(branchCode, type));
+    }
+
+    /**
+     * Invalidate searches that could include a car of the given type at the given branch.
+     */
+    void bump(String branchCode, CarType type) {
+        increment(scopes(branchCode, type));
+    }
+
+    /**
+     * Invalidate every search that could include a car at the given branch.
+     */
+    void bumpBranch(String branchCode) {
+        List<String> keys = new ArrayList<>(2 + 2 * CarType.values().length);
+        keys.add(key(branchCode, null));
+        keys.add(key(null, null));
+        for (CarType type : CarType.values()) {
+            keys.add(key(branchCode, type));
+            keys.add(key(null, type));
+        }
+        increment(keys);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\" + SEPARATOR, 3);
+        if (parts.length == 3 && KEY_PREFIX.equals(parts[1]) && !nodeId.equals(parts[0])) {
+            local.invalidateAll(Arrays.asList(parts[2].split(",")));
+        }
+    }
+
+    private String load(String key) {
+        try {
+            String generation = redis.opsForValue().get(key);
+            return generation != null ? generation : "0";
+        } catch (RuntimeException ex) {
+            // Kept for the local TTL like any other value, so an outage costs one failed call per scope
+            log.warn("Failed to read carSearch generation {}: {}", key, ex.getMessage());
+            return FALLBACK;
+        }
+    }
+
+    private void increment(List<String> keys) {
+        try {
+            redis.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    connection.stringCommands().incr(key.getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+            // Shares the cache invalidation channel; TwoLevelCacheManager ignores the unknown cache name
+            redis.convertAndSend(TwoLevelCacheManager.INVALIDATION_CHANNEL,
+                    nodeId + SEPARATOR + KEY_PREFIX + SEPARATOR + String.join(",", keys));
+        } catch (RuntimeException ex) {
+            // Cached searches of these scopes then age out through the cache TTL
+            log.warn("Failed to bump carSearch generations {}: {}", keys, ex.getMessage());
+        } finally {
+            // After the increments, so a lookup racing with them cannot keep the old value
+            local.invalidateAll(keys);
+        }
+    }
+
+    private static List<String> scopes(String branchCode, CarType type) {
+        List<String> keys = new ArrayList<>(4);
+        keys.add(key(branchCode, type));
+        keys.add(key(branchCode, null));
+        keys.add(key(null, type));
+        keys.add(key(null, null));
+        return keys;
+    }
+
+    static String key(String branchCode, CarType type) {
+        return KEY_PREFIX
+                + (branchCode != null ? branchCode : ANY) + ":"
+                + (type != null ? type.name() : ANY);
+    }
+}
@@ -0,0 +1,232 @@
+package com.rental.car.inventory;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Value serializer for the carSearch cache.
+ *
+ * A {@code Page<CarDTO>} is written as a tagged binary record: page request, total and one row
+ * per car. Strings go through a per-value table, so branch names, makes and types that repeat
+ * across a page are stored once. Anything else falls back to JDK serialization, which also keeps
+ * entries written before this format readable until they expire.
+ */
+public class CarSearchPageSerializer implements RedisSerializer<Object> {
+
+    // JDK streams start with 0xACED, so a different first byte tells the formats apart
+    static final byte MAGIC = 0x43;
+    static final byte VERSION = 1;
+
+    private static final int FLAG_ID = 1;
+    private static final int FLAG_AVAILABLE = 1 << 1;
+    private static final int FLAG_DISTANCE = 1 << 2;
+
+    private final JdkSerializationRedisSerializer fallback = new JdkSerializationRedisSerializer();
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value instanceof Page<?> page && isCarPage(page)) {
+            try {
+                return encode(page);
+            } catch (IOException ex) {
+                throw new SerializationException("Cannot encode car search page", ex);
+            }
+        }
+        return fallback.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        try {
+            return decode(bytes);
+        } catch (IOException | RuntimeException ex) {
+            throw new SerializationException("Cannot decode car search page", ex);
+        }
+    }
+
+    private static boolean isCarPage(Page<?> page) {
+        for (Object item : page.getContent()) {
+            if (!(item instanceof CarDTO)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] encode(Page<?> page) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + page.getNumberOfElements() * 48);
+        DataOutputStream out = new DataOutputStream(buffer);
+        StringTable strings = new StringTable();
+
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+
+        Pageable pageable = page.getPageable();
+        out.writeBoolean(pageable.isPaged());
+        if (pageable.isPaged()) {
+            writeVarInt(out, pageable.getPageNumber());
+            writeVarInt(out, pageable.getPageSize());
+        }
+        List<Sort.Order> orders = pageable.getSort().toList();
+        writeVarInt(out, orders.size());
+        for (Sort.Order order : orders) {
+            strings.write(out, order.getProperty());
+            out.writeBoolean(order.isAscending());
+        }
+        writeVarLong(out, page.getTotalElements());
+
+        writeVarInt(out, page.getNumberOfElements());
+        for (Object item : page.getContent()) {
+            CarDTO car = (CarDTO) item;
+            int flags = (car.id() != null ? FLAG_ID : 0)
+                    | (car.available() ? FLAG_AVAILABLE : 0)
+                    | (car.distanceKm() != null ? FLAG_DISTANCE : 0);
+            out.writeByte(flags);
+            if (car.id() != null) {
+                writeVarLong(out, car.id());
+            }
+            strings.write(out, car.type() != null ? car.type().name() : null);
+            strings.write(out, car.licensePlate());
+            strings.write(out, car.make());
+            strings.write(out, car.model());
+            writeVarInt(out, car.year());
+            strings.write(out, car.branchCode());
+            strings.write(out, car.branchName());
+            strings.write(out, car.branchCity());
+            if (car.distanceKm() != null) {
+                out.writeDouble(car.distanceKm());
+            }
+        }
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static Page<CarDTO> decode(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        List<String> strings = new ArrayList<>();
+
+        in.readByte();
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported car search page version " + version);
+        }
+
+        boolean paged = in.readBoolean();
+        int pageNumber = paged ? readVarInt(in) : 0;
+        int pageSize = paged ? readVarInt(in) : 0;
+        int orderCount = readVarInt(in);
+        List<Sort.Order> orders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            String property = readString(in, strings);
+            orders.add(in.readBoolean() ? Sort.Order.asc(property) : Sort.Order.desc(property));
+        }
+        long total = readVarLong(in);
+
+        int count = readVarInt(in);
+        List<CarDTO> content = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int flags = in.readUnsignedByte();
+            Long id = (flags & FLAG_ID) != 0 ? readVarLong(in) : null;
+            String type = readString(in, strings);
+            String licensePlate = readString(in, strings);
+            String make = readString(in, strings);
+            String model = readString(in, strings);
+            int year = readVarInt(in);
+            String branchCode = readString(in, strings);
+            String branchName = readString(in, strings);
+            String branchCity = readString(in, strings);
+            Double distanceKm = (flags & FLAG_DISTANCE) != 0 ? in.readDouble() : null;
+            content.add(new CarDTO(id, type != null ? CarType.valueOf(type) : null, licensePlate, make, model,
+                    year, branchCode, branchName, branchCity, (flags & FLAG_AVAILABLE) != 0, distanceKm));
+        }
+
+        Pageable pageable = paged ? PageRequest.of(pageNumber, pageSize, Sort.by(orders)) : Pageable.unpaged(Sort.by(orders));
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Strings are written as 0 for null, 1 followed by UTF for a first occurrence,
+     * or n + 2 to repeat the n-th string already written in this value.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> seen = new HashMap<>();
+
+        void write(DataOutputStream out, String value) throws IOException {
+            if (value == null) {
+                writeVarInt(out, 0);
+                return;
+            }
+            Integer index = seen.get(value);
+            if (index != null) {
+                writeVarInt(out, index + 2);
+                return;
+            }
+            seen.put(value, seen.size());
+            writeVarInt(out, 1);
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in, List<String> strings) throws IOException {
+        int tag = readVarInt(in);
+        if (tag == 0) {
+            return null;
+        }
+        if (tag == 1) {
+            String value = in.readUTF();
+            strings.add(value);
+            return value;
+        }
+        return strings.get(tag - 2);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
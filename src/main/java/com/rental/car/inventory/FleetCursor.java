@@ -0,0 +1,43 @@
+package com.rental.car.inventory;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Position of the last car returned by a keyset fleet search: its distance from the search
+ * point (null when the search has none) and its id as a tie-breaker.
+ *
+ * Clients see it only as an opaque URL-safe token. The distance is kept bit-exact so the next
+ * page compares against the same value the database produced.
+ */
+record FleetCursor(Double distanceKm, long id) {
+
+    private static final byte VERSION = 1;
+
+    String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(distanceKm != null ? 18 : 10);
+        buffer.put(VERSION);
+        buffer.put((byte) (distanceKm != null ? 1 : 0));
+        if (distanceKm != null) {
+            buffer.putDouble(distanceKm);
+        }
+        buffer.putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    static FleetCursor decode(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+        boolean hasDistance = bytes.length > 1 && bytes[1] != 0;
+        if (bytes.length != (hasDistance ? 18 : 10) || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+        Double distanceKm = hasDistance ? buffer.getDouble() : null;
+        return new FleetCursor(distanceKm, buffer.getLong());
+    }
+}
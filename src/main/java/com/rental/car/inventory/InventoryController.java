@@ -56,6 +56,36 @@ class InventorySearchController {
         return service.searchWithFilters(address, branch, type, make, year, pickupDate, returnDate, pageable);
     }
 
+    @Operation(summary = "Search available cars with a cursor", description = "Keyset variant of the car search, selected by the cursor parameter. Results are ordered by distance (address searches) and then by id; pass an empty cursor for the first page and nextCursor for the following ones. The total count is only computed when includeTotal is set.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved cars"),
+        @ApiResponse(responseCode = "400", description = "Invalid parameters or cursor")
+    })
+    @GetMapping(value = "/cars", params = "cursor")
+    public CarScrollResponse scrollFleet(
+            @Parameter(description = "Address to search near (e.g., 'Los Angeles, CA')") @RequestParam(required = false) String address,
+            @Parameter(description = "Branch code (e.g., 'LAX')") @RequestParam(required = false) String branch,
+            @Parameter(description = "Car type filter") @RequestParam(required = false) CarType type,
+            @Parameter(description = "Car make filter (e.g., 'Toyota')") @RequestParam(required = false) String make,
+            @Parameter(description = "Car year filter") @RequestParam(required = false) Integer year,
+            @Parameter(description = "Pickup date (yyyy-MM-dd) - for date-aware availability") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate pickupDate,
+            @Parameter(description = "Return date (yyyy-MM-dd) - for date-aware availability") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate returnDate,
+            @Parameter(description = "Continuation token from the previous page; empty for the first page") @RequestParam String cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Also count all matching cars") @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        if (pickupDate != null && returnDate != null && !returnDate.isAfter(pickupDate)) {
+            throw new IllegalArgumentException("Return date must be after pickup date");
+        }
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_SCROLL_SIZE);
+        }
+
+        return service.scrollWithFilters(address, branch, type, make, year, pickupDate, returnDate, cursor, size, includeTotal);
+    }
+
+    private static final int MAX_SCROLL_SIZE = 100;
+
     @Operation(summary = "Get car by ID", description = "Retrieve detailed information about a specific car")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Car found"),
@@ -105,7 +135,7 @@ class InventorySearchController {
     }
 
     @Operation(summary = "Get available filters for branch", 
-               description = "Get available car types, makes, or years at a specific branch. Use hierarchical filtering: types → makes (with type) → years (with type and make)")
+               description = "Get available car types, makes, or years at a specific branch. Use hierarchical filtering: types → makes (with type) → years (with type and make). Without a filter (or with 'all'), returns the full type → make → year tree with available car counts.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Successfully retrieved filters"),
         @ApiResponse(responseCode = "400", description = "Invalid filter parameter")
@@ -113,15 +143,16 @@ class InventorySearchController {
     @GetMapping("/branches/{code}/filters")
     public ResponseEntity<?> getBranchFilters(
             @Parameter(description = "Branch code", required = true, example = "LAX") @PathVariable String code,
-            @Parameter(description = "Filter type: 'types', 'makes', or 'years'", required = true, example = "types") @RequestParam String filter,
+            @Parameter(description = "Filter type: 'types', 'makes', 'years' or 'all'", example = "types") @RequestParam(defaultValue = "all") String filter,
             @Parameter(description = "Car type (for makes/years filters)") @RequestParam(required = false) CarType type,
             @Parameter(description = "Car make (for years filter)") @RequestParam(required = false) String make
     ) {
         return switch (filter.toLowerCase()) {
+            case "all" -> ResponseEntity.ok(service.getBranchFacets(code));
             case "types" -> ResponseEntity.ok(service.getAvailableTypesAtBranch(code));
             case "makes" -> ResponseEntity.ok(service.getAvailableMakesAtBranch(code, type));
             case "years" -> ResponseEntity.ok(service.getAvailableYearsAtBranch(code, type, make));
-            default -> ResponseEntity.badRequest().body("Invalid filter. Use: types, makes, or years");
+            default -> ResponseEntity.badRequest().body("Invalid filter. Use: types, makes, years, or all");
         };
     }
 }
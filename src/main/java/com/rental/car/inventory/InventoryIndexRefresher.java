@@ -0,0 +1,35 @@
+package com.rental.car.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the branch geo index and branch facet counts once the application is ready (after
+ * Flyway seeding) and reloads them periodically to pick up changes made on other nodes.
+ */
+@Component
+class InventoryIndexRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryIndexRefresher.class);
+
+    private final InventoryService inventoryService;
+
+    InventoryIndexRefresher(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+        fixedDelayString = "${inventory.branch-index.refresh-interval:PT5M}",
+        initialDelayString = "${inventory.branch-index.refresh-interval:PT5M}"
+    )
+    public void refresh() {
+        inventoryService.refreshBranchIndex();
+        inventoryService.refreshBranchFacets();
+        log.debug("Branch geo index and facet counts rebuilt");
+    }
+}
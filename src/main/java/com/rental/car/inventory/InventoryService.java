@@ -1,10 +1,12 @@
 package com.rental.car.inventory;
 
 import com.rental.car.exceptions.DuplicateResourceException;
+import com.rental.car.exceptions.ExternalServiceException;
+import com.rental.car.common.GeocodingResult;
 import com.rental.car.common.GeocodingService;
+import com.rental.car.common.TransactionHooks;
 import com.rental.car.exceptions.ResourceNotFoundException;
 
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -12,7 +14,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 public class InventoryService {
@@ -20,14 +30,28 @@ public class InventoryService {
     private final CarRepository carRepo;
     private final BranchRepository branchRepo;
     private final GeocodingService geoService;
+    private final CarAvailabilityIndex availabilityIndex;
+    private final CarSearchGenerations searchGenerations;
+    private final BranchGeoIndex branchGeoIndex;
+    private final BranchFacetIndex facetIndex;
 
-    public InventoryService(CarRepository carRepo, BranchRepository branchRepo, GeocodingService geoService) {
+    public InventoryService(CarRepository carRepo, BranchRepository branchRepo, GeocodingService geoService,
+                            CarAvailabilityIndex availabilityIndex, CarSearchGenerations searchGenerations,
+                            BranchGeoIndex branchGeoIndex, BranchFacetIndex facetIndex) {
         this.carRepo = carRepo;
         this.branchRepo = branchRepo;
         this.geoService = geoService;
+        this.availabilityIndex = availabilityIndex;
+        this.searchGenerations = searchGenerations;
+        this.branchGeoIndex = branchGeoIndex;
+        this.facetIndex = facetIndex;
     }
 
-    @Cacheable(value = "carSearch", key = "#address + '-' + #branchCode + '-' + #type + '-' + #make + '-' + #year + '-' + #pickupDate + '-' + #returnDate + '-' + #pageable.pageNumber + '-' + #pageable.pageSize")
+    // The trailing generation scopes the entry: mutations bump the generation of the
+    // (branch, type) they touch instead of clearing the whole cache. Date searches are answered
+    // from the availability index and not cached: a node that has yet to apply a booking made
+    // elsewhere would otherwise store a stale page under the generation that booking bumped.
+    @Cacheable(value = "carSearch", condition = "#pickupDate == null || #returnDate == null", key = "#address + '-' + #branchCode + '-' + #type + '-' + #make + '-' + #year + '-' + #pickupDate + '-' + #returnDate + '-' + #pageable.pageNumber + '-' + #pageable.pageSize + '-g' + @carSearchGenerations.current(#branchCode, #type)")
     @Transactional(readOnly = true)
     public Page<CarDTO> searchWithFilters(
             String address,
@@ -39,62 +63,184 @@ public class InventoryService {
             LocalDate returnDate,
             Pageable pageable
     ) {
-        final Double searchLat;
-        final Double searchLon;
-        final Double searchRadius;
-        
-        if (address != null && !address.isBlank() && branchCode == null) {
-            double[] coords = geoService.getCoordinates(address);
-            if (coords[0] != 0.0 && coords[1] != 0.0) {
-                searchLat = coords[0];
-                searchLon = coords[1];
-                searchRadius = MAX_DISTANCE_KM;
-            } else {
-                searchLat = null;
-                searchLon = null;
-                searchRadius = null;
-            }
-        } else {
-            searchLat = null;
-            searchLon = null;
-            searchRadius = null;
-        }
+        SearchPoint point = resolveSearchPoint(address, branchCode);
+        DateFilter dates = resolveDateFilter(pickupDate, returnDate);
 
         return carRepo.searchFleetUnified(
-                searchLat, searchLon, searchRadius,
+                point.branchIds(), point.branchDistances(),
                 branchCode, 
                 type != null ? type.name() : null,
-                make, year, pickupDate, returnDate, pageable
-        ).map(result -> new CarDTO(
-            result.getId(),
-            CarType.valueOf(result.getType()),
-            result.getLicensePlate(),
-            result.getMake(),
-            result.getModel(),
-            result.getYear(),
-            result.getBranchCode(),
-            result.getBranchName(),
-            result.getBranchCity(),
-            result.getAvailable(),
-            result.getDistanceKm()
-        ));
+                make, year, dates.pickupDate(), dates.returnDate(), dates.excludedCarIds(), pageable
+        ).map(CarDTO::from);
+    }
+
+    /**
+     * Keyset fleet search: same filters as {@link #searchWithFilters}, ordered by (distance, id)
+     * and continued from an opaque cursor instead of an offset. The total is only counted when
+     * asked for, since it costs a query of its own.
+     */
+    @Transactional(readOnly = true)
+    public CarScrollResponse scrollWithFilters(
+            String address,
+            String branchCode,
+            CarType type,
+            String make,
+            Integer year,
+            LocalDate pickupDate,
+            LocalDate returnDate,
+            String cursor,
+            int size,
+            boolean includeTotal
+    ) {
+        FleetCursor after = cursor != null && !cursor.isBlank() ? FleetCursor.decode(cursor) : null;
+        SearchPoint point = resolveSearchPoint(address, branchCode);
+        DateFilter dates = resolveDateFilter(pickupDate, returnDate);
+        String typeName = type != null ? type.name() : null;
+
+        List<CarWithDistance> rows = carRepo.scrollFleetUnified(
+                point.branchIds(), point.branchDistances(),
+                branchCode, typeName, make, year,
+                dates.pickupDate(), dates.returnDate(), dates.excludedCarIds(),
+                after != null ? after.distanceKm() : null,
+                after != null ? after.id() : null,
+                size + 1
+        );
+
+        boolean hasNext = rows.size() > size;
+        List<CarDTO> content = rows.stream().limit(size).map(CarDTO::from).toList();
+        String nextCursor = null;
+        if (hasNext) {
+            CarDTO last = content.get(content.size() - 1);
+            nextCursor = new FleetCursor(last.distanceKm(), last.id()).encode();
+        }
+        Long total = includeTotal
+                ? carRepo.countFleetUnified(point.branchIds(), point.branchDistances(),
+                        branchCode, typeName, make, year,
+                        dates.pickupDate(), dates.returnDate(), dates.excludedCarIds())
+                : null;
+        return new CarScrollResponse(content, nextCursor, hasNext, total);
+    }
+
+    // Address searches resolve nearby branches and their distances in memory, so the
+    // query only filters cars by branch id
+    private SearchPoint resolveSearchPoint(String address, String branchCode) {
+        // Misses and geocoder failures fall back to a search without distances
+        if (address != null && !address.isBlank() && branchCode == null
+                && geoService.geocode(address) instanceof GeocodingResult.Hit hit) {
+            List<BranchGeoIndex.BranchDistance> nearby =
+                    branchIndex().findWithin(hit.latitude(), hit.longitude(), MAX_DISTANCE_KM);
+            return new SearchPoint(
+                    nearby.stream().map(n -> String.valueOf(n.branch().id()))
+                            .collect(Collectors.joining(",", "{", "}")),
+                    nearby.stream().map(n -> String.valueOf(n.distanceKm()))
+                            .collect(Collectors.joining(",", "{", "}"))
+            );
+        }
+        return new SearchPoint(null, null);
+    }
+
+    // Unknown addresses keep the {0, 0} placeholder; a geocoder failure fails the write instead
+    // of storing the placeholder for an address that may well exist
+    private double[] branchCoordinates(String query) {
+        GeocodingResult result = geoService.geocode(query);
+        if (result instanceof GeocodingResult.Hit hit) {
+            return new double[]{hit.latitude(), hit.longitude()};
+        }
+        if (result instanceof GeocodingResult.Failure failure) {
+            throw new ExternalServiceException("Could not geocode branch address '" + query + "': " + failure.reason());
+        }
+        return new double[]{0.0, 0.0};
+    }
+
+    // Resolve date availability in memory when the index covers the range;
+    // otherwise leave the dates to the reservation subquery.
+    private DateFilter resolveDateFilter(LocalDate pickupDate, LocalDate returnDate) {
+        if (pickupDate != null && returnDate != null) {
+            Optional<Set<Long>> bookedCarIds = availabilityIndex.findBookedCarIds(pickupDate, returnDate);
+            if (bookedCarIds.isPresent()) {
+                return new DateFilter(null, null, toArrayLiteral(bookedCarIds.get()));
+            }
+        }
+        return new DateFilter(pickupDate, returnDate, null);
+    }
+
+    private record SearchPoint(String branchIds, String branchDistances) {
+    }
+
+    private record DateFilter(LocalDate pickupDate, LocalDate returnDate, String excludedCarIds) {
     }
 
     private static final double MAX_DISTANCE_KM = 100.0;
 
+    private static String toArrayLiteral(Set<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+    }
+
+    /**
+     * Record a booking in the availability index once the current transaction commits.
+     */
+    public void markCarBooked(CarBooking booking) {
+        TransactionHooks.afterCommit(() -> availabilityIndex.markBooked(booking));
+    }
+
+    /**
+     * Release a booking from the availability index once the current transaction commits.
+     */
+    public void markCarReleased(CarBooking booking) {
+        TransactionHooks.afterCommit(() -> availabilityIndex.markReleased(booking));
+    }
+
+    /**
+     * Replace the availability index with the active bookings returned by the loader, starting the
+     * horizon at horizonStart. Bookings and releases recorded while the loader runs are kept.
+     */
+    public void rebuildAvailabilityIndex(LocalDate horizonStart, Supplier<? extends Collection<CarBooking>> loader) {
+        availabilityIndex.rebuild(horizonStart, loader);
+    }
+
+    /**
+     * Reload the branch geo index from the database.
+     */
+    @Transactional(readOnly = true)
+    public void refreshBranchIndex() {
+        branchGeoIndex.rebuild(branchRepo.findAllWithAddress().stream().map(BranchLocation::from).toList());
+    }
+
+    private BranchGeoIndex branchIndex() {
+        if (!branchGeoIndex.isLoaded()) {
+            refreshBranchIndex();
+        }
+        return branchGeoIndex;
+    }
+
+    /**
+     * Nearest branches to a point, served from the branch geo index; see {@link BranchGeoIndex#findNearest}.
+     */
     @Transactional(readOnly = true)
     public List<BranchWithDistance> findNearestBranches(double userLat, double userLon, int limit) {
-        return branchRepo.findNearestBranches(userLat, userLon, limit);
+        return branchIndex().findNearest(userLat, userLon, limit).stream()
+                .<BranchWithDistance>map(NearestBranch::from)
+                .toList();
     }
 
+    /**
+     * Whether a branch with this code exists. Answered from the branch geo index when it knows the
+     * code; codes it does not know (created on another instance since the last refresh) are
+     * checked in the database.
+     */
     @Transactional(readOnly = true)
     public boolean isValidBranch(String branchCode) {
-        return branchRepo.existsByCode(branchCode);
+        return branchIndex().find(branchCode).isPresent() || branchRepo.existsByCode(branchCode);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Whether the branch is an airport location, served from the branch geo index. Branches the
+     * index does not know yet, such as ones just created on another node, are looked up.
+     */
     public boolean isAirportBranch(String branchCode) {
-        return branchRepo.isAirportBranch(branchCode).orElse(false);
+        return branchIndex().find(branchCode).map(BranchLocation::airport)
+                .or(() -> branchRepo.isAirportBranch(branchCode))
+                .orElse(false);
     }
 
     @Transactional(readOnly = true)
@@ -107,40 +253,94 @@ public class InventoryService {
         return branchRepo.findByCode(code);
     }
 
+    /**
+     * The car with its branch and branch address, loaded in one query.
+     */
     @Transactional(readOnly = true)
     public java.util.Optional<CarDTO> getCarById(Long id) {
-        return carRepo.findById(id)
-                .map(car -> new CarDTO(
-                        car.getId(),
-                        car.getType(),
-                        car.getLicensePlate(),
-                        car.getMake(),
-                        car.getModel(),
-                        car.getYear(),
-                        car.getCurrentBranch().getCode(),
-                        car.getCurrentBranch().getName(),
-                        car.getCurrentBranch().getAddress().getCity(),
-                        car.isAvailable(),
-                        null
-                ));
+        return carRepo.findWithBranchById(id).map(CarDTO::from);
     }
 
+    /**
+     * Cars with the given ids in one query; ids that do not exist are skipped.
+     */
     @Transactional(readOnly = true)
+    public List<CarDTO> getCarsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return carRepo.findAllWithBranchByIdIn(ids).stream().map(CarDTO::from).toList();
+    }
+
     public List<CarType> getAvailableTypesAtBranch(String branchCode) {
-        return carRepo.findAvailableTypes(branchCode);
+        return facets().types(branchCode);
     }
     
-    @Transactional(readOnly = true)
     public List<String> getAvailableMakesAtBranch(String branchCode, CarType type) {
-        return carRepo.findAvailableMakes(branchCode, type);
+        return facets().makes(branchCode, type);
     }
     
-    @Transactional(readOnly = true)
     public List<Integer> getAvailableYearsAtBranch(String branchCode, CarType type, String make) {
-        return carRepo.findAvailableYears(branchCode, type, make);
+        return facets().years(branchCode, type, make);
+    }
+
+    /**
+     * Full type → make → year breakdown of available cars at the branch, with counts.
+     */
+    public BranchFacets getBranchFacets(String branchCode) {
+        return facets().facets(branchCode);
+    }
+
+    /**
+     * Reload the branch facet counts from the database.
+     */
+    @Transactional(readOnly = true)
+    public void refreshBranchFacets() {
+        facetIndex.rebuild(carRepo.countAvailableByFacet());
+    }
+
+    private BranchFacetIndex facets() {
+        if (!facetIndex.isLoaded()) {
+            refreshBranchFacets();
+        }
+        return facetIndex;
+    }
+
+    private void trackFacetChange(CarFacet before, CarFacet after) {
+        TransactionHooks.afterCommit(() -> facetIndex.apply(before, after));
+    }
+
+    /**
+     * Invalidate cached searches that could include the given car, once the current transaction commits.
+     */
+    @Transactional(readOnly = true)
+    public void invalidateSearchesForCar(Long carId) {
+        carRepo.findById(carId).ifPresent(this::invalidateSearchesFor);
+    }
+
+    /**
+     * {@link #invalidateSearchesForCar} for many cars: one query, one bump per branch and car type.
+     */
+    @Transactional(readOnly = true)
+    public void invalidateSearchesForCars(Collection<Long> carIds) {
+        if (carIds.isEmpty()) {
+            return;
+        }
+        Map<String, Set<CarType>> stale = new HashMap<>();
+        for (Car car : carRepo.findAllWithBranchByIdIn(carIds)) {
+            stale.computeIfAbsent(car.getCurrentBranch().getCode(), code -> EnumSet.noneOf(CarType.class))
+                    .add(car.getType());
+        }
+        TransactionHooks.afterCommit(() -> stale.forEach((branchCode, types) ->
+                types.forEach(type -> searchGenerations.bump(branchCode, type))));
+    }
+
+    private void invalidateSearchesFor(Car car) {
+        String branchCode = car.getCurrentBranch().getCode();
+        CarType type = car.getType();
+        TransactionHooks.afterCommit(() -> searchGenerations.bump(branchCode, type));
     }
 
-    @CacheEvict(value = "carSearch", allEntries = true)
     @Transactional
     public void updateCarAvailability(Long carId, boolean available) {
         Car car = carRepo.findById(carId)
@@ -150,11 +350,13 @@ public class InventoryService {
             return;  
         }
         
+        CarFacet before = CarFacet.ofAvailable(car);
         car.setAvailable(available);
         carRepo.save(car);
+        invalidateSearchesFor(car);
+        trackFacetChange(before, CarFacet.ofAvailable(car));
     }
 
-    @CacheEvict(value = "carSearch", allEntries = true)
     @Transactional
     public void moveCarToBranch(Long carId, String branchCode) {
         Car car = carRepo.findById(carId)
@@ -166,12 +368,15 @@ public class InventoryService {
             return;
         }
         
+        invalidateSearchesFor(car);
+        CarFacet before = CarFacet.ofAvailable(car);
         car.setCurrentBranch(targetBranch);
         carRepo.save(car);  // @Version will detect if car was modified concurrently
+        invalidateSearchesFor(car);
+        trackFacetChange(before, CarFacet.ofAvailable(car));
     }
 
 
-    @CacheEvict(value = "carSearch", allEntries = true)
     @Transactional
     public Car createCar(CarType type, String plate, String make, String model, int year, String branchCode, boolean available) {
         if (carRepo.existsByLicensePlate(plate)) {
@@ -181,10 +386,12 @@ public class InventoryService {
                 .orElseThrow(() -> ResourceNotFoundException.branch(branchCode));
         
         Car car = new Car(null, type, plate, make, model, year, branch, available, null);  // version managed by JPA
-        return carRepo.save(car);
+        Car saved = carRepo.save(car);
+        invalidateSearchesFor(saved);
+        trackFacetChange(null, CarFacet.ofAvailable(saved));
+        return saved;
     }
 
-    @CacheEvict(value = "carSearch", allEntries = true)
     @Transactional
     public Car updateCar(Long carId, CarType type, String plate, String make, String model, int year, String branchCode, Boolean available) {
         Car car = carRepo.findById(carId)
@@ -197,6 +404,8 @@ public class InventoryService {
         Branch branch = branchRepo.findByCode(branchCode)
                 .orElseThrow(() -> ResourceNotFoundException.branch(branchCode));
         
+        invalidateSearchesFor(car);
+        CarFacet before = CarFacet.ofAvailable(car);
         car.setType(type);
         car.setLicensePlate(plate);
         car.setMake(make);
@@ -207,16 +416,19 @@ public class InventoryService {
             car.setAvailable(available);
         }
         
-        return carRepo.save(car);
+        Car saved = carRepo.save(car);
+        invalidateSearchesFor(saved);
+        trackFacetChange(before, CarFacet.ofAvailable(saved));
+        return saved;
     }
 
-    @CacheEvict(value = "carSearch", allEntries = true)
     @Transactional
     public void deleteCar(Long carId) {
-        if (!carRepo.existsById(carId)) {
-            throw ResourceNotFoundException.car(carId);
-        }
+        Car car = carRepo.findById(carId)
+                .orElseThrow(() -> ResourceNotFoundException.car(carId));
         carRepo.deleteById(carId);
+        invalidateSearchesFor(car);
+        trackFacetChange(CarFacet.ofAvailable(car), null);
     }
 
     @Transactional
@@ -228,12 +440,15 @@ public class InventoryService {
         }
         
         String query = street1 + ", " + city + ", " + state + ", " + country;
-        double[] coords = geoService.getCoordinates(query);
+        double[] coords = branchCoordinates(query);
         
         Address address = new Address(null, street1, null, city, state, zipCode, country, coords[0], coords[1]);
         Branch branch = new Branch(null, code, name, phoneNumber, address);
         
-        return branchRepo.save(branch);
+        Branch saved = branchRepo.save(branch);
+        BranchLocation location = BranchLocation.from(saved);
+        TransactionHooks.afterCommit(() -> branchGeoIndex.upsert(location));
+        return saved;
     }
 
     @Transactional
@@ -254,7 +469,7 @@ public class InventoryService {
         
         if (addressChanged) {
             String query = street1 + ", " + city + ", " + state + ", " + country;
-            double[] coords = geoService.getCoordinates(query);
+            double[] coords = branchCoordinates(query);
             address.setLatitude(coords[0]);
             address.setLongitude(coords[1]);
         }
@@ -265,7 +480,14 @@ public class InventoryService {
         address.setCountry(country);
         address.setZipCode(zipCode);
         
-        return branchRepo.save(branch);
+        Branch saved = branchRepo.save(branch);
+        BranchLocation location = BranchLocation.from(saved);
+        // Branch name, city and coordinates are part of every cached result at this branch
+        TransactionHooks.afterCommit(() -> {
+            branchGeoIndex.upsert(location);
+            searchGenerations.bumpBranch(code);
+        });
+        return saved;
     }
 
     @Transactional
@@ -273,6 +495,7 @@ public class InventoryService {
         Branch branch = branchRepo.findByCode(code)
                 .orElseThrow(() -> ResourceNotFoundException.branch(code));
         branchRepo.delete(branch);
+        TransactionHooks.afterCommit(() -> branchGeoIndex.remove(code));
     }
 
 }
@@ -0,0 +1,79 @@
+package com.rental.car.inventory;
+
+/**
+ * {@link BranchWithDistance} served from the branch geo index.
+ */
+final class NearestBranch implements BranchWithDistance {
+
+    private final BranchLocation branch;
+    private final double distanceKm;
+
+    NearestBranch(BranchLocation branch, double distanceKm) {
+        this.branch = branch;
+        this.distanceKm = distanceKm;
+    }
+
+    static NearestBranch from(BranchGeoIndex.BranchDistance match) {
+        return new NearestBranch(match.branch(), match.distanceKm());
+    }
+
+    @Override
+    public Long getId() {
+        return branch.id();
+    }
+
+    @Override
+    public String getCode() {
+        return branch.code();
+    }
+
+    @Override
+    public String getName() {
+        return branch.name();
+    }
+
+    @Override
+    public String getPhoneNumber() {
+        return branch.phoneNumber();
+    }
+
+    @Override
+    public String getStreet1() {
+        return branch.street1();
+    }
+
+    @Override
+    public String getCity() {
+        return branch.city();
+    }
+
+    @Override
+    public String getState() {
+        return branch.state();
+    }
+
+    @Override
+    public String getCountry() {
+        return branch.country();
+    }
+
+    @Override
+    public String getZipCode() {
+        return branch.zipCode();
+    }
+
+    @Override
+    public Double getLatitude() {
+        return branch.latitude();
+    }
+
+    @Override
+    public Double getLongitude() {
+        return branch.longitude();
+    }
+
+    @Override
+    public Double getDistanceKm() {
+        return distanceKm;
+    }
+}
@@ -0,0 +1,50 @@
+package com.rental.car.reservation;
+
+import com.rental.car.inventory.CarBooking;
+import com.rental.car.inventory.InventoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Loads active reservations into the inventory availability index once the application
+ * is ready (after Flyway seeding) and reloads it periodically to absorb changes whose announcement
+ * did not reach this node.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.availability-index.enabled", havingValue = "true", matchIfMissing = true)
+class AvailabilityIndexRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityIndexRefresher.class);
+
+    private final ReservationRepository reservationRepo;
+    private final InventoryService inventoryService;
+
+    AvailabilityIndexRefresher(ReservationRepository reservationRepo, InventoryService inventoryService) {
+        this.reservationRepo = reservationRepo;
+        this.inventoryService = inventoryService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+        fixedDelayString = "${inventory.availability-index.refresh-interval:PT3M}",
+        initialDelayString = "${inventory.availability-index.refresh-interval:PT3M}"
+    )
+    @Transactional(readOnly = true)
+    public void refresh() {
+        LocalDate today = LocalDate.now();
+        inventoryService.rebuildAvailabilityIndex(today, () -> {
+            List<CarBooking> bookings = reservationRepo.findActiveBookingsEndingAfter(today);
+            log.debug("Rebuilding availability index with {} active bookings", bookings.size());
+            return bookings;
+        });
+    }
+}
@@ -0,0 +1,38 @@
+package com.rental.car.reservation;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Schema(description = "Request to price several cars for the same dates")
+public record BatchPriceRequest(
+    @Schema(description = "Car IDs to price", example = "[10, 11, 12]", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotEmpty(message = "At least one car ID is required")
+    @Size(max = 100, message = "At most 100 cars can be priced at once")
+    List<@NotNull Long> carIds,
+
+    @Schema(description = "Pickup date", example = "2026-01-15", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "Pickup date is required")
+    LocalDate pickupDate,
+
+    @Schema(description = "Return date (must be after pickup)", example = "2026-01-20", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "Return date is required")
+    LocalDate returnDate,
+
+    @Schema(description = "Pickup branch code (optional, defaults to each car's current location)", example = "BOS_LOGAN")
+    String pickupBranchCode,
+
+    @Schema(description = "Return branch code (optional, defaults to the pickup branch)", example = "WOR_DTN")
+    String returnBranchCode
+) {
+
+    public BatchPriceRequest {
+        if (returnDate != null && pickupDate != null && !returnDate.isAfter(pickupDate)) {
+            throw new IllegalArgumentException("Return date must be after pickup date");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.rental.car.reservation;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Price quotes for several cars")
+public record BatchPriceResponse(
+    @Schema(description = "One quote per priced car, in request order")
+    List<CarPrice> prices,
+
+    @Schema(description = "Requested car IDs that do not exist")
+    List<Long> notFound
+) {
+
+    @Schema(description = "Price quote for one car")
+    public record CarPrice(
+        @Schema(description = "Car ID", example = "10")
+        Long carId,
+
+        @Schema(description = "Pickup branch used for the quote", example = "BOS_LOGAN")
+        String pickupBranchCode,
+
+        @Schema(description = "Return branch used for the quote", example = "BOS_LOGAN")
+        String returnBranchCode,
+
+        @Schema(description = "Price breakdown, including availability for the dates")
+        PriceCalculationResponse price
+    ) {
+    }
+}
@@ -0,0 +1,143 @@
+package com.rental.car.reservation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel of reservation ids by deadline, in ticks of {@code tickMillis}.
+ *
+ * Four levels of 64 slots each: level 0 holds deadlines in the current run of 64 ticks, level 1
+ * those in the current run of 64 * 64 ticks, and so on; deadlines past the top level wait in an
+ * overflow slot. When time crosses into a new run, the matching slot of the level above is
+ * cascaded down, so each id moves at most once per level and scheduling, cancelling and
+ * advancing one tick are all constant time. With one-second ticks the levels reach about 194 days.
+ *
+ * Deadlines are rounded up to a whole tick, so ids never come due early. Thread safe.
+ */
+final class ExpiryWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final int OVERFLOW = LEVELS * SLOTS;
+    private static final int DUE = OVERFLOW + 1;
+
+    // Compared by identity, so cancelling removes exactly this schedule from its slot
+    private static final class Deadline {
+        final long id;
+        final long tick;
+        int slot;
+
+        Deadline(long id, long tick) {
+            this.id = id;
+            this.tick = tick;
+        }
+    }
+
+    private final long tickMillis;
+    private final List<Set<Deadline>> slots = new ArrayList<>(DUE + 1);
+    private final Map<Long, Deadline> deadlines = new HashMap<>();
+    private long currentTick;
+
+    ExpiryWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(nowMillis, tickMillis);
+        for (int i = 0; i <= DUE; i++) {
+            slots.add(new LinkedHashSet<>());
+        }
+    }
+
+    /**
+     * Schedule the id to come due at the deadline, replacing any earlier schedule for it. Ids
+     * whose deadline has already passed come due on the next {@link #advance}.
+     */
+    synchronized void schedule(long id, long deadlineMillis) {
+        cancel(id);
+        Deadline deadline = new Deadline(id, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        deadlines.put(id, deadline);
+        place(deadline);
+    }
+
+    synchronized void cancel(long id) {
+        Deadline deadline = deadlines.remove(id);
+        if (deadline != null) {
+            slots.get(deadline.slot).remove(deadline);
+        }
+    }
+
+    synchronized int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Move the wheel forward to the given time and return the ids that came due, earliest first.
+     */
+    synchronized List<Long> advance(long nowMillis) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        List<Long> expired = new ArrayList<>();
+        drain(DUE, expired);
+        while (currentTick < target) {
+            currentTick++;
+            cascade();
+            // Cascaded deadlines for this very tick land in DUE
+            drain(DUE, expired);
+            drain(index(0, currentTick), expired);
+        }
+        return expired;
+    }
+
+    private void cascade() {
+        if (currentTick % (1L << (SLOT_BITS * LEVELS)) == 0) {
+            replace(OVERFLOW);
+        }
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                replace(index(level, currentTick));
+            }
+        }
+    }
+
+    private void replace(int slot) {
+        List<Deadline> moving = new ArrayList<>(slots.get(slot));
+        slots.get(slot).clear();
+        moving.forEach(this::place);
+    }
+
+    private void place(Deadline deadline) {
+        deadline.slot = slotFor(deadline.tick);
+        slots.get(deadline.slot).add(deadline);
+    }
+
+    private int slotFor(long tick) {
+        if (tick <= currentTick) {
+            return DUE;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int above = SLOT_BITS * (level + 1);
+            if (tick >> above == currentTick >> above) {
+                return index(level, tick);
+            }
+        }
+        return OVERFLOW;
+    }
+
+    private void drain(int slot, List<Long> into) {
+        for (Deadline deadline : slots.get(slot)) {
+            deadlines.remove(deadline.id);
+            into.add(deadline.id);
+        }
+        slots.get(slot).clear();
+    }
+
+    private static int index(int level, long tick) {
+        return level * SLOTS + (int) ((tick >> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+}
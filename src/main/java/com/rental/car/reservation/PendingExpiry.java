@@ -0,0 +1,9 @@
+package com.rental.car.reservation;
+
+import java.time.LocalDateTime;
+
+/**
+ * A PENDING reservation and when its hold expires.
+ */
+record PendingExpiry(Long id, LocalDateTime expiresAt) {
+}
@@ -0,0 +1,18 @@
+package com.rental.car.reservation;
+
+import com.rental.car.inventory.CarType;
+
+import java.time.LocalDate;
+
+/**
+ * Inputs for one price quote.
+ */
+public record PriceQuery(
+    CarType carType,
+    String pickupBranchCode,
+    String returnBranchCode,
+    LocalDate pickupDate,
+    LocalDate returnDate,
+    boolean available
+) {
+}
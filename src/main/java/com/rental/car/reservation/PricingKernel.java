@@ -0,0 +1,192 @@
+package com.rental.car.reservation;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Quote arithmetic in fixed-point minor units.
+ *
+ * Money is held as long cents, percentages as basis points and the weekend multiplier in
+ * hundredths, which is exact for the numeric(…, 2) columns they are loaded from. Every rounding
+ * step is HALF_UP to the cent, in the same order as the original BigDecimal calculation, so
+ * results match it to the cent. BigDecimals are only created when a response is built.
+ */
+final class PricingKernel {
+
+    static final String ONE_WAY_FEE = "ONE_WAY_FEE";
+    static final String AIRPORT_FEE = "AIRPORT_FEE_LOGAN";
+    static final String WEEKLY_DISCOUNT = "WEEKLY_DISCOUNT";
+    static final String MONTHLY_DISCOUNT = "MONTHLY_DISCOUNT";
+    static final String SALES_TAX = "MA_SALES_TAX";
+
+    private static final int DISCOUNT_NONE = 0;
+    private static final int DISCOUNT_WEEKLY = 1;
+    private static final int DISCOUNT_MONTHLY = 2;
+
+    private PricingKernel() {
+    }
+
+    static Quote quote(RateCard card, Rules rules, long pickupDay, long returnDay,
+                       boolean airport, boolean oneWay) {
+        long totalDays = returnDay - pickupDay;
+        long weeks = totalDays / 7;
+        long days = totalDays % 7;
+
+        long timeCharge = card.weeklyCents() * weeks + card.dailyCents() * days;
+        long airportFee = airport ? rules.airportFeeCents() : 0;
+        long oneWayFee = oneWay ? rules.oneWayFeeCents() : 0;
+        long weekendSurcharge = weekendSurcharge(card, pickupDay, returnDay);
+
+        long subtotal = timeCharge + airportFee + oneWayFee + weekendSurcharge;
+
+        // Monthly (30+ days) replaces weekly (7+ days); a discount that rounds to zero is dropped
+        int discountKind = totalDays >= 30 ? DISCOUNT_MONTHLY : totalDays >= 7 ? DISCOUNT_WEEKLY : DISCOUNT_NONE;
+        long discount = switch (discountKind) {
+            case DISCOUNT_MONTHLY -> percentOf(subtotal, rules.monthlyDiscountBp());
+            case DISCOUNT_WEEKLY -> percentOf(subtotal, rules.weeklyDiscountBp());
+            default -> 0;
+        };
+        if (discount <= 0) {
+            discountKind = DISCOUNT_NONE;
+            discount = 0;
+        }
+        subtotal -= discount;
+
+        long tax = roundHalfUp(subtotal * rules.salesTaxBp(), 10_000);
+
+        return new Quote(totalDays, (int) weeks, (int) days, timeCharge, airport, airportFee, oneWay, oneWayFee,
+                weekendSurcharge, discountKind, discount, subtotal, tax, subtotal + tax);
+    }
+
+    private static long percentOf(long amount, int basisPoints) {
+        return basisPoints > 0 ? roundHalfUp(amount * basisPoints, 10_000) : 0;
+    }
+
+    private static long weekendSurcharge(RateCard card, long pickupDay, long returnDay) {
+        if (card.weekendUpliftHundredths() <= 0) {
+            return 0;
+        }
+        long weekendDays = SurchargeCalendar.WEEKENDS.count(pickupDay, returnDay);
+        return roundHalfUp(card.dailyCents() * card.weekendUpliftHundredths() * weekendDays, 100);
+    }
+
+    static long roundHalfUp(long numerator, long divisor) {
+        long half = divisor / 2;
+        return numerator >= 0 ? (numerator + half) / divisor : -((-numerator + half) / divisor);
+    }
+
+    static long toCents(BigDecimal amount) {
+        return toUnits(amount, 2);
+    }
+
+    static int toBasisPoints(BigDecimal percentage) {
+        return (int) toUnits(percentage, 2);
+    }
+
+    private static long toUnits(BigDecimal value, int decimals) {
+        return value.movePointRight(decimals).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal money(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Build the full response, converting to BigDecimal only here.
+     */
+    static PriceCalculationResponse toResponse(Quote quote, RateCard card, boolean available) {
+        BigDecimal dailyRate = money(card.dailyCents());
+        BigDecimal weeklyRate = money(card.weeklyCents());
+
+        List<PriceCalculationResponse.LineItem> additionalCharges = new ArrayList<>(4);
+        if (quote.airport()) {
+            additionalCharges.add(new PriceCalculationResponse.LineItem(
+                    "Airport facility fee", money(quote.airportFeeCents()), "FEE"));
+        }
+        if (quote.oneWay()) {
+            additionalCharges.add(new PriceCalculationResponse.LineItem(
+                    "One-way fee (different return location)", money(quote.oneWayFeeCents()), "FEE"));
+        }
+        if (quote.weekendSurchargeCents() > 0) {
+            additionalCharges.add(new PriceCalculationResponse.LineItem(
+                    "Weekend surcharge", money(quote.weekendSurchargeCents()), "SURCHARGE"));
+        }
+        if (quote.discountKind() == DISCOUNT_MONTHLY) {
+            additionalCharges.add(new PriceCalculationResponse.LineItem(
+                    "Monthly rental discount (30+ days)", money(-quote.discountCents()), "DISCOUNT"));
+        } else if (quote.discountKind() == DISCOUNT_WEEKLY) {
+            additionalCharges.add(new PriceCalculationResponse.LineItem(
+                    "Weekly rental discount (7+ days)", money(-quote.discountCents()), "DISCOUNT"));
+        }
+
+        BigDecimal tax = money(quote.taxCents());
+        return new PriceCalculationResponse(
+                quote.rentalDays(),
+                dailyRate,
+                new PriceCalculationResponse.TimeCharge(quote.weeks(), quote.days(), weeklyRate, dailyRate,
+                        money(quote.timeChargeCents())),
+                additionalCharges,
+                money(quote.subtotalCents()),
+                List.of(new PriceCalculationResponse.LineItem("Sales Tax", tax, "TAX")),
+                tax,
+                money(quote.totalCents()),
+                available,
+                card.currency()
+        );
+    }
+
+    /**
+     * A rate plan in minor units. The uplift is the weekend multiplier minus one, in hundredths,
+     * and zero when weekends are not surcharged.
+     */
+    record RateCard(long dailyCents, long weeklyCents, int weekendUpliftHundredths, String currency) {
+
+        // Fallback rates if no rate plan found
+        static final RateCard DEFAULT = new RateCard(5_000, 28_000, 0, "USD");
+
+        static RateCard from(RatePlan plan) {
+            BigDecimal multiplier = plan.getWeekendMultiplier();
+            int uplift = multiplier != null ? (int) toUnits(multiplier, 2) - 100 : 0;
+            return new RateCard(toCents(plan.getDailyRate()), toCents(plan.getWeeklyRate()),
+                    Math.max(0, uplift), plan.getCurrency());
+        }
+    }
+
+    /**
+     * Active pricing rules resolved to the values a quote needs, with defaults for missing rules.
+     */
+    record Rules(long oneWayFeeCents, long airportFeeCents, int weeklyDiscountBp, int monthlyDiscountBp,
+                 int salesTaxBp) {
+
+        static final Rules DEFAULT = from(Map.of());
+
+        static Rules from(Map<String, PricingRule> byCode) {
+            return new Rules(
+                    fixedCents(byCode.get(ONE_WAY_FEE), 5_000),
+                    fixedCents(byCode.get(AIRPORT_FEE), 2_500),
+                    percentageBp(byCode.get(WEEKLY_DISCOUNT), 0),
+                    percentageBp(byCode.get(MONTHLY_DISCOUNT), 0),
+                    percentageBp(byCode.get(SALES_TAX), 1_000)
+            );
+        }
+
+        private static long fixedCents(PricingRule rule, long fallback) {
+            return rule != null && rule.getFixedAmount() != null ? toCents(rule.getFixedAmount()) : fallback;
+        }
+
+        private static int percentageBp(PricingRule rule, int fallback) {
+            return rule != null && rule.getPercentageValue() != null ? toBasisPoints(rule.getPercentageValue()) : fallback;
+        }
+    }
+
+    /**
+     * A priced quote in cents; the discount kind says which discount line, if any, applies.
+     */
+    record Quote(long rentalDays, int weeks, int days, long timeChargeCents, boolean airport, long airportFeeCents,
+                 boolean oneWay, long oneWayFeeCents, long weekendSurchargeCents, int discountKind,
+                 long discountCents, long subtotalCents, long taxCents, long totalCents) {
+    }
+}
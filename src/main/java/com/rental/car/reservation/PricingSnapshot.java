@@ -0,0 +1,116 @@
+package com.rental.car.reservation;
+
+import com.rental.car.inventory.CarType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of the active pricing rules and rate plans, already converted to the minor
+ * units {@link PricingKernel} works in.
+ *
+ * Rate plans are grouped by (branch, car type) and sorted by effective date, so finding the plan
+ * in effect on a date is a binary search rather than a query. The service swaps whole snapshots;
+ * nothing here changes after construction.
+ */
+final class PricingSnapshot {
+
+    private final PricingKernel.Rules rules;
+    private final Map<PlanKey, PlanTimeline> ratePlans;
+    private final int ruleCount;
+    private final int ratePlanCount;
+
+    PricingSnapshot(Collection<PricingRule> rules, Collection<RatePlan> ratePlans) {
+        Map<String, PricingRule> byCode = new HashMap<>();
+        for (PricingRule rule : rules) {
+            byCode.put(rule.getRuleCode(), rule);
+        }
+        Map<PlanKey, List<RatePlan>> grouped = new HashMap<>();
+        for (RatePlan plan : ratePlans) {
+            grouped.computeIfAbsent(new PlanKey(plan.getBranchCode(), plan.getCarType()), k -> new ArrayList<>()).add(plan);
+        }
+        Map<PlanKey, PlanTimeline> timelines = new HashMap<>();
+        grouped.forEach((key, plans) -> timelines.put(key, new PlanTimeline(plans)));
+
+        this.rules = PricingKernel.Rules.from(byCode);
+        this.ratePlans = Map.copyOf(timelines);
+        this.ruleCount = byCode.size();
+        this.ratePlanCount = ratePlans.size();
+    }
+
+    static PricingSnapshot empty() {
+        return new PricingSnapshot(List.of(), List.of());
+    }
+
+    PricingKernel.Rules rules() {
+        return rules;
+    }
+
+    /**
+     * Rates of the active plan for the branch and car type whose effective range contains the
+     * date, the one with the latest effective-from if several do, or the default rates if none.
+     */
+    PricingKernel.RateCard rateCard(String branchCode, CarType carType, long epochDay) {
+        PlanTimeline timeline = ratePlans.get(new PlanKey(branchCode, carType));
+        PricingKernel.RateCard card = timeline != null ? timeline.at(epochDay) : null;
+        return card != null ? card : PricingKernel.RateCard.DEFAULT;
+    }
+
+    int ruleCount() {
+        return ruleCount;
+    }
+
+    int ratePlanCount() {
+        return ratePlanCount;
+    }
+
+    private record PlanKey(String branchCode, CarType carType) {
+    }
+
+    private static final class PlanTimeline {
+        private final PricingKernel.RateCard[] cards;
+        private final long[] from;
+        private final long[] to;
+
+        PlanTimeline(List<RatePlan> unsorted) {
+            RatePlan[] plans = unsorted.toArray(RatePlan[]::new);
+            Arrays.sort(plans, Comparator.comparing(RatePlan::getEffectiveFrom));
+            cards = new PricingKernel.RateCard[plans.length];
+            from = new long[plans.length];
+            to = new long[plans.length];
+            for (int i = 0; i < plans.length; i++) {
+                cards[i] = PricingKernel.RateCard.from(plans[i]);
+                from[i] = plans[i].getEffectiveFrom().toEpochDay();
+                to[i] = plans[i].getEffectiveTo().toEpochDay();
+            }
+        }
+
+        // Walk back from the last plan starting on or before the day; plans rarely overlap,
+        // so this usually stops at the first candidate
+        PricingKernel.RateCard at(long day) {
+            int lo = 0;
+            int hi = from.length - 1;
+            int last = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (from[mid] <= day) {
+                    last = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            for (int i = last; i >= 0; i--) {
+                if (to[i] >= day) {
+                    return cards[i];
+                }
+            }
+            return null;
+        }
+    }
+}
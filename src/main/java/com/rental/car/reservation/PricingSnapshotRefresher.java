@@ -0,0 +1,35 @@
+package com.rental.car.reservation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the pricing snapshot once the application is ready (after Flyway seeding) and reloads it
+ * periodically, so rule and rate plan edits made directly in the database reach every node.
+ */
+@Component
+class PricingSnapshotRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(PricingSnapshotRefresher.class);
+
+    private final PricingService pricingService;
+
+    PricingSnapshotRefresher(PricingService pricingService) {
+        this.pricingService = pricingService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+        fixedDelayString = "${pricing.snapshot.refresh-interval:PT5M}",
+        initialDelayString = "${pricing.snapshot.refresh-interval:PT5M}"
+    )
+    public void refresh() {
+        PricingSnapshot snapshot = pricingService.reloadPricing();
+        log.debug("Pricing snapshot reloaded with {} rules and {} rate plans",
+                snapshot.ruleCount(), snapshot.ratePlanCount());
+    }
+}
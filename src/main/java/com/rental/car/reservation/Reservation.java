@@ -1,5 +1,6 @@
 package com.rental.car.reservation;
 
+import com.rental.car.inventory.CarBooking;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
@@ -8,12 +9,11 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+// Partial and covering indexes for the status-filtered queries are created by Flyway (V7)
 @Entity
 @Table(name = "reservations", 
     indexes = {
         @Index(name = "idx_car_dates", columnList = "car_id,pickup_date,return_date"),
-        @Index(name = "idx_customer_email", columnList = "customer_email"),
-        @Index(name = "idx_status", columnList = "status"),
         @Index(name = "idx_pickup_branch", columnList = "pickup_branch_code"),
         @Index(name = "idx_return_branch", columnList = "return_branch_code")
     }
@@ -102,6 +102,10 @@ class Reservation {
         return java.time.temporal.ChronoUnit.DAYS.between(pickupDate, returnDate);
     }
 
+    public CarBooking toCarBooking() {
+        return new CarBooking(carId, pickupDate, returnDate);
+    }
+
     public boolean isExpired() {
         return status == ReservationStatus.PENDING 
             && expiresAt != null 
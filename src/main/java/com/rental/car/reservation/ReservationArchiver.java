@@ -0,0 +1,70 @@
+package com.rental.car.reservation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Moves COMPLETED and CANCELLED reservations returned more than {@code reservations.archive.after}
+ * ago out of the live table into reservations_history, which is partitioned by pickup year.
+ *
+ * Each run archives in batches of {@code reservations.archive.batch-size} (see
+ * {@link ReservationRepository#archiveReservations}), each committed on its own, until a short
+ * batch shows nothing is left. Only one node archives at a time; the others find nothing to do.
+ * Archived reservations are still returned by id and in a customer's history.
+ */
+@Service
+class ReservationArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationArchiver.class);
+
+    private final ReservationRepository reservationRepo;
+    private final Duration after;
+    private final int batchSize;
+    private final Counter archived;
+
+    ReservationArchiver(
+            ReservationRepository reservationRepo,
+            MeterRegistry meterRegistry,
+            @Value("${reservations.archive.after:P90D}") Duration after,
+            @Value("${reservations.archive.batch-size:1000}") int batchSize
+    ) {
+        this.reservationRepo = reservationRepo;
+        this.after = after;
+        this.batchSize = batchSize;
+        this.archived = Counter.builder("reservations.archived")
+                .description("Reservations moved to the history table")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(
+        fixedDelayString = "${reservations.archive.interval:PT1H}",
+        initialDelayString = "${reservations.archive.interval:PT1H}"
+    )
+    public void archive() {
+        LocalDate cutoff = LocalDate.now().minusDays(after.toDays());
+        int archivedCount = 0;
+        int moved;
+        do {
+            try {
+                moved = reservationRepo.archiveReservations(cutoff, batchSize);
+            } catch (Exception e) {
+                log.error("Archiving stopped after moving {} reservations", archivedCount, e);
+                return;
+            }
+            archived.increment(moved);
+            archivedCount += moved;
+        } while (moved == batchSize);
+
+        if (archivedCount > 0) {
+            log.info("Archived {} reservations returned before {}", archivedCount, cutoff);
+        }
+    }
+}
@@ -40,6 +40,16 @@ class ReservationController {
         return service.calculatePrice(carId, pickupDate, returnDate, pickupBranchCode, returnBranchCode);
     }
 
+    @Operation(summary = "Calculate prices for several cars", description = "Price up to 100 cars for the same dates in one call, e.g. for a page of search results. Unknown car IDs are listed in notFound.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Prices calculated successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid request data")
+    })
+    @PostMapping("/prices")
+    public BatchPriceResponse calculatePrices(@Valid @RequestBody BatchPriceRequest request) {
+        return service.calculatePrices(request);
+    }
+
     @Operation(summary = "Create reservation", description = "Create a new car reservation")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Reservation created successfully"),
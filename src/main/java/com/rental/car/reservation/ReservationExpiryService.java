@@ -1,66 +1,225 @@
 package com.rental.car.reservation;
 
+import com.rental.car.common.TransactionHooks;
+import com.rental.car.inventory.InventoryService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Scheduled task to automatically expire PENDING reservations that have exceeded their timeout.
- * Runs every 5 minutes to keep inventory available.
+ * Automatically expires PENDING reservations that have exceeded their timeout.
+ *
+ * Reservations created on this node, and all PENDING ones at startup, are scheduled on an
+ * {@link ExpiryWheel} that is advanced every {@code reservations.expiry.wheel-tick} on a thread of
+ * its own, so a hold is released within about a tick of its expiry however long the scheduled
+ * sweeps and rebuilds run. The ids that come due are cancelled with one statement per batch,
+ * which skips rows that were confirmed or cancelled meanwhile.
+ *
+ * A periodic sweep catches whatever the wheel did not: holds created by nodes that went down,
+ * rows that were locked when they came due, and failed batches. Each sweep cancels expired
+ * reservations in batches of {@code reservations.expiry.batch-size} (see
+ * {@link ReservationRepository#cancelExpiredPending}), each batch committed on its own, until a
+ * short batch shows nothing is left. Rows are claimed with SKIP LOCKED, so sweeps and wheels on
+ * several nodes split the work instead of blocking each other.
+ *
+ * Batch sizes are recorded in {@code reservations.expiry.batch.size}, and how long each
+ * reservation stayed PENDING past its expiry in {@code reservations.expiry.lag}, both tagged
+ * with the trigger ({@code wheel} or {@code sweep}).
  */
 @Service
 class ReservationExpiryService {
 
     private static final Logger log = LoggerFactory.getLogger(ReservationExpiryService.class);
 
+    /**
+     * What cancelled a batch of expired reservations, tagged on the expiry metrics.
+     */
+    enum Trigger {
+        WHEEL, SWEEP;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
     private final ReservationRepository reservationRepo;
+    private final InventoryService inventoryService;
+    private final int batchSize;
+    private final Duration wheelTick;
+    private final ExpiryWheel wheel;
+    private ScheduledExecutorService ticker;
+    private final Map<Trigger, DistributionSummary> batchSizes = new EnumMap<>(Trigger.class);
+    private final Map<Trigger, Timer> lags = new EnumMap<>(Trigger.class);
 
-    ReservationExpiryService(ReservationRepository reservationRepo) {
+    ReservationExpiryService(
+            ReservationRepository reservationRepo,
+            InventoryService inventoryService,
+            MeterRegistry meterRegistry,
+            @Value("${reservations.expiry.batch-size:500}") int batchSize,
+            @Value("${reservations.expiry.wheel-tick:PT1S}") Duration wheelTick
+    ) {
         this.reservationRepo = reservationRepo;
+        this.inventoryService = inventoryService;
+        this.batchSize = batchSize;
+        this.wheelTick = wheelTick;
+        this.wheel = new ExpiryWheel(wheelTick.toMillis(), System.currentTimeMillis());
+        for (Trigger trigger : Trigger.values()) {
+            batchSizes.put(trigger, DistributionSummary.builder("reservations.expiry.batch.size")
+                    .description("Expired reservations cancelled per batch")
+                    .tag("trigger", trigger.tag())
+                    .register(meterRegistry));
+            lags.put(trigger, Timer.builder("reservations.expiry.lag")
+                    .description("Time from a reservation's expiry until it was cancelled")
+                    .tag("trigger", trigger.tag())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("reservations.expiry.scheduled", wheel, ExpiryWheel::size)
+                .description("PENDING reservations scheduled on this node's expiry wheel")
+                .register(meterRegistry);
     }
 
-    @Scheduled(fixedRate = 300000)
-    @Transactional
-    public void expireStaleReservations() {
-        LocalDateTime now = LocalDateTime.now();
-        
-        // Find all PENDING reservations that have passed their expiry time
-        List<Reservation> expiredReservations = reservationRepo.findExpiredPendingReservations(now);
-        
-        if (expiredReservations.isEmpty()) {
-            log.debug("No expired PENDING reservations found");
+    /**
+     * Schedule the reservation to expire at {@code expiresAt} once the current transaction commits.
+     */
+    public void schedule(Long reservationId, LocalDateTime expiresAt) {
+        TransactionHooks.afterCommit(() -> wheel.schedule(reservationId, epochMillis(expiresAt)));
+    }
+
+    /**
+     * Drop the reservation from the wheel once the current transaction commits, after it was
+     * confirmed or cancelled.
+     */
+    public void unschedule(Long reservationId) {
+        TransactionHooks.afterCommit(() -> wheel.cancel(reservationId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void schedulePending() {
+        List<PendingExpiry> pending = reservationRepo.findPendingExpiries();
+        for (PendingExpiry reservation : pending) {
+            wheel.schedule(reservation.id(), epochMillis(reservation.expiresAt()));
+        }
+        log.info("Scheduled expiry of {} PENDING reservations", pending.size());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void startWheel() {
+        if (ticker != null) {
             return;
         }
-        
-        log.info("Found {} expired PENDING reservations, auto-cancelling...", expiredReservations.size());
-        
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "expiry-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMillis = wheelTick.toMillis();
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stopWheel() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    // An exception escaping a periodic task would stop the wheel for good
+    private void tick() {
+        try {
+            expireDue(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.error("Expiry wheel tick failed", e);
+        }
+    }
+
+    void expireDue(LocalDateTime now) {
+        List<Long> due = wheel.advance(epochMillis(now));
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> ids = due.subList(from, Math.min(due.size(), from + batchSize));
+            List<Reservation> cancelled;
+            try {
+                cancelled = reservationRepo.cancelExpiredPendingIn(ids, now);
+            } catch (Exception e) {
+                log.warn("Failed to expire {} due reservations, leaving them to the sweep", due.size() - from, e);
+                return;
+            }
+            if (!cancelled.isEmpty()) {
+                batchSizes.get(Trigger.WHEEL).record(cancelled.size());
+                release(cancelled, now, Trigger.WHEEL);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${reservations.expiry.interval:PT5M}")
+    public void expireStaleReservations() {
+        LocalDateTime now = LocalDateTime.now();
         int cancelledCount = 0;
-        for (Reservation reservation : expiredReservations) {
+        List<Reservation> batch;
+        do {
             try {
-                int updated = reservationRepo.updateStatusAtomically(
-                    reservation.getId(),
-                    ReservationStatus.PENDING,
-                    ReservationStatus.CANCELLED
-                );
-                
-                if (updated > 0) {
-                    cancelledCount++;
-                    log.debug("Auto-cancelled expired reservation ID: {} (customer: {}, expired at: {})",
-                        reservation.getId(), 
-                        reservation.getCustomerEmail(), 
-                        reservation.getExpiresAt());
-                }
+                batch = reservationRepo.cancelExpiredPending(now, batchSize);
             } catch (Exception e) {
-                log.error("Failed to cancel expired reservation ID: {}", reservation.getId(), e);
+                log.error("Expiry sweep stopped after cancelling {} reservations", cancelledCount, e);
+                return;
             }
+            if (!batch.isEmpty()) {
+                batchSizes.get(Trigger.SWEEP).record(batch.size());
+                release(batch, now, Trigger.SWEEP);
+                cancelledCount += batch.size();
+            }
+        } while (batch.size() == batchSize);
+
+        if (cancelledCount == 0) {
+            log.debug("No expired PENDING reservations found");
+        } else {
+            log.info("Auto-cancelled {} expired PENDING reservations", cancelledCount);
+        }
+    }
+
+    // The batch is already committed; only in-memory indexes and cached searches are left to update
+    private void release(List<Reservation> cancelled, LocalDateTime now, Trigger trigger) {
+        Set<Long> carIds = new LinkedHashSet<>();
+        for (Reservation reservation : cancelled) {
+            wheel.cancel(reservation.getId());
+            inventoryService.markCarReleased(reservation.toCarBooking());
+            carIds.add(reservation.getCarId());
+            if (reservation.getExpiresAt() != null) {
+                lags.get(trigger).record(Duration.between(reservation.getExpiresAt(), now));
+            }
+            log.debug("Auto-cancelled expired reservation ID: {} (expired at: {})",
+                    reservation.getId(), reservation.getExpiresAt());
+        }
+        try {
+            inventoryService.invalidateSearchesForCars(carIds);
+        } catch (Exception e) {
+            log.error("Failed to invalidate cached searches for cars {}", carIds, e);
         }
-        
-        log.info("Successfully auto-cancelled {} out of {} expired PENDING reservations", 
-            cancelledCount, expiredReservations.size());
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 }
@@ -17,9 +17,11 @@ import org.springframework.web.bind.annotation.*;
 class ReservationInternalController {
 
     private final ReservationService service;
+    private final PricingService pricingService;
 
-    ReservationInternalController(ReservationService service) {
+    ReservationInternalController(ReservationService service, PricingService pricingService) {
         this.service = service;
+        this.pricingService = pricingService;
     }
 
     @Operation(summary = "Get all reservations", description = "Retrieve all reservations with pagination")
@@ -99,4 +101,14 @@ class ReservationInternalController {
         Reservation reservation = service.getReservationById(id);
         return ResponseEntity.ok(ReservationDTO.from(reservation));
     }
+
+    @Operation(summary = "Reload pricing", description = "Reload pricing rules and rate plans into the in-memory pricing snapshot")
+    @ApiResponse(responseCode = "200", description = "Pricing snapshot reloaded")
+    @PostMapping("/pricing/reload")
+    public PricingReloadResponse reloadPricing() {
+        PricingSnapshot snapshot = pricingService.reloadPricing();
+        return new PricingReloadResponse(snapshot.ruleCount(), snapshot.ratePlanCount());
+    }
+
+    record PricingReloadResponse(int pricingRules, int ratePlans) {}
 }
@@ -1,39 +1,50 @@
 package com.rental.car.reservation;
 
+import com.rental.car.inventory.CarBooking;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 interface ReservationRepository extends JpaRepository<Reservation, Long> {
 
-    @Query("""
-        SELECT COUNT(r) > 0 FROM Reservation r 
-        WHERE r.carId = :carId 
-        AND r.status NOT IN ('CANCELLED', 'COMPLETED')
-        AND r.pickupDate < :returnDate 
-        AND r.returnDate > :pickupDate
-    """)
+    /**
+     * Overlap checks compare the stored {@code period} daterange, so they are answered by the
+     * GiST index behind the reservations_no_overlap_per_car constraint. Their status filter must
+     * stay the same as the constraint's for the planner to use it.
+     */
+    @Query(value = """
+        SELECT EXISTS (
+            SELECT 1 FROM reservations r
+            WHERE r.car_id = :carId
+            AND r.status NOT IN ('CANCELLED', 'COMPLETED')
+            AND r.period && daterange(:pickupDate, :returnDate, '[)')
+        )
+    """, nativeQuery = true)
     boolean hasConflictingReservation(
         @Param("carId") Long carId,
         @Param("pickupDate") LocalDate pickupDate,
         @Param("returnDate") LocalDate returnDate
     );
 
-    @Query("""
-        SELECT COUNT(r) > 0 FROM Reservation r 
-        WHERE r.carId = :carId 
-        AND r.id != :reservationId
-        AND r.status NOT IN ('CANCELLED', 'COMPLETED')
-        AND r.pickupDate < :returnDate 
-        AND r.returnDate > :pickupDate
-    """)
+    @Query(value = """
+        SELECT EXISTS (
+            SELECT 1 FROM reservations r
+            WHERE r.car_id = :carId
+            AND r.id <> :reservationId
+            AND r.status NOT IN ('CANCELLED', 'COMPLETED')
+            AND r.period && daterange(:pickupDate, :returnDate, '[)')
+        )
+    """, nativeQuery = true)
     boolean hasConflictingReservationExcluding(
         @Param("carId") Long carId,
         @Param("reservationId") Long reservationId,
@@ -41,9 +52,46 @@ interface ReservationRepository extends JpaRepository<Reservation, Long> {
         @Param("returnDate") LocalDate returnDate
     );
 
+    // Joined against the ids rather than filtered with IN, so each car is its own index probe
+    @Query(value = """
+        SELECT DISTINCT r.car_id FROM unnest(ARRAY[:carIds]) AS c(id)
+        JOIN reservations r ON r.car_id = c.id
+        WHERE r.status NOT IN ('CANCELLED', 'COMPLETED')
+        AND r.period && daterange(:pickupDate, :returnDate, '[)')
+    """, nativeQuery = true)
+    List<Long> findConflictingCarIds(
+        @Param("carIds") Collection<Long> carIds,
+        @Param("pickupDate") LocalDate pickupDate,
+        @Param("returnDate") LocalDate returnDate
+    );
+
     Page<Reservation> findByCarId(Long carId, Pageable pageable);
 
-    Page<Reservation> findByCustomerEmailOrderByCreatedAtDesc(String customerEmail, Pageable pageable);
+    /**
+     * A customer's live and archived reservations, newest first. Reads the reservations_all view,
+     * which adds reservations_history to the live table (see {@link #archiveReservations}).
+     */
+    @Query(value = """
+        SELECT * FROM reservations_all
+        WHERE customer_email = :email
+        ORDER BY created_at DESC
+    """, countQuery = """
+        SELECT count(*) FROM reservations_all
+        WHERE customer_email = :email
+    """, nativeQuery = true)
+    Page<Reservation> findCustomerHistory(@Param("email") String customerEmail, Pageable pageable);
+
+    @Query(value = "SELECT * FROM reservations_history WHERE id = :id", nativeQuery = true)
+    Optional<Reservation> findArchivedById(@Param("id") Long id);
+
+    /**
+     * Move up to {@code limit} COMPLETED or CANCELLED reservations returned before {@code cutoff}
+     * into reservations_history, a table partitioned by pickup year, and return how many moved.
+     * Runs and commits in its own transaction; returns 0 while another node is archiving.
+     */
+    @Transactional
+    @Query(value = "SELECT archive_reservations(:cutoff, :limit)", nativeQuery = true)
+    int archiveReservations(@Param("cutoff") LocalDate cutoff, @Param("limit") int limit);
 
     Page<Reservation> findByStatus(ReservationStatus status, Pageable pageable);
 
@@ -61,14 +109,15 @@ interface ReservationRepository extends JpaRepository<Reservation, Long> {
 
     List<Reservation> findByStatusAndReturnDateBefore(ReservationStatus status, LocalDate date);
 
-    @Query("""
-        SELECT r FROM Reservation r 
-        WHERE (r.pickupBranchCode = :branchCode OR r.returnBranchCode = :branchCode)
-        AND r.pickupDate <= :endDate 
-        AND r.returnDate >= :startDate
-        AND r.status NOT IN ('CANCELLED')
-        ORDER BY r.pickupDate ASC
-    """)
+    // Both ends are inclusive here, so the query range is widened by a day on each side
+    @Query(value = """
+        SELECT r.* FROM reservations r
+        WHERE (r.pickup_branch_code = :branchCode OR r.return_branch_code = :branchCode)
+        AND r.period && daterange(
+            CAST(:startDate AS date) - 1, CAST(:endDate AS date) + 1, '[)')
+        AND r.status <> 'CANCELLED'
+        ORDER BY r.pickup_date ASC
+    """, nativeQuery = true)
     List<Reservation> findByBranchAndDateRange(
         @Param("branchCode") String branchCode,
         @Param("startDate") LocalDate startDate,
@@ -92,12 +141,64 @@ interface ReservationRepository extends JpaRepository<Reservation, Long> {
         @Param("newStatus") ReservationStatus newStatus
     );
 
+    /**
+     * Cancel up to {@code limit} PENDING reservations that expired before {@code now}, oldest first,
+     * and return them as cancelled. Rows locked by another transaction (a confirmation in flight,
+     * or a sweep on another node) are skipped rather than waited for. Runs and commits in its own
+     * transaction; the version is bumped so a stale entity save cannot revive a cancelled row.
+     */
+    @Transactional
+    @Query(value = """
+        WITH expired AS (
+            SELECT id FROM reservations
+            WHERE status = 'PENDING'
+            AND expires_at < :now
+            ORDER BY expires_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+        )
+        UPDATE reservations r
+        SET status = 'CANCELLED', updated_at = CURRENT_TIMESTAMP, version = r.version + 1
+        FROM expired
+        WHERE r.id = expired.id
+        RETURNING r.*
+    """, nativeQuery = true)
+    List<Reservation> cancelExpiredPending(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * {@link #cancelExpiredPending} for the given reservations only. Those no longer PENDING, not
+     * yet expired, or locked by another transaction are left alone.
+     */
+    @Transactional
+    @Query(value = """
+        WITH expired AS (
+            SELECT id FROM reservations
+            WHERE id IN (:ids)
+            AND status = 'PENDING'
+            AND expires_at <= :now
+            FOR UPDATE SKIP LOCKED
+        )
+        UPDATE reservations r
+        SET status = 'CANCELLED', updated_at = CURRENT_TIMESTAMP, version = r.version + 1
+        FROM expired
+        WHERE r.id = expired.id
+        RETURNING r.*
+    """, nativeQuery = true)
+    List<Reservation> cancelExpiredPendingIn(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
     @Query("""
-        SELECT r FROM Reservation r 
+        SELECT new com.rental.car.reservation.PendingExpiry(r.id, r.expiresAt)
+        FROM Reservation r
         WHERE r.status = 'PENDING'
         AND r.expiresAt IS NOT NULL
-        AND r.expiresAt < :now
-        ORDER BY r.expiresAt ASC
     """)
-    List<Reservation> findExpiredPendingReservations(@Param("now") LocalDateTime now);
+    List<PendingExpiry> findPendingExpiries();
+
+    @Query("""
+        SELECT new com.rental.car.inventory.CarBooking(r.carId, r.pickupDate, r.returnDate)
+        FROM Reservation r
+        WHERE r.status NOT IN ('CANCELLED', 'COMPLETED')
+        AND r.returnDate > :date
+    """)
+    List<CarBooking> findActiveBookingsEndingAfter(@Param("date") LocalDate date);
 }
@@ -1,84 +1,101 @@
 package com.rental.car.reservation;
 
+import com.rental.car.common.TransactionHooks;
 import com.rental.car.exceptions.BusinessRuleViolationException;
 import com.rental.car.exceptions.ResourceNotFoundException;
 import com.rental.car.exceptions.ReservationConflictException;
 import com.rental.car.inventory.CarDTO;
 import com.rental.car.inventory.InventoryService;
-import org.springframework.cache.annotation.CacheEvict;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class ReservationService {
 
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+
+    private static final String FOREIGN_KEY_VIOLATION = "23503";
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    /**
+     * Stages of {@link #createReservation}, tagged on {@code reservations.create}. INDEX runs after
+     * the commit.
+     */
+    enum CreateStage {
+        LOAD, PRICE, INSERT, INDEX;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
     private final ReservationRepository reservationRepo;
     private final InventoryService inventoryService;
     private final PricingService pricingService;
+    private final ReservationExpiryService expiryService;
+    private final Map<CreateStage, Timer> stages = new EnumMap<>(CreateStage.class);
 
     public ReservationService(
             ReservationRepository reservationRepo, 
             InventoryService inventoryService,
-            PricingService pricingService) {
+            PricingService pricingService,
+            ReservationExpiryService expiryService,
+            MeterRegistry meterRegistry) {
         this.reservationRepo = reservationRepo;
         this.inventoryService = inventoryService;
         this.pricingService = pricingService;
+        this.expiryService = expiryService;
+        for (CreateStage stage : CreateStage.values()) {
+            stages.put(stage, Timer.builder("reservations.create")
+                    .description("Time spent in each stage of creating a reservation, including failed attempts")
+                    .tag("stage", stage.tag())
+                    .register(meterRegistry));
+        }
     }
 
-    @CacheEvict(value = "carSearch", allEntries = true)
+    /**
+     * Create a PENDING reservation that expires after 30 minutes. The car is loaded with its branch
+     * in one query, branches are checked against the branch index and prices against the pricing
+     * snapshot, so the insert is usually the only other round trip. Overlapping bookings are
+     * rejected by the {@code reservations_no_overlap_per_car} exclusion constraint rather than a
+     * pre-check. The hold's expiry is scheduled on commit. Each stage is timed in
+     * {@code reservations.create}.
+     */
     @Transactional
     public Reservation createReservation(ReservationCreateRequest request) {
-        // 1. Validate car exists and is available
-        CarDTO car = inventoryService.getCarById(request.carId())
-                .orElseThrow(() -> new ResourceNotFoundException("Car not found with id: " + request.carId()));
-
-        if (!car.available()) {
-            throw new ReservationConflictException("Car is not available for rent");
-        }
-
-        // 2. Validate branches exist
-        if (!inventoryService.isValidBranch(request.pickupBranchCode())) {
-            throw new ResourceNotFoundException("Pickup branch not found: " + request.pickupBranchCode());
-        }
-        if (!inventoryService.isValidBranch(request.returnBranchCode())) {
-            throw new ResourceNotFoundException("Return branch not found: " + request.returnBranchCode());
-        }
+        // 1. Load the car and validate it and both branches
+        CarDTO car = stages.get(CreateStage.LOAD).record(() -> loadBookableCar(request));
 
-        // 3. Validate car is at the pickup branch
-        if (!car.branchCode().equals(request.pickupBranchCode())) {
-            throw new IllegalArgumentException(
-                String.format("Car is not available at pickup branch %s. Car is currently at branch %s",
-                    request.pickupBranchCode(), car.branchCode())
-            );
-        }
-
-        // 4. Check for conflicting reservations (best-effort check before DB constraint)
-        boolean available = !reservationRepo.hasConflictingReservation(
-                request.carId(), request.pickupDate(), request.returnDate());
-        
-        if (!available) {
-            throw new ReservationConflictException(
-                "Car is already reserved for the selected dates");
-        }
-
-        // 5. Calculate pricing using PricingService
-        PriceCalculationResponse pricing = pricingService.calculatePrice(
-            car.type(), 
+        // 2. Calculate pricing using PricingService
+        PricingService.PriceTotal pricing = stages.get(CreateStage.PRICE).record(() -> pricingService.calculateTotal(
+            car.type(),
             request.pickupBranchCode(),
             request.returnBranchCode(),
-            request.pickupDate(), 
-            request.returnDate(),
-            available
-        );
+            request.pickupDate(),
+            request.returnDate()
+        ));
 
-        // 5. Create reservation with 30-minute expiry for PENDING status
+        // 3. Create reservation with 30-minute expiry for PENDING status
         LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(30);
         Reservation reservation = new Reservation(
             null,
@@ -100,12 +117,75 @@ public class ReservationService {
             null
         );
 
+        Reservation saved = stages.get(CreateStage.INSERT).record(() -> insert(reservation));
+
+        // 4. Update the availability index and cached searches, and schedule the hold's expiry.
+        // These only register after-commit hooks, which run in registration order, so the stage is
+        // timed by the two hooks around them
+        AtomicReference<Timer.Sample> indexing = new AtomicReference<>();
+        TransactionHooks.afterCommit(() -> indexing.set(Timer.start()));
+        inventoryService.markCarBooked(saved.toCarBooking());
+        inventoryService.invalidateSearchesForCar(saved.getCarId());
+        expiryService.schedule(saved.getId(), expiresAt);
+        TransactionHooks.afterCommit(() -> indexing.get().stop(stages.get(CreateStage.INDEX)));
+        log.debug("Created reservation {} for car {} from {} to {}, total {}",
+                saved.getId(), saved.getCarId(), saved.getPickupDate(), saved.getReturnDate(), saved.getTotalPrice());
+        return saved;
+    }
+
+    private CarDTO loadBookableCar(ReservationCreateRequest request) {
+        CarDTO car = inventoryService.getCarById(request.carId())
+                .orElseThrow(() -> new ResourceNotFoundException("Car not found with id: " + request.carId()));
+
+        if (!car.available()) {
+            throw new ReservationConflictException("Car is not available for rent");
+        }
+
+        // The car's own branch exists, so the pickup branch only needs a lookup when it differs
+        if (!car.branchCode().equals(request.pickupBranchCode())) {
+            if (!inventoryService.isValidBranch(request.pickupBranchCode())) {
+                throw new ResourceNotFoundException("Pickup branch not found: " + request.pickupBranchCode());
+            }
+            throw new IllegalArgumentException(
+                String.format("Car is not available at pickup branch %s. Car is currently at branch %s",
+                    request.pickupBranchCode(), car.branchCode())
+            );
+        }
+        if (!request.returnBranchCode().equals(request.pickupBranchCode())
+                && !inventoryService.isValidBranch(request.returnBranchCode())) {
+            throw new ResourceNotFoundException("Return branch not found: " + request.returnBranchCode());
+        }
+        return car;
+    }
+
+    private Reservation insert(Reservation reservation) {
         try {
             return reservationRepo.save(reservation);
         } catch (DataIntegrityViolationException ex) {
-            throw new ReservationConflictException(
-                "Car is already reserved for the selected dates");
+            String sqlState = sqlState(ex);
+            if (FOREIGN_KEY_VIOLATION.equals(sqlState)) {
+                // The car or a branch was deleted after it was validated
+                throw new ResourceNotFoundException("Car or branch no longer exists for car id: "
+                        + reservation.getCarId());
+            }
+            if (EXCLUSION_VIOLATION.equals(sqlState)) {
+                log.debug("Reservation for car {} from {} to {} rejected by overlap constraint",
+                        reservation.getCarId(), reservation.getPickupDate(), reservation.getReturnDate());
+                throw new ReservationConflictException(
+                    "Car is already reserved for the selected dates");
+            }
+            // Not a double booking: left to GlobalExceptionHandler
+            throw ex;
+        }
+    }
+
+    private static String sqlState(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql) {
+                return sql.getSQLState();
+            }
         }
+        return null;
     }
 
     @Transactional(readOnly = true)
@@ -137,7 +217,50 @@ public class ReservationService {
         return pricingService.calculatePrice(car.type(), pickup, returnBranch, pickupDate, returnDate, available);
     }
 
-    @CacheEvict(value = "carSearch", allEntries = true)
+    /**
+     * Price several cars for the same dates. Cars, conflicts and pricing inputs are loaded with
+     * set-based queries instead of one round of lookups per car.
+     */
+    @Transactional(readOnly = true)
+    public BatchPriceResponse calculatePrices(BatchPriceRequest request) {
+        List<Long> carIds = request.carIds().stream().distinct().toList();
+        Map<Long, CarDTO> cars = new HashMap<>();
+        for (CarDTO car : inventoryService.getCarsByIds(carIds)) {
+            cars.put(car.id(), car);
+        }
+        Set<Long> conflicting = cars.isEmpty() ? Set.of() : new HashSet<>(
+                reservationRepo.findConflictingCarIds(cars.keySet(), request.pickupDate(), request.returnDate()));
+
+        List<Long> priced = new ArrayList<>(cars.size());
+        List<Long> notFound = new ArrayList<>();
+        List<PriceQuery> queries = new ArrayList<>(cars.size());
+        for (Long carId : carIds) {
+            CarDTO car = cars.get(carId);
+            if (car == null) {
+                notFound.add(carId);
+                continue;
+            }
+            String pickup = (request.pickupBranchCode() != null && !request.pickupBranchCode().isBlank())
+                    ? request.pickupBranchCode()
+                    : car.branchCode();
+            String returnBranch = (request.returnBranchCode() != null && !request.returnBranchCode().isBlank())
+                    ? request.returnBranchCode()
+                    : pickup;
+            priced.add(carId);
+            queries.add(new PriceQuery(car.type(), pickup, returnBranch,
+                    request.pickupDate(), request.returnDate(), !conflicting.contains(carId)));
+        }
+
+        List<PriceCalculationResponse> prices = pricingService.calculatePrices(queries);
+        List<BatchPriceResponse.CarPrice> result = new ArrayList<>(prices.size());
+        for (int i = 0; i < prices.size(); i++) {
+            PriceQuery query = queries.get(i);
+            result.add(new BatchPriceResponse.CarPrice(
+                    priced.get(i), query.pickupBranchCode(), query.returnBranchCode(), prices.get(i)));
+        }
+        return new BatchPriceResponse(result, notFound);
+    }
+
     @Transactional
     public Reservation updateReservation(Long reservationId, ReservationUpdateRequest request) {
         Reservation reservation = reservationRepo.findById(reservationId)
@@ -166,20 +289,19 @@ public class ReservationService {
                     .orElseThrow(() -> new ResourceNotFoundException("Car not found with id: " + reservation.getCarId()));
 
             // Recalculate price with updated dates
-            boolean available = !reservationRepo.hasConflictingReservationExcluding(
-                    reservation.getCarId(), reservationId, newPickupDate, newReturnDate);
-            
-            PriceCalculationResponse pricing = pricingService.calculatePrice(
+            PricingService.PriceTotal pricing = pricingService.calculateTotal(
                 car.type(),
                 reservation.getPickupBranchCode(),
                 reservation.getReturnBranchCode(),
-                newPickupDate, 
-                newReturnDate,
-                available
+                newPickupDate,
+                newReturnDate
             );
 
+            inventoryService.markCarReleased(reservation.toCarBooking());
             reservation.setPickupDate(newPickupDate);
             reservation.setReturnDate(newReturnDate);
+            inventoryService.markCarBooked(reservation.toCarBooking());
+            inventoryService.invalidateSearchesForCar(reservation.getCarId());
             reservation.setTotalPrice(pricing.totalPrice());
             reservation.setDailyRate(pricing.dailyRate());
         }
@@ -192,7 +314,6 @@ public class ReservationService {
         return reservationRepo.save(reservation);
     }
 
-    @CacheEvict(value = "carSearch", allEntries = true)
     @Transactional
     public Reservation confirmReservation(Long reservationId) {
         // Check if reservation exists and is not expired
@@ -231,10 +352,11 @@ public class ReservationService {
         reservation = reservationRepo.findById(reservationId)
                 .orElseThrow(() -> ResourceNotFoundException.reservation(reservationId));
         reservation.setExpiresAt(null);
+        expiryService.unschedule(reservationId);
+        log.debug("Confirmed reservation {}", reservationId);
         return reservationRepo.save(reservation);
     }
 
-    @CacheEvict(value = "carSearch", allEntries = true)
     @Transactional
     public Reservation startReservation(Long reservationId) {
         // First fetch the reservation to get car ID (needed for inventory update)
@@ -279,7 +401,6 @@ public class ReservationService {
                 .orElseThrow(() -> ResourceNotFoundException.reservation(reservationId));
     }
 
-    @CacheEvict(value = "carSearch", allEntries = true)
     @Transactional
     public Reservation completeReservation(Long reservationId) {
         // First fetch the reservation to validate and get car details
@@ -328,6 +449,8 @@ public class ReservationService {
         
         // Mark car as available again (if at return branch)
         inventoryService.updateCarAvailability(reservation.getCarId(), true);
+        inventoryService.markCarReleased(reservation.toCarBooking());
+        inventoryService.invalidateSearchesForCar(reservation.getCarId());
         
         // If returned to different branch, move the car
         if (!reservation.getPickupBranchCode().equals(reservation.getReturnBranchCode())) {
@@ -339,7 +462,6 @@ public class ReservationService {
                 .orElseThrow(() -> ResourceNotFoundException.reservation(reservationId));
     }
 
-    @CacheEvict(value = "carSearch", allEntries = true)
     @Transactional
     public Reservation cancelReservation(Long reservationId) {
         Reservation reservation = reservationRepo.findById(reservationId)
@@ -403,6 +525,10 @@ public class ReservationService {
         if (wasActive) {
             inventoryService.updateCarAvailability(reservation.getCarId(), true);
         }
+        inventoryService.markCarReleased(reservation.toCarBooking());
+        inventoryService.invalidateSearchesForCar(reservation.getCarId());
+        expiryService.unschedule(reservationId);
+        log.debug("Cancelled reservation {} (was {})", reservationId, currentStatus);
 
         // Fetch and return the updated reservation
         return reservationRepo.findById(reservationId)
@@ -412,12 +538,16 @@ public class ReservationService {
     @Transactional(readOnly = true)
     public Reservation getReservationById(Long id) {
         return reservationRepo.findById(id)
+                .or(() -> reservationRepo.findArchivedById(id))
                 .orElseThrow(() -> ResourceNotFoundException.reservation(id));
     }
 
+    /**
+     * All of a customer's reservations, including those already archived.
+     */
     @Transactional(readOnly = true)
     public Page<Reservation> getCustomerReservations(String customerEmail, Pageable pageable) {
-        return reservationRepo.findByCustomerEmailOrderByCreatedAtDesc(customerEmail, pageable);
+        return reservationRepo.findCustomerHistory(customerEmail, pageable);
     }
 
     @Transactional(readOnly = true)
@@ -425,11 +555,17 @@ public class ReservationService {
         return reservationRepo.findUpcomingReservationsForCustomer(customerEmail, LocalDate.now());
     }
 
+    /**
+     * Live reservations only; those archived by {@link ReservationArchiver} are left out.
+     */
     @Transactional(readOnly = true)
     public Page<Reservation> getAllReservations(Pageable pageable) {
         return reservationRepo.findAll(pageable);
     }
 
+    /**
+     * Live reservations only, like {@link #getAllReservations}.
+     */
     @Transactional(readOnly = true)
     public Page<Reservation> getReservationsByStatus(ReservationStatus status, Pageable pageable) {
         return reservationRepo.findByStatus(status, pageable);
@@ -0,0 +1,76 @@
+package com.rental.car.reservation;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Counts surcharged days in a date range without walking it.
+ *
+ * A day is surcharged if it falls on one of the calendar's days of the week or is one of its
+ * special dates (holidays, peak dates). Days of the week are counted from the number of whole
+ * weeks plus a lookup for the remainder; special dates are kept as sorted epoch days and counted
+ * with two binary searches. Special dates that already fall on a surcharged weekday are dropped
+ * at construction so no day is counted twice.
+ */
+final class SurchargeCalendar {
+
+    static final SurchargeCalendar WEEKENDS = of(Set.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY), Set.of());
+
+    private final int daysPerWeek;
+    // prefix[i] = surcharged weekdays among the i days starting on Monday, over two weeks
+    private final int[] prefix = new int[15];
+    private final long[] specialDays;
+
+    private SurchargeCalendar(Set<DayOfWeek> weekdays, Collection<LocalDate> specialDates) {
+        boolean[] surcharged = new boolean[7];
+        for (DayOfWeek day : weekdays) {
+            surcharged[day.getValue() - 1] = true;
+        }
+        for (int i = 0; i < 14; i++) {
+            prefix[i + 1] = prefix[i] + (surcharged[i % 7] ? 1 : 0);
+        }
+        daysPerWeek = prefix[7];
+        specialDays = specialDates.stream()
+                .mapToLong(LocalDate::toEpochDay)
+                .filter(day -> !surcharged[dayOfWeekIndex(day)])
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
+    static SurchargeCalendar of(Set<DayOfWeek> weekdays, Collection<LocalDate> specialDates) {
+        return new SurchargeCalendar(weekdays, specialDates);
+    }
+
+    /**
+     * Surcharged days from fromDay (inclusive) to toDay (exclusive), as epoch days.
+     */
+    long count(long fromDay, long toDay) {
+        if (toDay <= fromDay) {
+            return 0;
+        }
+        long length = toDay - fromDay;
+        int start = dayOfWeekIndex(fromDay);
+        int remainder = (int) (length % 7);
+        long weekdays = (length / 7) * daysPerWeek + prefix[start + remainder] - prefix[start];
+        return weekdays + lowerBound(toDay) - lowerBound(fromDay);
+    }
+
+    long count(LocalDate from, LocalDate to) {
+        return count(from.toEpochDay(), to.toEpochDay());
+    }
+
+    // Index of the first special day not before day
+    private int lowerBound(long day) {
+        int index = Arrays.binarySearch(specialDays, day);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // Monday = 0; epoch day 0 (1970-01-01) was a Thursday
+    private static int dayOfWeekIndex(long epochDay) {
+        return (int) Math.floorMod(epochDay + 3, 7L);
+    }
+}
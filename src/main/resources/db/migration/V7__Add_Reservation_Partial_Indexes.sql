@@ -0,0 +1,33 @@
+-- Partial and covering indexes matched to the reservation queries.
+-- The hot queries only look at active reservations (status NOT IN ('CANCELLED', 'COMPLETED'))
+-- or at PENDING holds, a small slice of the table that stays small as history grows, so the
+-- indexes leave the other rows out. The planner only uses a partial index when the query's
+-- WHERE clause implies the index predicate: keep the queries' status filters written the same way.
+
+-- Availability index reload (findActiveBookingsEndingAfter): active reservations not yet
+-- returned, read as an index-only scan. The overlap checks use the exclusion constraint's index.
+CREATE INDEX IF NOT EXISTS idx_reservations_active_return
+    ON reservations (return_date)
+    INCLUDE (car_id, pickup_date)
+    WHERE status NOT IN ('CANCELLED', 'COMPLETED');
+
+-- Expiry sweep (cancelExpiredPending) and the expiry wheel reload (findPendingExpiries)
+CREATE INDEX IF NOT EXISTS idx_reservations_pending_expiry
+    ON reservations (expires_at)
+    INCLUDE (id)
+    WHERE status = 'PENDING';
+
+-- Upcoming reservations for a customer, already in pickup order
+CREATE INDEX IF NOT EXISTS idx_reservations_customer_upcoming
+    ON reservations (customer_email, pickup_date)
+    WHERE status NOT IN ('CANCELLED', 'COMPLETED');
+
+-- Customer history, newest first; replaces the single-column idx_customer_email
+CREATE INDEX IF NOT EXISTS idx_reservations_customer_created
+    ON reservations (customer_email, created_at DESC);
+
+-- status alone has five values and no query filters on it without a narrower column
+DROP INDEX IF EXISTS idx_status;
+DROP INDEX IF EXISTS idx_customer_email;
+
+ANALYZE reservations;
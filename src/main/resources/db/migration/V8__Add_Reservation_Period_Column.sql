@@ -0,0 +1,20 @@
+-- Store each reservation's rental period as a daterange, so overlap checks are one GiST probe
+-- on (car_id, period) instead of a btree scan on car_id with the dates as residual filters.
+-- '[)' keeps back-to-back reservations (one returned the day the next is picked up) apart.
+ALTER TABLE reservations
+ADD COLUMN IF NOT EXISTS period daterange
+    GENERATED ALWAYS AS (daterange(pickup_date, return_date, '[)')) STORED;
+
+-- Rebuild the overlap constraint from V6 on the stored column. Its GiST index is the one the
+-- overlap queries use, so they must keep the same status filter to match its predicate.
+ALTER TABLE reservations DROP CONSTRAINT IF EXISTS reservations_no_overlap_per_car;
+
+ALTER TABLE reservations
+ADD CONSTRAINT reservations_no_overlap_per_car
+EXCLUDE USING gist (
+    car_id WITH =,
+    period WITH &&
+)
+WHERE (status NOT IN ('CANCELLED', 'COMPLETED'));
+
+ANALYZE reservations;
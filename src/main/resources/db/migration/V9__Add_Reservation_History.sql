@@ -0,0 +1,102 @@
+-- Completed and cancelled reservations are moved out of reservations once they are old enough
+-- (ReservationArchiver), so the live table, its indexes and the overlap constraint only hold
+-- what is still bookable plus a short tail. reservations itself stays a plain table: Postgres
+-- cannot enforce reservations_no_overlap_per_car on a partitioned table, since an exclusion
+-- constraint there would have to compare the partition key with =.
+
+-- Archived reservations, one partition per pickup year, created by archive_reservations() as
+-- needed. Old years can be detached or dropped on their own.
+CREATE TABLE IF NOT EXISTS reservations_history (
+    id                 bigint         NOT NULL,
+    car_id             bigint         NOT NULL,
+    customer_email     varchar(255)   NOT NULL,
+    customer_name      varchar(255)   NOT NULL,
+    customer_phone     varchar(255),
+    pickup_branch_code varchar(10)    NOT NULL,
+    return_branch_code varchar(10)    NOT NULL,
+    pickup_date        date           NOT NULL,
+    return_date        date           NOT NULL,
+    status             varchar(20)    NOT NULL,
+    total_price        numeric(10, 2) NOT NULL,
+    daily_rate         numeric(10, 2),
+    notes              varchar(500),
+    created_at         timestamp(6)   NOT NULL,
+    updated_at         timestamp(6),
+    expires_at         timestamp(6),
+    version            integer        NOT NULL,
+    archived_at        timestamp(6)   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, pickup_date)
+) PARTITION BY RANGE (pickup_date);
+
+-- Customer history, newest first (matches idx_reservations_customer_created on the live table)
+CREATE INDEX IF NOT EXISTS idx_reservations_history_customer_created
+    ON reservations_history (customer_email, created_at DESC);
+
+-- Live and archived reservations together, for reads that must see both
+CREATE OR REPLACE VIEW reservations_all AS
+SELECT id, car_id, customer_email, customer_name, customer_phone, pickup_branch_code,
+       return_branch_code, pickup_date, return_date, status, total_price, daily_rate, notes,
+       created_at, updated_at, expires_at, version
+FROM reservations
+UNION ALL
+SELECT id, car_id, customer_email, customer_name, customer_phone, pickup_branch_code,
+       return_branch_code, pickup_date, return_date, status, total_price, daily_rate, notes,
+       created_at, updated_at, expires_at, version
+FROM reservations_history;
+
+-- Move up to batch_size COMPLETED or CANCELLED reservations that were returned before cutoff
+-- into reservations_history, creating the yearly partitions they need, and return how many
+-- moved. Returns 0 straight away while another node is archiving.
+CREATE OR REPLACE FUNCTION archive_reservations(cutoff date, batch_size integer)
+RETURNS integer
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    ids bigint[];
+    pickup_year integer;
+    moved integer;
+BEGIN
+    IF NOT pg_try_advisory_xact_lock(hashtext('archive_reservations')) THEN
+        RETURN 0;
+    END IF;
+
+    SELECT array_agg(id) INTO ids
+    FROM (
+        SELECT id FROM reservations
+        WHERE status IN ('COMPLETED', 'CANCELLED')
+        AND return_date < cutoff
+        ORDER BY return_date
+        LIMIT batch_size
+        FOR UPDATE SKIP LOCKED
+    ) batch;
+
+    IF ids IS NULL THEN
+        RETURN 0;
+    END IF;
+
+    FOR pickup_year IN
+        SELECT DISTINCT extract(year FROM pickup_date)::integer FROM reservations WHERE id = ANY(ids)
+    LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF reservations_history FOR VALUES FROM (%L) TO (%L)',
+            'reservations_history_' || pickup_year,
+            make_date(pickup_year, 1, 1),
+            make_date(pickup_year + 1, 1, 1));
+    END LOOP;
+
+    WITH archived AS (
+        DELETE FROM reservations WHERE id = ANY(ids)
+        RETURNING id, car_id, customer_email, customer_name, customer_phone, pickup_branch_code,
+                  return_branch_code, pickup_date, return_date, status, total_price, daily_rate,
+                  notes, created_at, updated_at, expires_at, version
+    )
+    INSERT INTO reservations_history (
+        id, car_id, customer_email, customer_name, customer_phone, pickup_branch_code,
+        return_branch_code, pickup_date, return_date, status, total_price, daily_rate, notes,
+        created_at, updated_at, expires_at, version)
+    SELECT * FROM archived;
+
+    GET DIAGNOSTICS moved = ROW_COUNT;
+    RETURN moved;
+END;
+$$;
@@ -0,0 +1,79 @@
+package com.rental.car.common;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class AsyncPermitsTest {
+
+    @Test
+    public void testQueuedCallsStartAsPermitsFree() {
+        AsyncPermits permits = new AsyncPermits(2, 10);
+        List<CompletableFuture<Integer>> calls = new ArrayList<>();
+        AtomicInteger started = new AtomicInteger();
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            CompletableFuture<Integer> call = new CompletableFuture<>();
+            calls.add(call);
+            results.add(permits.submit(() -> {
+                started.incrementAndGet();
+                return call;
+            }));
+        }
+
+        assertEquals(started.get(), 2);
+        assertEquals(permits.running(), 2);
+        assertEquals(permits.queued(), 3);
+
+        calls.get(0).complete(0);
+        assertEquals(started.get(), 3);
+        assertEquals(permits.running(), 2);
+        assertEquals(results.get(0).join(), 0);
+
+        for (int i = 1; i < 5; i++) {
+            calls.get(i).complete(i);
+        }
+        assertEquals(started.get(), 5);
+        assertEquals(permits.running(), 0);
+        assertEquals(permits.queued(), 0);
+        assertEquals(results.get(4).join(), 4);
+    }
+
+    @Test
+    public void testRejectsWhenQueueFull() {
+        AsyncPermits permits = new AsyncPermits(1, 1);
+        permits.submit(CompletableFuture::new);
+        permits.submit(CompletableFuture::new);
+
+        CompletableFuture<Object> rejected = permits.submit(CompletableFuture::new);
+
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.join();
+            fail("Expected rejection");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void testFailedCallReleasesPermit() {
+        AsyncPermits permits = new AsyncPermits(1, 0);
+
+        CompletableFuture<Object> failed = permits.submit(() -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<String> next = permits.submit(() -> CompletableFuture.completedFuture("ok"));
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(next.join(), "ok");
+        assertEquals(permits.running(), 0);
+    }
+}
@@ -0,0 +1,84 @@
+package com.rental.car.common;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.*;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private CircuitBreaker breaker;
+
+    @BeforeMethod
+    public void setUp() {
+        now.set(0);
+        breaker = new CircuitBreaker(3, Duration.ofSeconds(30), now::get);
+    }
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() {
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.recordFailure();
+        }
+        assertEquals(breaker.state(), CircuitBreaker.State.CLOSED);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.recordFailure();
+
+        assertEquals(breaker.state(), CircuitBreaker.State.OPEN);
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testSuccessResetsFailureCount() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+
+        assertEquals(breaker.state(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void testAllowsSingleTrialAfterOpenDuration() {
+        tripOpen();
+        now.addAndGet(Duration.ofSeconds(29).toNanos());
+        assertFalse(breaker.tryAcquire());
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(breaker.state(), CircuitBreaker.State.HALF_OPEN);
+        assertFalse(breaker.tryAcquire());
+
+        breaker.recordSuccess();
+        assertEquals(breaker.state(), CircuitBreaker.State.CLOSED);
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testFailedTrialReopens() {
+        tripOpen();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertTrue(breaker.tryAcquire());
+
+        breaker.recordFailure();
+
+        assertEquals(breaker.state(), CircuitBreaker.State.OPEN);
+        assertFalse(breaker.tryAcquire());
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    private void tripOpen() {
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+        assertEquals(breaker.state(), CircuitBreaker.State.OPEN);
+    }
+}
@@ -0,0 +1,107 @@
+package com.rental.car.common;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import static org.testng.Assert.*;
+
+public class GazetteerTest {
+
+    private Gazetteer gazetteer;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        gazetteer = new Gazetteer(Paths.get(getClass().getResource("/gazetteer/sample.tsv").toURI()).toString());
+    }
+
+    @Test
+    public void testLoadsEntriesSkippingCommentsAndBlankLines() {
+        assertEquals(gazetteer.size(), 22);
+    }
+
+    @Test
+    public void testFindsCityInAnyCaseAndSpacing() {
+        assertCoordinates(gazetteer.find("Boston, MA"), 42.3601, -71.0589);
+        assertCoordinates(gazetteer.find("  BOSTON,   ma "), 42.3601, -71.0589);
+        assertCoordinates(gazetteer.find("Boston, MA, USA"), 42.3601, -71.0589);
+        assertCoordinates(gazetteer.find("Boston, MA, United States"), 42.3601, -71.0589);
+    }
+
+    @Test
+    public void testFindsZipAndStreet() {
+        assertCoordinates(gazetteer.find("02116"), 42.3493, -71.0763);
+        assertCoordinates(gazetteer.find("125 High St., Boston, MA, USA"), 42.3554, -71.0527);
+    }
+
+    @Test
+    public void testBareCityResolvesOnlyWhenUnambiguous() {
+        assertCoordinates(gazetteer.find("Cambridge"), 42.3736, -71.1097);
+        assertTrue(gazetteer.find("Springfield").isEmpty());
+        assertTrue(gazetteer.find("Spring").isEmpty());
+    }
+
+    @Test
+    public void testUnknownAddressesMiss() {
+        assertTrue(gazetteer.find("Boston").isPresent());
+        assertTrue(gazetteer.find("Bost").isEmpty());
+        assertTrue(gazetteer.find("Boston, MA 02116").isEmpty());
+        assertTrue(gazetteer.find("999 Nowhere Rd, Boston, MA").isEmpty());
+        assertTrue(gazetteer.find("zzz").isEmpty());
+        assertTrue(gazetteer.find("").isEmpty());
+        assertTrue(gazetteer.find(null).isEmpty());
+        assertFalse(gazetteer.contains("Paris, France"));
+    }
+
+    @Test
+    public void testDisabledWithoutPath() {
+        Gazetteer disabled = new Gazetteer("");
+
+        assertEquals(disabled.size(), 0);
+        assertTrue(disabled.find("Boston, MA").isEmpty());
+    }
+
+    @Test
+    public void testRejectsNonCanonicalNames() throws Exception {
+        Path file = Files.createTempFile("gazetteer", ".tsv");
+        try {
+            Files.writeString(file, "boston, ma\t42.36\t-71.05\nBoston, MA\t42.36\t-71.05\n");
+
+            IllegalStateException error = expectThrows(IllegalStateException.class,
+                    () -> new Gazetteer(file.toString()));
+            assertTrue(error.getMessage().contains("line 2"), error.getMessage());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testHandlesUnsortedFileWithoutTrailingNewline() throws Exception {
+        Path file = Files.createTempFile("gazetteer", ".tsv");
+        try {
+            Files.writeString(file, "salem, ma\t42.5195\t-70.8967\r\nlynn, ma\t42.4668\t-70.9495");
+            Gazetteer unsorted = new Gazetteer(file.toString());
+
+            assertCoordinates(unsorted.find("Salem, MA"), 42.5195, -70.8967);
+            assertCoordinates(unsorted.find("Lynn, MA"), 42.4668, -70.9495);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testCanonicalForm() {
+        assertEquals(Gazetteer.canonical(" 1 Main St.,  Boston, MA, USA "), "1 main st, boston, ma");
+        assertEquals(Gazetteer.canonical("Boston, MA, United States of America"), "boston, ma");
+    }
+
+    private static void assertCoordinates(Optional<double[]> result, double lat, double lon) {
+        assertTrue(result.isPresent());
+        assertEquals(result.get()[0], lat);
+        assertEquals(result.get()[1], lon);
+    }
+}
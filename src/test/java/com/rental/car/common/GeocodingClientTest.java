@@ -0,0 +1,223 @@
+package com.rental.car.common;
+
+import com.rental.car.exceptions.ExternalServiceException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class GeocodingClientTest {
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private volatile CountDownLatch release;
+    private volatile Duration delay;
+    private volatile int status;
+    private volatile String body;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        requests.set(0);
+        concurrent.set(0);
+        maxConcurrent.set(0);
+        release = new CountDownLatch(0);
+        delay = Duration.ZERO;
+        status = 200;
+        body = "[{\"lat\":\"42.3601\",\"lon\":\"-71.0589\"}]";
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/search", this::handle);
+        server.start();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    public void testParsesFirstResult() {
+        Optional<double[]> result = client(Duration.ofSeconds(5), 2, 10).lookup("boston, ma").join();
+
+        assertTrue(result.isPresent());
+        assertEquals(result.get()[0], 42.3601);
+        assertEquals(result.get()[1], -71.0589);
+    }
+
+    @Test
+    public void testEmptyResultIsEmpty() {
+        body = "[]";
+
+        assertTrue(client(Duration.ofSeconds(5), 2, 10).lookup("nowhere").join().isEmpty());
+    }
+
+    @Test
+    public void testConcurrentLookupsForSameQueryShareOneCall() throws Exception {
+        release = new CountDownLatch(1);
+        GeocodingClient client = client(Duration.ofSeconds(5), 2, 10);
+
+        List<CompletableFuture<Optional<double[]>>> lookups = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            lookups.add(client.lookup("boston, ma"));
+        }
+        awaitRequests(1);
+        release.countDown();
+
+        for (CompletableFuture<Optional<double[]>> lookup : lookups) {
+            assertEquals(lookup.get(5, TimeUnit.SECONDS).orElseThrow()[0], 42.3601);
+        }
+        assertEquals(requests.get(), 1);
+        assertEquals(client.inFlight(), 0);
+
+        // Once completed, a later lookup goes out again (the service cache sits above this)
+        client.lookup("boston, ma").get(5, TimeUnit.SECONDS);
+        assertEquals(requests.get(), 2);
+    }
+
+    @Test
+    public void testCancellingOneCallerDoesNotCancelOthers() throws Exception {
+        release = new CountDownLatch(1);
+        GeocodingClient client = client(Duration.ofSeconds(5), 2, 10);
+
+        CompletableFuture<Optional<double[]>> first = client.lookup("boston, ma");
+        CompletableFuture<Optional<double[]>> second = client.lookup("boston, ma");
+        first.cancel(true);
+        release.countDown();
+
+        assertTrue(second.get(5, TimeUnit.SECONDS).isPresent());
+    }
+
+    @Test
+    public void testLimitsConcurrentRemoteCalls() throws Exception {
+        release = new CountDownLatch(1);
+        GeocodingClient client = client(Duration.ofSeconds(5), 2, 10);
+
+        List<CompletableFuture<Optional<double[]>>> lookups = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            lookups.add(client.lookup("address " + i));
+        }
+        awaitRequests(2);
+        Thread.sleep(100);
+        assertEquals(requests.get(), 2);
+        release.countDown();
+
+        for (CompletableFuture<Optional<double[]>> lookup : lookups) {
+            assertTrue(lookup.get(5, TimeUnit.SECONDS).isPresent());
+        }
+        assertEquals(requests.get(), 6);
+        assertEquals(maxConcurrent.get(), 2);
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        release = new CountDownLatch(1);
+        GeocodingClient client = client(Duration.ofSeconds(5), 1, 1);
+
+        client.lookup("a");
+        client.lookup("b");
+        CompletableFuture<Optional<double[]>> rejected = client.lookup("c");
+
+        assertCause(rejected, RejectedExecutionException.class);
+    }
+
+    @Test
+    public void testSlowResponseTimesOut() {
+        delay = Duration.ofSeconds(2);
+        GeocodingClient client = client(Duration.ofMillis(200), 2, 10);
+
+        long start = System.nanoTime();
+        assertCause(client.lookup("slow"), HttpTimeoutException.class);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test
+    public void testServerErrorFails() {
+        status = 503;
+
+        assertCause(client(Duration.ofSeconds(5), 2, 10).lookup("boston"), ExternalServiceException.class);
+    }
+
+    @Test
+    public void testOpenCircuitFailsFastUntilTrialSucceeds() throws Exception {
+        status = 503;
+        GeocodingClient client = new GeocodingClient("http://localhost:" + server.getAddress().getPort(),
+                Duration.ofSeconds(1), Duration.ofSeconds(5), 2, 10, 2, Duration.ofMillis(200));
+
+        assertCause(client.lookup("a"), ExternalServiceException.class);
+        assertCause(client.lookup("b"), ExternalServiceException.class);
+        assertEquals(client.circuitState(), CircuitBreaker.State.OPEN);
+
+        assertCause(client.lookup("c"), GeocodingClient.CircuitOpenException.class);
+        assertEquals(requests.get(), 2);
+
+        Thread.sleep(250);
+        status = 200;
+        assertTrue(client.lookup("d").get(5, TimeUnit.SECONDS).isPresent());
+        assertEquals(client.circuitState(), CircuitBreaker.State.CLOSED);
+        assertEquals(requests.get(), 3);
+    }
+
+    private GeocodingClient client(Duration readTimeout, int maxConcurrent, int maxQueued) {
+        return new GeocodingClient("http://localhost:" + server.getAddress().getPort(),
+                Duration.ofSeconds(1), readTimeout, maxConcurrent, maxQueued, 100, Duration.ofMinutes(1));
+    }
+
+    private void awaitRequests(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requests.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(requests.get(), expected);
+    }
+
+    private static void assertCause(CompletableFuture<?> future, Class<? extends Throwable> expected) {
+        try {
+            future.join();
+            fail("Expected " + expected.getSimpleName());
+        } catch (CompletionException e) {
+            assertTrue(expected.isInstance(e.getCause()), "Unexpected cause: " + e.getCause());
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+        try {
+            release.await(10, TimeUnit.SECONDS);
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            concurrent.decrementAndGet();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -1,84 +1,243 @@
 package com.rental.car.common;
 
-import org.mockito.MockitoAnnotations;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.testng.Assert.*;
 
 public class GeocodingServiceTest {
 
+    private static final String BOSTON = "[{\"lat\":\"42.3601\",\"lon\":\"-71.0589\"}]";
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicReference<String> lastQuery = new AtomicReference<>();
+    private volatile int status;
+    private volatile String body;
+    private volatile long delayMillis;
+    private SimpleMeterRegistry registry;
     private GeocodingService geocodingService;
 
     @BeforeMethod
-    public void setUp() {
-        MockitoAnnotations.openMocks(this);
-        geocodingService = new GeocodingService();
+    public void setUp() throws IOException {
+        requests.set(0);
+        status = 200;
+        body = BOSTON;
+        delayMillis = 0;
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/search", exchange -> {
+            requests.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            lastQuery.set(exchange.getRequestURI().getRawQuery());
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        registry = new SimpleMeterRegistry();
+        geocodingService = service(client(stubUrl() + "/", 3), new Gazetteer(""), registry);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        server.stop(0);
     }
 
     @Test
-    public void testGetCoordinatesReturnsArray() {
-        double[] coordinates = geocodingService.getCoordinates("Los Angeles, CA");
+    public void testHitFromConfiguredBaseUrl() {
+        GeocodingResult result = geocodingService.geocode("1 Main St, Boston");
 
-        assertNotNull(coordinates);
-        assertEquals(coordinates.length, 2);
+        assertEquals(result, new GeocodingResult.Hit(42.3601, -71.0589));
+        assertTrue(result.cacheable());
+        assertTrue(lastQuery.get().contains("format=json"));
+        assertEquals(count("hit"), 1.0);
     }
 
     @Test
-    public void testGetCoordinatesWithEmptyAddress() {
-        double[] coordinates = geocodingService.getCoordinates("");
+    public void testEmptyResultIsMiss() {
+        body = "[]";
+
+        GeocodingResult result = geocodingService.geocode("INVALID_ADDRESS_THAT_DOES_NOT_EXIST_12345");
 
-        assertNotNull(coordinates);
-        assertEquals(coordinates.length, 2);
-        // Should return default [0.0, 0.0] on failure
-        assertEquals(coordinates[0], 0.0);
-        assertEquals(coordinates[1], 0.0);
+        assertEquals(result, new GeocodingResult.Miss());
+        assertTrue(result.cacheable());
+        assertEquals(count("miss"), 1.0);
     }
 
     @Test
-    public void testGetCoordinatesWithInvalidAddress() {
-        double[] coordinates = geocodingService.getCoordinates("INVALID_ADDRESS_THAT_DOES_NOT_EXIST_12345");
+    public void testEmptyAndNullAddressesAreMissesWithoutRemoteCall() {
+        assertEquals(geocodingService.geocode(""), new GeocodingResult.Miss());
+        assertEquals(geocodingService.geocode(null), new GeocodingResult.Miss());
+        assertEquals(requests.get(), 0);
+    }
+
+    @Test
+    public void testErrorResponseIsUncacheableFailure() {
+        status = 500;
+
+        GeocodingResult result = geocodingService.geocode("Boston");
 
-        assertNotNull(coordinates);
-        assertEquals(coordinates.length, 2);
-        // Should return default [0.0, 0.0] on failure or no results
-        assertEquals(coordinates[0], 0.0);
-        assertEquals(coordinates[1], 0.0);
+        assertTrue(result instanceof GeocodingResult.Failure);
+        assertFalse(result.cacheable());
+        assertEquals(count("failure"), 1.0);
     }
 
     @Test
-    public void testGetCoordinatesWithNullAddress() {
-        double[] coordinates = geocodingService.getCoordinates(null);
+    public void testUnreachableGeocoderIsFailure() {
+        GeocodingService unreachable = service(client("http://localhost:1", 3), new Gazetteer(""), new SimpleMeterRegistry());
 
-        assertNotNull(coordinates);
-        assertEquals(coordinates.length, 2);
-        // Should handle null gracefully and return default [0.0, 0.0]
-        assertEquals(coordinates[0], 0.0);
-        assertEquals(coordinates[1], 0.0);
+        assertTrue(unreachable.geocode("Boston") instanceof GeocodingResult.Failure);
     }
 
     @Test
-    public void testCoordinatesArrayStructure() {
-        double[] coordinates = geocodingService.getCoordinates("Test Address");
+    public void testCallerGivesUpAfterDeadline() {
+        delayMillis = 1500;
+        GeocodingService impatient = new GeocodingService(client(stubUrl(), 3), new Gazetteer(""), registry,
+                Duration.ofMillis(100), Duration.ofMillis(100));
+
+        long started = System.nanoTime();
+        GeocodingResult result = impatient.geocode("Boston");
+
+        assertTrue(result instanceof GeocodingResult.Failure);
+        assertFalse(result.cacheable());
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).compareTo(Duration.ofSeconds(1)) < 0);
+        assertEquals(count("timed_out"), 1.0);
+    }
+
+    @Test
+    public void testOpenCircuitShortCircuitsWithoutRemoteCall() {
+        status = 503;
+        for (int i = 0; i < 3; i++) {
+            geocodingService.geocode("Boston " + i);
+        }
+        assertEquals(requests.get(), 3);
+        assertEquals(registry.get("geocoding.circuit.open").gauge().value(), 1.0);
+
+        status = 200;
+        GeocodingResult result = geocodingService.geocode("Boston");
+
+        assertTrue(result instanceof GeocodingResult.Failure);
+        assertEquals(requests.get(), 3);
+        assertEquals(count("short_circuited"), 1.0);
+        assertEquals(count("failure"), 3.0);
+    }
 
-        assertNotNull(coordinates);
-        assertEquals(coordinates.length, 2);
-        // First element is latitude, second is longitude
-        assertTrue(coordinates[0] >= -90.0 && coordinates[0] <= 90.0);
-        assertTrue(coordinates[1] >= -180.0 && coordinates[1] <= 180.0);
+    @Test
+    public void testMissResetsFailureCount() {
+        status = 503;
+        geocodingService.geocode("a");
+        geocodingService.geocode("b");
+        status = 200;
+        body = "[]";
+        geocodingService.geocode("c");
+        status = 503;
+        geocodingService.geocode("d");
+        geocodingService.geocode("e");
+
+        assertEquals(registry.get("geocoding.circuit.open").gauge().value(), 0.0);
+    }
+
+    @Test
+    public void testNormalizeCollapsesCaseAndWhitespace() {
+        assertEquals(GeocodingService.normalize("  Boston,   MA "), "boston, ma");
+        assertEquals(GeocodingService.normalize("BOSTON, MA"), "boston, ma");
+        assertEquals(GeocodingService.normalize(null), "");
     }
 
     @Test
-    public void testMultipleCallsWithSameAddress() {
-        String address = "Test Location";
-        
-        double[] coordinates1 = geocodingService.getCoordinates(address);
-        double[] coordinates2 = geocodingService.getCoordinates(address);
-
-        assertNotNull(coordinates1);
-        assertNotNull(coordinates2);
-        // Should return same results (cached)
-        assertEquals(coordinates1[0], coordinates2[0]);
-        assertEquals(coordinates1[1], coordinates2[1]);
+    public void testGazetteerAnswersWithoutRemoteCall() throws Exception {
+        GeocodingService service = service(client("http://localhost:1", 3), sampleGazetteer(), registry);
+
+        assertEquals(service.geocode("Boston, MA"), new GeocodingResult.Hit(42.3601, -71.0589));
+        assertEquals(count("local"), 1.0);
+    }
+
+    @Test
+    public void testCachesHitsAndMissesButNotFailuresOrGazetteerHits() throws Exception {
+        Gazetteer gazetteer = sampleGazetteer();
+        String url = stubUrl();
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.register(CachingTestConfig.class);
+            context.registerBean("gazetteer", Gazetteer.class, () -> gazetteer);
+            context.registerBean(GeocodingService.class,
+                    () -> service(client(url, 5), gazetteer, new SimpleMeterRegistry()));
+            context.refresh();
+            GeocodingService service = context.getBean(GeocodingService.class);
+            Cache cache = context.getBean(CacheManager.class).getCache(CacheConfig.GEOCODING_CACHE);
+
+            service.geocode("Boston, MA");
+            service.geocode("1 Main St, Boston");
+            body = "[]";
+            service.geocode("Nowhere");
+            status = 500;
+            service.geocode("Down Town");
+
+            assertNull(cache.get("boston, ma"));
+            assertEquals(cache.get("1 main st, boston").get(), new GeocodingResult.Hit(42.3601, -71.0589));
+            assertEquals(cache.get("nowhere").get(), new GeocodingResult.Miss());
+            assertNull(cache.get("down town"));
+
+            service.geocode("1 Main St, Boston");
+            service.geocode("Down Town");
+            assertEquals(requests.get(), 4);
+        }
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingTestConfig {
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(CacheConfig.GEOCODING_CACHE);
+        }
+    }
+
+    private double count(String outcome) {
+        return registry.get("geocoding.lookups").tag("outcome", outcome).counter().count();
+    }
+
+    private String stubUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private Gazetteer sampleGazetteer() throws URISyntaxException {
+        return new Gazetteer(Paths.get(getClass().getResource("/gazetteer/sample.tsv").toURI()).toString());
+    }
+
+    private static GeocodingService service(GeocodingClient client, Gazetteer gazetteer, MeterRegistry registry) {
+        return new GeocodingService(client, gazetteer, registry, Duration.ofSeconds(1), Duration.ofSeconds(2));
+    }
+
+    private static GeocodingClient client(String baseUrl, int failureThreshold) {
+        return new GeocodingClient(baseUrl, Duration.ofSeconds(1), Duration.ofSeconds(2), 2, 50,
+                failureThreshold, Duration.ofMinutes(1));
     }
 }
@@ -0,0 +1,138 @@
+package com.rental.car.common;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.read.ListAppender;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+public class SqlLogSamplerTest {
+
+    private LoggerContext context;
+    private ListAppender<ILoggingEvent> events;
+    private Logger sql;
+    private Logger bind;
+    private Logger app;
+
+    @BeforeMethod
+    public void setUp() {
+        context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        events = new ListAppender<>();
+        events.setContext(context);
+        events.start();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(events);
+        sql = context.getLogger("org.hibernate.SQL");
+        sql.setLevel(Level.DEBUG);
+        bind = context.getLogger("org.hibernate.orm.jdbc.bind");
+        bind.setLevel(Level.TRACE);
+        app = context.getLogger("com.rental.car.reservation.ReservationService");
+        app.setLevel(Level.DEBUG);
+    }
+
+    @Test
+    public void testKeepsEveryStatementAtRateOne() {
+        sampler(1);
+
+        logStatements(5);
+
+        assertEquals(events.list.size(), 15);
+    }
+
+    @Test
+    public void testKeepsOneInNStatementsWithTheirBindings() {
+        sampler(4);
+
+        logStatements(8);
+
+        List<String> messages = events.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+        assertEquals(messages, List.of(
+                "select 0", "binding 0/1", "binding 0/2",
+                "select 4", "binding 4/1", "binding 4/2"));
+    }
+
+    @Test
+    public void testLeavesOtherLoggersAlone() {
+        sampler(100);
+
+        logStatements(3);
+        app.debug("Created reservation {}", 1L);
+        app.info("Started");
+
+        assertEquals(events.list.stream().filter(e -> e.getLoggerName().equals(app.getName())).count(), 2);
+    }
+
+    @Test
+    public void testDisabledStatementLoggerDoesNotAdvanceSampling() {
+        sampler(2);
+        sql.setLevel(Level.INFO);
+        sql.debug("select skipped");
+
+        sql.setLevel(Level.DEBUG);
+        logStatements(2);
+
+        assertEquals(events.list.get(0).getFormattedMessage(), "select 0");
+        assertEquals(events.list.size(), 3);
+    }
+
+    @Test
+    public void testSamplesStatementsLoggedThroughJbossLogging() {
+        // Hibernate logs through jboss-logging, which checks the level before every statement
+        LoggerContext global = (LoggerContext) org.slf4j.LoggerFactory.getILoggerFactory();
+        Logger statementLogger = global.getLogger("org.hibernate.SQL");
+        Level previousLevel = statementLogger.getLevel();
+        boolean previousAdditive = statementLogger.isAdditive();
+        ListAppender<ILoggingEvent> captured = new ListAppender<>();
+        captured.setContext(global);
+        captured.start();
+        statementLogger.addAppender(captured);
+        statementLogger.setAdditive(false);
+        statementLogger.setLevel(Level.DEBUG);
+        SqlLogSampler sampler = new SqlLogSampler();
+        sampler.setContext(global);
+        sampler.setSampleRate(4);
+        sampler.start();
+        global.addTurboFilter(sampler);
+        try {
+            org.jboss.logging.Logger hibernateLog = org.jboss.logging.Logger.getLogger("org.hibernate.SQL");
+            for (int i = 0; i < 8; i++) {
+                if (hibernateLog.isDebugEnabled()) {
+                    hibernateLog.debug("select " + i);
+                }
+            }
+
+            assertEquals(captured.list.stream().map(ILoggingEvent::getFormattedMessage).toList(),
+                    List.of("select 0", "select 4"));
+        } finally {
+            global.getTurboFilterList().remove(sampler);
+            statementLogger.detachAppender(captured);
+            statementLogger.setAdditive(previousAdditive);
+            statementLogger.setLevel(previousLevel);
+        }
+    }
+
+    private void sampler(int rate) {
+        SqlLogSampler sampler = new SqlLogSampler();
+        sampler.setContext(context);
+        sampler.setSampleRate(rate);
+        sampler.start();
+        context.addTurboFilter(sampler);
+    }
+
+    private void logStatements(int count) {
+        for (int i = 0; i < count; i++) {
+            sql.debug("select {}", i);
+            bind.trace("binding {}/{}", i, 1);
+            bind.trace("binding {}/{}", i, 2);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.rental.car.common;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public class TwoLevelCacheManagerTest {
+
+    @Mock
+    private StringRedisTemplate redis;
+
+    private ConcurrentMapCacheManager remote;
+    private TwoLevelCacheManager cacheManager;
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        remote = new ConcurrentMapCacheManager("geocoding", "other");
+        cacheManager = new TwoLevelCacheManager(remote,
+                Map.of("geocoding", new TwoLevelCacheManager.LocalSpec(100, Duration.ofMinutes(5))), redis);
+    }
+
+    @Test
+    public void testOnlyConfiguredCachesGetLocalLevel() {
+        assertTrue(cacheManager.getCache("geocoding") instanceof TwoLevelCache);
+        assertSame(cacheManager.getCache("other"), remote.getCache("other"));
+        assertSame(cacheManager.getCache("geocoding"), cacheManager.getCache("geocoding"));
+    }
+
+    @Test
+    public void testLocalHitSkipsRemote() {
+        Cache cache = cacheManager.getCache("geocoding");
+        cache.put("boston", new double[]{42.36, -71.06});
+
+        // Removing the remote copy directly proves the next read is served from L1
+        remote.getCache("geocoding").evict("boston");
+
+        assertNotNull(cache.get("boston"));
+    }
+
+    @Test
+    public void testRemoteHitFillsLocal() {
+        remote.getCache("geocoding").put("pittsburgh", "coords");
+        Cache cache = cacheManager.getCache("geocoding");
+
+        assertEquals(cache.get("pittsburgh", String.class), "coords");
+        remote.getCache("geocoding").clear();
+        assertEquals(cache.get("pittsburgh", String.class), "coords");
+    }
+
+    @Test
+    public void testValueLoaderRunsOnceAcrossLevels() {
+        Cache cache = cacheManager.getCache("geocoding");
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals(cache.get("nyc", () -> "v" + calls.incrementAndGet()), "v1");
+        assertEquals(cache.get("nyc", () -> "v" + calls.incrementAndGet()), "v1");
+        assertEquals(calls.get(), 1);
+    }
+
+    @Test
+    public void testWritesPublishInvalidation() {
+        Cache cache = cacheManager.getCache("geocoding");
+
+        cache.put("boston", "a");
+        cache.evict("boston");
+        cache.clear();
+
+        verify(redis, times(3)).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), anyString());
+    }
+
+    @Test
+    public void testRemoteInvalidationDropsLocalCopy() {
+        Cache cache = cacheManager.getCache("geocoding");
+        cache.put("boston", "a");
+        remote.getCache("geocoding").evict("boston");
+
+        cacheManager.onMessage(message("other-node|geocoding|boston"), null);
+
+        assertNull(cache.get("boston"));
+    }
+
+    @Test
+    public void testRemoteClearDropsAllLocalEntries() {
+        Cache cache = cacheManager.getCache("geocoding");
+        cache.put("boston", "a");
+        cache.put("nyc", "b");
+        remote.getCache("geocoding").clear();
+
+        cacheManager.onMessage(message("other-node|geocoding|"), null);
+
+        assertNull(cache.get("boston"));
+        assertNull(cache.get("nyc"));
+    }
+
+    @Test
+    public void testOwnInvalidationIsIgnored() {
+        Cache cache = cacheManager.getCache("geocoding");
+        cache.put("boston", "a");
+        remote.getCache("geocoding").evict("boston");
+
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(redis).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), published.capture());
+        cacheManager.onMessage(message(published.getValue()), null);
+
+        assertNotNull(cache.get("boston"));
+    }
+
+    @Test
+    public void testPublishFailureDoesNotFailWrite() {
+        when(redis.convertAndSend(anyString(), anyString())).thenThrow(new IllegalStateException("down"));
+        Cache cache = cacheManager.getCache("geocoding");
+
+        cache.put("boston", "a");
+
+        assertEquals(remote.getCache("geocoding").get("boston").get(), "a");
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(TwoLevelCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,42 @@
+package com.rental.car.common;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+
+import static org.testng.Assert.*;
+
+public class VirtualThreadDiagnosticsTest {
+
+    @Test
+    public void testRegistersPinnedCounter() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        new VirtualThreadDiagnostics(Duration.ofMillis(20), registry);
+
+        assertNotNull(registry.find("jvm.threads.virtual.pinned").counter());
+        assertEquals(registry.get("jvm.threads.virtual.pinned").counter().count(), 0.0);
+    }
+
+    @Test
+    public void testRecordsOnlyWhereVirtualThreadsExist() {
+        VirtualThreadDiagnostics diagnostics = new VirtualThreadDiagnostics(Duration.ofMillis(20),
+                new SimpleMeterRegistry());
+        try {
+            diagnostics.start();
+            diagnostics.start();
+
+            assertEquals(diagnostics.isRecording(), VirtualThreadDiagnostics.supported());
+        } finally {
+            diagnostics.stop();
+        }
+        assertFalse(diagnostics.isRecording());
+        diagnostics.stop();
+    }
+
+    @Test
+    public void testDescribeWithoutStackTrace() {
+        assertEquals(VirtualThreadDiagnostics.describe(null), " <no stack trace>");
+    }
+}
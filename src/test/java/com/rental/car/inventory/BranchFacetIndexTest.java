@@ -0,0 +1,128 @@
+package com.rental.car.inventory;
+
+import com.rental.car.common.TwoLevelCacheManager;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public class BranchFacetIndexTest {
+
+    private StringRedisTemplate redis;
+    private BranchFacetIndex index;
+
+    @BeforeMethod
+    public void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        index = new BranchFacetIndex(redis);
+        index.rebuild(List.of(
+                new CarFacet("BOS", CarType.SUV, "Toyota", 2022, 2),
+                new CarFacet("BOS", CarType.SEDAN, "Toyota", 2024, 1),
+                new CarFacet("BOS", CarType.SEDAN, "Honda", 2023, 3),
+                new CarFacet("PIT", CarType.VAN, "Kia", 2021, 1)
+        ));
+    }
+
+    @Test
+    public void testListingsMatchDistinctQueryOrdering() {
+        assertEquals(index.types("BOS"), List.of(CarType.SEDAN, CarType.SUV));
+        assertEquals(index.makes("BOS", null), List.of("Honda", "Toyota"));
+        assertEquals(index.makes("BOS", CarType.SUV), List.of("Toyota"));
+        assertEquals(index.years("BOS", null, null), List.of(2024, 2023, 2022));
+        assertEquals(index.years("BOS", null, "Toyota"), List.of(2024, 2022));
+        assertEquals(index.years("BOS", CarType.SEDAN, "Toyota"), List.of(2024));
+    }
+
+    @Test
+    public void testUnknownBranchIsEmpty() {
+        assertTrue(index.types("NOPE").isEmpty());
+        assertTrue(index.makes("NOPE", CarType.SUV).isEmpty());
+        assertTrue(index.years("NOPE", null, null).isEmpty());
+        assertEquals(index.facets("NOPE").availableCars(), 0);
+    }
+
+    @Test
+    public void testFacetTreeCarriesCounts() {
+        BranchFacets facets = index.facets("BOS");
+
+        assertEquals(facets.availableCars(), 6);
+        BranchFacets.TypeFacet sedan = facets.types().get(0);
+        assertEquals(sedan.type(), CarType.SEDAN);
+        assertEquals(sedan.count(), 4);
+        assertEquals(sedan.makes().get(0), new BranchFacets.MakeFacet("Honda", 3,
+                List.of(new BranchFacets.YearFacet(2023, 3))));
+    }
+
+    @Test
+    public void testApplyMovesCarBetweenFacets() {
+        CarFacet before = new CarFacet("BOS", CarType.SEDAN, "Toyota", 2024, 1);
+        CarFacet after = new CarFacet("PIT", CarType.SEDAN, "Toyota", 2024, 1);
+
+        index.apply(before, after);
+
+        assertEquals(index.makes("BOS", CarType.SEDAN), List.of("Honda"));
+        assertEquals(index.types("PIT"), List.of(CarType.SEDAN, CarType.VAN));
+    }
+
+    @Test
+    public void testEmptyLevelsArePruned() {
+        index.apply(new CarFacet("PIT", CarType.VAN, "Kia", 2021, 1), null);
+
+        assertTrue(index.types("PIT").isEmpty());
+        assertEquals(index.facets("PIT").types(), List.of());
+    }
+
+    @Test
+    public void testApplyNewCar() {
+        index.apply(null, new CarFacet("BOS", CarType.VAN, "Ford", 2020, 1));
+
+        assertEquals(index.types("BOS"), List.of(CarType.SEDAN, CarType.SUV, CarType.VAN));
+        assertEquals(index.facets("BOS").availableCars(), 7);
+    }
+
+    @Test
+    public void testChangesAreAnnouncedAndAppliedByOtherNodes() {
+        BranchFacetIndex other = new BranchFacetIndex(redis);
+        other.rebuild(List.of(new CarFacet("BOS", CarType.SUV, "Toyota", 2022, 2)));
+
+        // A make with the separators in it, moved to another branch
+        index.apply(new CarFacet("BOS", CarType.SUV, "Toyota", 2022, 1),
+                new CarFacet("PIT", CarType.SUV, "Odd, Make; Co|", 2022, 1));
+        other.onMessage(message(lastAnnouncement()), null);
+        assertEquals(other.facets("BOS").availableCars(), 1);
+        assertEquals(other.makes("PIT", CarType.SUV), List.of("Odd, Make; Co|"));
+
+        // A car leaving the filters
+        index.apply(new CarFacet("BOS", CarType.SUV, "Toyota", 2022, 1), null);
+        other.onMessage(message(lastAnnouncement()), null);
+        assertTrue(other.types("BOS").isEmpty());
+    }
+
+    @Test
+    public void testIgnoresOwnAnnouncements() {
+        index.apply(null, new CarFacet("PIT", CarType.VAN, "Kia", 2021, 1));
+
+        index.onMessage(message(lastAnnouncement()), null);
+
+        assertEquals(index.facets("PIT").availableCars(), 2);
+    }
+
+    private String lastAnnouncement() {
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(redis, atLeastOnce()).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), body.capture());
+        return body.getValue();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(TwoLevelCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,142 @@
+package com.rental.car.inventory;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+public class BranchGeoIndexTest {
+
+    private BranchGeoIndex index;
+
+    @BeforeMethod
+    public void setUp() {
+        index = new BranchGeoIndex();
+        index.rebuild(List.of(
+                location(1L, "BOS", 42.3656, -71.0096),
+                location(2L, "PVD", 41.7240, -71.4283),
+                location(3L, "NYC", 40.7128, -74.0060),
+                location(4L, "LAX", 33.9416, -118.4085)
+        ));
+    }
+
+    @Test
+    public void testFindWithinReturnsNearestFirst() {
+        List<BranchGeoIndex.BranchDistance> result = index.findWithin(42.36, -71.06, 100.0);
+
+        assertEquals(result.stream().map(d -> d.branch().code()).toList(), List.of("BOS", "PVD"));
+        assertTrue(result.get(0).distanceKm() < result.get(1).distanceKm());
+    }
+
+    @Test
+    public void testDistanceMatchesKnownValue() {
+        // One degree along the meridian and along the equator on WGS84
+        assertEquals(BranchGeoIndex.distanceKm(0.0, 0.0, 1.0, 0.0), 110.574, 0.001);
+        assertEquals(BranchGeoIndex.distanceKm(0.0, 0.0, 0.0, 1.0), 111.319, 0.001);
+        assertEquals(BranchGeoIndex.distanceKm(42.3656, -71.0096, 42.3656, -71.0096), 0.0);
+        // Great-circle fallback for antipodal points
+        assertEquals(BranchGeoIndex.distanceKm(0.0, 0.0, 0.0, 180.0), BranchGeoIndex.greatCircleKm(0.0, 0.0, 0.0, 180.0));
+    }
+
+    @Test
+    public void testRadiusIsMeasuredOnTheSpheroid() {
+        // 110.57 km away on WGS84 but 111.20 km on the mean-radius sphere
+        index.rebuild(List.of(location(9L, "NORTH", 1.0, 0.0)));
+
+        List<BranchGeoIndex.BranchDistance> result = index.findWithin(0.0, 0.0, 110.8);
+
+        assertEquals(result.stream().map(d -> d.branch().code()).toList(), List.of("NORTH"));
+        assertEquals(result.get(0).distanceKm(), 110.574, 0.001);
+    }
+
+    @Test
+    public void testRadiusCrossesCellBoundaries() {
+        // Point just west of the -71 meridian and south of the 42nd parallel still reaches BOS
+        List<BranchGeoIndex.BranchDistance> result = index.findWithin(41.99, -71.01, 50.0);
+
+        assertEquals(result.stream().map(d -> d.branch().code()).toList(), List.of("BOS", "PVD"));
+    }
+
+    @Test
+    public void testFindWithinCrossesAntimeridian() {
+        index.upsert(location(5L, "FJI", -17.75, 179.9));
+
+        List<BranchGeoIndex.BranchDistance> result = index.findWithin(-17.75, -179.9, 50.0);
+
+        assertEquals(result.size(), 1);
+        assertEquals(result.get(0).branch().code(), "FJI");
+    }
+
+    @Test
+    public void testUpsertReplacesAndRemoveDrops() {
+        index.upsert(location(1L, "BOS", 40.7130, -74.0050));
+        index.remove("PVD");
+
+        assertTrue(index.findWithin(42.36, -71.06, 100.0).isEmpty());
+        assertEquals(index.findWithin(40.71, -74.0, 5.0).size(), 2);
+    }
+
+    @Test
+    public void testFindNearestRanksForExactPoint() {
+        List<BranchGeoIndex.BranchDistance> result = index.findNearest(41.80, -71.40, 2);
+
+        assertEquals(result.stream().map(d -> d.branch().code()).toList(), List.of("PVD", "BOS"));
+    }
+
+    @Test
+    public void testFindNearestMatchesBruteForceAcrossCells() {
+        Random random = new Random(7);
+        List<BranchLocation> branches = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            branches.add(location((long) i, "B" + i, 40 + random.nextDouble() * 2, -75 + random.nextDouble() * 2));
+        }
+        index.rebuild(branches);
+
+        for (int i = 0; i < 500; i++) {
+            // Points cluster in a few cells so cached candidates are reused for different points
+            double lat = 41 + random.nextInt(3) * 0.01 + random.nextDouble() * 0.01;
+            double lon = -74 + random.nextInt(3) * 0.01 + random.nextDouble() * 0.01;
+            List<String> expected = branches.stream()
+                    .sorted(Comparator.comparingDouble(
+                            b -> BranchGeoIndex.distanceKm(lat, lon, b.latitude(), b.longitude())))
+                    .limit(5)
+                    .map(BranchLocation::code)
+                    .toList();
+
+            assertEquals(index.findNearest(lat, lon, 5).stream().map(d -> d.branch().code()).toList(), expected);
+        }
+    }
+
+    @Test
+    public void testFindNearestSeesBranchChanges() {
+        assertEquals(index.findNearest(34.0, -118.4, 1).get(0).branch().code(), "LAX");
+
+        index.upsert(location(6L, "SMO", 34.0158, -118.4513));
+
+        assertEquals(index.findNearest(34.0, -118.4, 1).get(0).branch().code(), "SMO");
+    }
+
+    @Test
+    public void testFindNearestWithFewerBranchesThanLimit() {
+        assertEquals(index.findNearest(0.0, 0.0, 10).size(), 4);
+    }
+
+    @Test
+    public void testNotLoadedUntilRebuilt() {
+        BranchGeoIndex empty = new BranchGeoIndex();
+        empty.upsert(location(1L, "BOS", 42.3656, -71.0096));
+
+        assertFalse(empty.isLoaded());
+        assertTrue(index.isLoaded());
+    }
+
+    private static BranchLocation location(Long id, String code, double lat, double lon) {
+        return new BranchLocation(id, code, code + " Branch", "555-0000", "1 Main St", "City", "ST", "USA",
+                "00000", lat, lon, false);
+    }
+}
@@ -0,0 +1,203 @@
+package com.rental.car.inventory;
+
+import com.rental.car.common.TwoLevelCacheManager;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public class CarAvailabilityIndexTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 3, 1);
+
+    private StringRedisTemplate redis;
+    private CarAvailabilityIndex index;
+
+    @BeforeMethod
+    public void setUp() {
+        redis = mock(StringRedisTemplate.class);
+        index = new CarAvailabilityIndex(redis);
+        index.rebuild(START, List.of(
+                new CarBooking(1L, START.plusDays(5), START.plusDays(10)),
+                new CarBooking(2L, START.plusDays(20), START.plusDays(22))
+        ));
+    }
+
+    @Test
+    public void testNotLoadedIndexCannotAnswer() {
+        CarAvailabilityIndex empty = new CarAvailabilityIndex(redis);
+
+        assertFalse(empty.isLoaded());
+        assertTrue(empty.findBookedCarIds(START, START.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    public void testOverlappingRangeReturnsBookedCar() {
+        Optional<Set<Long>> booked = index.findBookedCarIds(START.plusDays(8), START.plusDays(12));
+
+        assertTrue(index.isLoaded());
+        assertTrue(booked.isPresent());
+        assertEquals(booked.get(), Set.of(1L));
+    }
+
+    @Test
+    public void testBackToBackRangesDoNotConflict() {
+        // Bookings are [pickup, return): a car returned on day 10 can be picked up on day 10
+        assertEquals(index.findBookedCarIds(START.plusDays(10), START.plusDays(12)).orElseThrow(), Set.of());
+        assertEquals(index.findBookedCarIds(START.plusDays(3), START.plusDays(5)).orElseThrow(), Set.of());
+    }
+
+    @Test
+    public void testMarkBookedAndReleased() {
+        CarBooking booking = new CarBooking(3L, START.plusDays(30), START.plusDays(33));
+
+        index.markBooked(booking);
+        assertEquals(index.findBookedCarIds(START.plusDays(32), START.plusDays(40)).orElseThrow(), Set.of(3L));
+
+        index.markReleased(booking);
+        assertEquals(index.findBookedCarIds(START.plusDays(32), START.plusDays(40)).orElseThrow(), Set.of());
+    }
+
+    @Test
+    public void testReleaseAppliedAfterOverlappingBookingKeepsTheNewBooking() {
+        // Reservation 1 is cancelled and the car rebooked for overlapping days, with the
+        // rebooking reaching the index first
+        CarBooking cancelled = new CarBooking(1L, START.plusDays(5), START.plusDays(10));
+        CarBooking rebooked = new CarBooking(1L, START.plusDays(8), START.plusDays(12));
+
+        index.markBooked(rebooked);
+        index.markReleased(cancelled);
+
+        assertEquals(index.findBookedCarIds(START.plusDays(5), START.plusDays(8)).orElseThrow(), Set.of());
+        assertEquals(index.findBookedCarIds(START.plusDays(8), START.plusDays(9)).orElseThrow(), Set.of(1L));
+        assertEquals(index.findBookedCarIds(START.plusDays(11), START.plusDays(12)).orElseThrow(), Set.of(1L));
+    }
+
+    @Test
+    public void testRepeatedBookingIsReleasedOnce() {
+        CarBooking booking = new CarBooking(1L, START.plusDays(5), START.plusDays(10));
+
+        index.markBooked(booking);
+        index.markReleased(booking);
+
+        assertEquals(index.findBookedCarIds(START.plusDays(5), START.plusDays(10)).orElseThrow(), Set.of());
+    }
+
+    @Test
+    public void testRangeOutsideHorizonCannotBeAnswered() {
+        assertTrue(index.findBookedCarIds(START.minusDays(1), START.plusDays(2)).isEmpty());
+        assertTrue(index.findBookedCarIds(START.plusDays(360), START.plusDays(CarAvailabilityIndex.HORIZON_DAYS + 1)).isEmpty());
+        assertTrue(index.findBookedCarIds(START.plusDays(360), START.plusDays(CarAvailabilityIndex.HORIZON_DAYS)).isPresent());
+    }
+
+    @Test
+    public void testBookingsBeyondHorizonAreClamped() {
+        index.markBooked(new CarBooking(4L, START.plusDays(360), START.plusDays(400)));
+
+        assertEquals(index.findBookedCarIds(START.plusDays(363), START.plusDays(365)).orElseThrow(), Set.of(4L));
+    }
+
+    @Test
+    public void testRebuildReplacesPreviousState() {
+        index.rebuild(START, List.of(new CarBooking(5L, START, START.plusDays(1))));
+
+        assertEquals(index.findBookedCarIds(START, START.plusDays(30)).orElseThrow(), Set.of(5L));
+    }
+
+    @Test
+    public void testChangesDuringRebuildSurviveTheSwap() {
+        CarBooking booked = new CarBooking(6L, START.plusDays(40), START.plusDays(42));
+        CarBooking released = new CarBooking(1L, START.plusDays(5), START.plusDays(10));
+
+        // The loaded bookings predate both changes, as a query that ran before their commits would
+        index.rebuild(START, () -> {
+            index.markBooked(booked);
+            index.markReleased(released);
+            return List.of(released);
+        });
+
+        assertEquals(index.findBookedCarIds(START, START.plusDays(60)).orElseThrow(), Set.of(6L));
+    }
+
+    @Test
+    public void testChangesAfterRebuildAreNotReplayedByTheNext() {
+        CarBooking booking = new CarBooking(6L, START.plusDays(40), START.plusDays(42));
+        index.markBooked(booking);
+
+        index.rebuild(START, List.of());
+
+        assertEquals(index.findBookedCarIds(START, START.plusDays(60)).orElseThrow(), Set.of());
+    }
+
+    @Test
+    public void testFailedRebuildKeepsPreviousState() {
+        assertThrows(RedisConnectionFailureException.class, () -> index.rebuild(START, () -> {
+            throw new RedisConnectionFailureException("Connection refused");
+        }));
+        index.markBooked(new CarBooking(6L, START.plusDays(40), START.plusDays(42)));
+
+        assertEquals(index.findBookedCarIds(START, START.plusDays(60)).orElseThrow(), Set.of(1L, 2L, 6L));
+    }
+
+    @Test
+    public void testChangesAreAnnouncedAndAppliedByOtherNodes() {
+        CarAvailabilityIndex other = new CarAvailabilityIndex(redis);
+        other.rebuild(START, List.of());
+        CarBooking booking = new CarBooking(3L, START.plusDays(30), START.plusDays(33));
+
+        index.markBooked(booking);
+        other.onMessage(message(lastAnnouncement()), null);
+        assertEquals(other.findBookedCarIds(START.plusDays(32), START.plusDays(40)).orElseThrow(), Set.of(3L));
+
+        index.markReleased(booking);
+        other.onMessage(message(lastAnnouncement()), null);
+        assertEquals(other.findBookedCarIds(START.plusDays(32), START.plusDays(40)).orElseThrow(), Set.of());
+    }
+
+    @Test
+    public void testIgnoresOwnAnnouncementsAndCacheInvalidations() {
+        CarBooking booking = new CarBooking(3L, START.plusDays(30), START.plusDays(33));
+        index.markBooked(booking);
+        String own = lastAnnouncement();
+        index.markReleased(booking);
+
+        index.onMessage(message(own), null);
+        index.onMessage(message("other-node|carSearch|some-key"), null);
+
+        assertEquals(index.findBookedCarIds(START.plusDays(30), START.plusDays(40)).orElseThrow(), Set.of());
+    }
+
+    @Test
+    public void testAnnouncementFailureIsNotPropagated() {
+        doThrow(new RedisConnectionFailureException("Connection refused"))
+                .when(redis).convertAndSend(anyString(), anyString());
+
+        index.markBooked(new CarBooking(3L, START.plusDays(30), START.plusDays(33)));
+
+        assertEquals(index.findBookedCarIds(START.plusDays(30), START.plusDays(40)).orElseThrow(), Set.of(3L));
+    }
+
+    private String lastAnnouncement() {
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(redis, atLeastOnce()).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), body.capture());
+        return body.getValue();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(TwoLevelCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
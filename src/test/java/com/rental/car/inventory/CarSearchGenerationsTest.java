@@ -0,0 +1,177 @@
+package com.rental.car.inventory;
+
+import com.rental.car.common.TwoLevelCacheManager;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public class CarSearchGenerationsTest {
+
+    @Mock
+    private StringRedisTemplate redis;
+
+    @Mock
+    private ValueOperations<String, String> values;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisStringCommands stringCommands;
+
+    private CarSearchGenerations generations;
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redis.opsForValue()).thenReturn(values);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        // Run pipelined callbacks against the mocked connection
+        when(redis.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+            return List.of();
+        });
+        generations = new CarSearchGenerations(redis, Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void testKeyUsesWildcardForMissingScope() {
+        assertEquals(CarSearchGenerations.key("BOS-LOGAN", CarType.SUV), "carSearch:gen:BOS-LOGAN:SUV");
+        assertEquals(CarSearchGenerations.key("BOS-LOGAN", null), "carSearch:gen:BOS-LOGAN:*");
+        assertEquals(CarSearchGenerations.key(null, CarType.SUV), "carSearch:gen:*:SUV");
+        assertEquals(CarSearchGenerations.key(null, null), "carSearch:gen:*:*");
+    }
+
+    @Test
+    public void testCurrentDefaultsToZero() {
+        when(values.get("carSearch:gen:PIT-PITTS:*")).thenReturn(null);
+        when(values.get("carSearch:gen:BOS-LOGAN:*")).thenReturn("7");
+
+        assertEquals(generations.current("PIT-PITTS", null), "0");
+        assertEquals(generations.current("BOS-LOGAN", null), "7");
+    }
+
+    @Test
+    public void testCurrentIsAnsweredLocallyAfterFirstRead() {
+        when(values.get("carSearch:gen:BOS-LOGAN:*")).thenReturn("7");
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(generations.current("BOS-LOGAN", null), "7");
+        }
+
+        verify(values, times(1)).get("carSearch:gen:BOS-LOGAN:*");
+    }
+
+    @Test
+    public void testCurrentFallsBackWhenRedisIsDown() {
+        when(values.get(anyString())).thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        assertEquals(generations.current("BOS-LOGAN", CarType.SUV), CarSearchGenerations.FALLBACK);
+    }
+
+    @Test
+    public void testBumpTouchesOnlyScopesThatCanSeeTheCar() {
+        generations.bump("BOS-LOGAN", CarType.SEDAN);
+
+        assertEquals(incremented(), List.of(
+                "carSearch:gen:BOS-LOGAN:SEDAN", "carSearch:gen:BOS-LOGAN:*",
+                "carSearch:gen:*:SEDAN", "carSearch:gen:*:*"));
+        verify(redis, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    public void testBumpBranchTouchesEveryTypeAtTheBranchInOnePipeline() {
+        generations.bumpBranch("BOS-LOGAN");
+
+        List<String> keys = incremented();
+        for (CarType type : CarType.values()) {
+            assertTrue(keys.contains("carSearch:gen:BOS-LOGAN:" + type.name()));
+            assertTrue(keys.contains("carSearch:gen:*:" + type.name()));
+        }
+        assertTrue(keys.contains("carSearch:gen:BOS-LOGAN:*"));
+        assertTrue(keys.contains("carSearch:gen:*:*"));
+        assertEquals(keys.size(), 2 + 2 * CarType.values().length);
+        verify(redis, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    public void testBumpRereadsLocallyAndAnnouncesScopes() {
+        when(values.get("carSearch:gen:*:*")).thenReturn("1", "2");
+        assertEquals(generations.current(null, null), "1");
+
+        generations.bump("BOS-LOGAN", CarType.SEDAN);
+
+        assertEquals(generations.current(null, null), "2");
+        verify(redis).convertAndSend(eq(TwoLevelCacheManager.INVALIDATION_CHANNEL), contains("carSearch:gen:*:*"));
+    }
+
+    @Test
+    public void testBumpFailureIsNotPropagated() {
+        when(redis.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("Connection refused"));
+
+        generations.bump("BOS-LOGAN", CarType.SEDAN);
+
+        verify(redis, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    public void testAnnouncementFromAnotherNodeDropsLocalGenerations() {
+        when(values.get("carSearch:gen:BOS-LOGAN:*")).thenReturn("7", "8");
+        when(values.get("carSearch:gen:PIT-PITTS:*")).thenReturn("3");
+        generations.current("BOS-LOGAN", null);
+        generations.current("PIT-PITTS", null);
+
+        generations.onMessage(message("other-node|carSearch:gen:|carSearch:gen:BOS-LOGAN:*,carSearch:gen:*:*"), null);
+
+        assertEquals(generations.current("BOS-LOGAN", null), "8");
+        assertEquals(generations.current("PIT-PITTS", null), "3");
+        verify(values, times(1)).get("carSearch:gen:PIT-PITTS:*");
+    }
+
+    @Test
+    public void testIgnoresCacheInvalidations() {
+        when(values.get("carSearch:gen:BOS-LOGAN:*")).thenReturn("7", "8");
+        generations.current("BOS-LOGAN", null);
+
+        generations.onMessage(message("other-node|carSearch|some-key"), null);
+
+        assertEquals(generations.current("BOS-LOGAN", null), "7");
+    }
+
+    private List<String> incremented() {
+        ArgumentCaptor<byte[]> keys = ArgumentCaptor.forClass(byte[].class);
+        verify(stringCommands, atLeastOnce()).incr(keys.capture());
+        List<String> names = new ArrayList<>();
+        for (byte[] key : keys.getAllValues()) {
+            names.add(new String(key, StandardCharsets.UTF_8));
+        }
+        return names;
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(TwoLevelCacheManager.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
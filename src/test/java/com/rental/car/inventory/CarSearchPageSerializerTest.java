@@ -0,0 +1,103 @@
+package com.rental.car.inventory;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+public class CarSearchPageSerializerTest {
+
+    private CarSearchPageSerializer serializer;
+
+    @BeforeMethod
+    public void setUp() {
+        serializer = new CarSearchPageSerializer();
+    }
+
+    @Test
+    public void testPageRoundTrip() {
+        Page<CarDTO> page = samplePage(20, PageRequest.of(2, 20, Sort.by(Sort.Order.desc("year"), Sort.Order.asc("make"))));
+
+        byte[] bytes = serializer.serialize(page);
+        Object decoded = serializer.deserialize(bytes);
+
+        assertEquals(bytes[0], CarSearchPageSerializer.MAGIC);
+        assertTrue(decoded instanceof Page);
+        Page<?> result = (Page<?>) decoded;
+        assertEquals(result.getContent(), page.getContent());
+        assertEquals(result.getPageable(), page.getPageable());
+        assertEquals(result.getTotalElements(), page.getTotalElements());
+        assertEquals(result.getTotalPages(), page.getTotalPages());
+    }
+
+    @Test
+    public void testNullableFieldsRoundTrip() {
+        CarDTO sparse = new CarDTO(null, null, null, null, null, 0, null, null, null, false, null);
+        Page<CarDTO> page = new PageImpl<>(List.of(sparse), PageRequest.of(0, 10), 1);
+
+        Page<?> result = (Page<?>) serializer.deserialize(serializer.serialize(page));
+
+        assertEquals(result.getContent(), List.of(sparse));
+    }
+
+    @Test
+    public void testUnpagedAndEmptyPageRoundTrip() {
+        Page<CarDTO> page = new PageImpl<>(List.of(), Pageable.unpaged(), 0);
+
+        Page<?> result = (Page<?>) serializer.deserialize(serializer.serialize(page));
+
+        assertTrue(result.getPageable().isUnpaged());
+        assertTrue(result.getContent().isEmpty());
+        assertEquals(result.getTotalElements(), 0);
+    }
+
+    @Test
+    public void testOtherValuesUseJdkSerialization() {
+        Map<String, Integer> value = Map.of("a", 1);
+
+        byte[] bytes = serializer.serialize(value);
+
+        assertEquals(bytes[0], (byte) 0xAC);
+        assertEquals(serializer.deserialize(bytes), value);
+    }
+
+    @Test
+    public void testReadsEntriesWrittenWithJdkSerialization() {
+        Page<CarDTO> page = samplePage(3, PageRequest.of(0, 20));
+        byte[] legacy = new JdkSerializationRedisSerializer().serialize(page);
+
+        Page<?> result = (Page<?>) serializer.deserialize(legacy);
+
+        assertEquals(result.getContent(), page.getContent());
+    }
+
+    @Test
+    public void testEncodingIsMuchSmallerThanJdk() {
+        Page<CarDTO> page = samplePage(20, PageRequest.of(0, 20));
+
+        int compact = serializer.serialize(page).length;
+        int jdk = new JdkSerializationRedisSerializer().serialize(page).length;
+
+        assertTrue(compact * 3 < jdk, "compact=" + compact + " jdk=" + jdk);
+    }
+
+    private static Page<CarDTO> samplePage(int size, Pageable pageable) {
+        List<CarDTO> cars = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            cars.add(new CarDTO(1000L + i, i % 2 == 0 ? CarType.SEDAN : CarType.SUV, "MA-" + (1000 + i),
+                    "Toyota", i % 3 == 0 ? "Camry" : "RAV4", 2022 + i % 3, "BOS-LOGAN", "Boston Logan Airport",
+                    "Boston", i % 5 != 0, i % 4 == 0 ? null : 1.5 * i));
+        }
+        return new PageImpl<>(cars, pageable, 137);
+    }
+}
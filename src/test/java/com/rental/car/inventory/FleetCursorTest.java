@@ -0,0 +1,41 @@
+package com.rental.car.inventory;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class FleetCursorTest {
+
+    @Test
+    public void testRoundTripWithDistance() {
+        FleetCursor cursor = new FleetCursor(12.345678901234, 42L);
+
+        assertEquals(FleetCursor.decode(cursor.encode()), cursor);
+    }
+
+    @Test
+    public void testRoundTripWithoutDistance() {
+        FleetCursor cursor = new FleetCursor(null, Long.MAX_VALUE);
+
+        assertEquals(FleetCursor.decode(cursor.encode()), cursor);
+    }
+
+    @Test
+    public void testTokenIsUrlSafe() {
+        String token = new FleetCursor(-0.0001, -1L).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsGarbage() {
+        FleetCursor.decode("%%%");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsTruncatedToken() {
+        String token = new FleetCursor(1.0, 1L).encode();
+
+        FleetCursor.decode(token.substring(0, token.length() - 4));
+    }
+}
@@ -64,6 +64,22 @@ public class InventoryControllerTest {
                 pickupDate, returnDate, 0, 10, "id", "asc");
     }
 
+    @Test
+    public void testScrollFleet() {
+        CarScrollResponse response = new CarScrollResponse(List.of(carDTO), "abc", true, null);
+        when(service.scrollWithFilters(null, "LAX", null, null, null, null, null, "", 10, false))
+                .thenReturn(response);
+
+        CarScrollResponse result = controller.scrollFleet(null, "LAX", null, null, null, null, null, "", 10, false);
+
+        assertSame(result, response);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testScrollFleetRejectsInvalidSize() {
+        controller.scrollFleet(null, "LAX", null, null, null, null, null, "", 0, false);
+    }
+
     @Test
     public void testGetCarById() {
         when(service.getCarById(1L)).thenReturn(Optional.of(carDTO));
@@ -164,6 +180,17 @@ public class InventoryControllerTest {
         verify(service, times(1)).getAvailableYearsAtBranch("LAX", CarType.SEDAN, "Toyota");
     }
 
+    @Test
+    public void testGetBranchFiltersAllReturnsFacetTree() {
+        BranchFacets facets = new BranchFacets("LAX", 1, List.of());
+        when(service.getBranchFacets("LAX")).thenReturn(facets);
+
+        ResponseEntity<?> result = controller.getBranchFilters("LAX", "all", null, null);
+
+        assertTrue(result.getStatusCode().is2xxSuccessful());
+        assertSame(result.getBody(), facets);
+    }
+
     @Test
     public void testGetBranchFiltersInvalid() {
         ResponseEntity<?> result = controller.getBranchFilters("LAX", "invalid", null, null);
@@ -1,7 +1,9 @@
 package com.rental.car.inventory;
 
+import com.rental.car.common.GeocodingResult;
 import com.rental.car.common.GeocodingService;
 import com.rental.car.exceptions.DuplicateResourceException;
+import com.rental.car.exceptions.ExternalServiceException;
 import com.rental.car.exceptions.ResourceNotFoundException;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -9,13 +11,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -32,6 +38,16 @@ public class InventoryServiceTest {
     @Mock
     private GeocodingService geoService;
 
+    @Mock
+    private CarAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private CarSearchGenerations searchGenerations;
+
+    private BranchGeoIndex branchGeoIndex;
+
+    private BranchFacetIndex facetIndex;
+
     private InventoryService inventoryService;
 
     private Branch branch;
@@ -41,7 +57,10 @@ public class InventoryServiceTest {
     @BeforeMethod
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        inventoryService = new InventoryService(carRepo, branchRepo, geoService);
+        branchGeoIndex = new BranchGeoIndex();
+        facetIndex = new BranchFacetIndex(mock(StringRedisTemplate.class));
+        inventoryService = new InventoryService(carRepo, branchRepo, geoService, availabilityIndex, searchGenerations,
+                branchGeoIndex, facetIndex);
         
         address = new Address(1L, "123 Main St", null, 
                 "Los Angeles", "CA", "90001", "USA", 34.0522, -118.2437);
@@ -59,6 +78,15 @@ public class InventoryServiceTest {
         verify(branchRepo, times(1)).existsByCode("LAX");
     }
 
+    @Test
+    public void testIsValidBranchAnsweredFromBranchIndex() {
+        when(branchRepo.findAllWithAddress()).thenReturn(List.of(branch));
+        inventoryService.refreshBranchIndex();
+
+        assertTrue(inventoryService.isValidBranch("LAX"));
+        verify(branchRepo, never()).existsByCode(anyString());
+    }
+
     @Test
     public void testIsValidBranchNotFound() {
         when(branchRepo.existsByCode("INVALID")).thenReturn(false);
@@ -96,14 +124,27 @@ public class InventoryServiceTest {
 
     @Test
     public void testGetCarById() {
-        when(carRepo.findById(1L)).thenReturn(Optional.of(car));
+        when(carRepo.findWithBranchById(1L)).thenReturn(Optional.of(car));
         
         Optional<CarDTO> result = inventoryService.getCarById(1L);
         
         assertTrue(result.isPresent());
         assertEquals(result.get().id(), Long.valueOf(1L));
         assertEquals(result.get().licensePlate(), "ABC123");
-        verify(carRepo, times(1)).findById(1L);
+        verify(carRepo, times(1)).findWithBranchById(1L);
+    }
+
+    @Test
+    public void testInvalidateSearchesForCarsBumpsEachBranchAndTypeOnce() {
+        Car secondSedan = new Car(2L, CarType.SEDAN, "DEF456", "Honda", "Accord", 2022, branch, true, 0);
+        Car suv = new Car(3L, CarType.SUV, "GHI789", "Ford", "Explorer", 2024, branch, true, 0);
+        when(carRepo.findAllWithBranchByIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(car, secondSedan, suv));
+
+        inventoryService.invalidateSearchesForCars(List.of(1L, 2L, 3L));
+
+        verify(carRepo, never()).findById(anyLong());
+        verify(searchGenerations, times(1)).bump("LAX", CarType.SEDAN);
+        verify(searchGenerations, times(1)).bump("LAX", CarType.SUV);
     }
 
     @Test
@@ -115,6 +156,17 @@ public class InventoryServiceTest {
         
         verify(carRepo, times(1)).findById(1L);
         verify(carRepo, times(1)).save(car);
+        verify(searchGenerations, times(1)).bump("LAX", CarType.SEDAN);
+    }
+
+    @Test
+    public void testUpdateCarAvailabilityUnchangedKeepsCachedSearches() {
+        when(carRepo.findById(1L)).thenReturn(Optional.of(car));
+
+        inventoryService.updateCarAvailability(1L, true);
+
+        verify(carRepo, never()).save(any(Car.class));
+        verifyNoInteractions(searchGenerations);
     }
 
     @Test(expectedExceptions = ResourceNotFoundException.class)
@@ -137,6 +189,8 @@ public class InventoryServiceTest {
         verify(carRepo, times(1)).findById(1L);
         verify(branchRepo, times(1)).findByCode("SFO");
         verify(carRepo, times(1)).save(car);
+        verify(searchGenerations, times(1)).bump("LAX", CarType.SEDAN);
+        verify(searchGenerations, times(1)).bump("SFO", CarType.SEDAN);
     }
 
     @Test(expectedExceptions = ResourceNotFoundException.class)
@@ -199,18 +253,19 @@ public class InventoryServiceTest {
 
     @Test
     public void testDeleteCar() {
-        when(carRepo.existsById(1L)).thenReturn(true);
+        when(carRepo.findById(1L)).thenReturn(Optional.of(car));
         doNothing().when(carRepo).deleteById(1L);
         
         inventoryService.deleteCar(1L);
         
-        verify(carRepo, times(1)).existsById(1L);
+        verify(carRepo, times(1)).findById(1L);
         verify(carRepo, times(1)).deleteById(1L);
+        verify(searchGenerations, times(1)).bump("LAX", CarType.SEDAN);
     }
 
     @Test(expectedExceptions = ResourceNotFoundException.class)
     public void testDeleteCarNotFound() {
-        when(carRepo.existsById(999L)).thenReturn(false);
+        when(carRepo.findById(999L)).thenReturn(Optional.empty());
         
         inventoryService.deleteCar(999L);
     }
@@ -218,7 +273,7 @@ public class InventoryServiceTest {
     @Test
     public void testCreateBranchWithDetails() {
         when(branchRepo.existsByCode("SFO")).thenReturn(false);
-        when(geoService.getCoordinates(anyString())).thenReturn(new double[]{37.7749, -122.4194});
+        when(geoService.geocode(anyString())).thenReturn(new GeocodingResult.Hit(37.7749, -122.4194));
         when(branchRepo.save(any(Branch.class))).thenReturn(branch);
         
         Branch result = inventoryService.createBranchWithDetails("SFO", "SFO Branch", "555-9999", 
@@ -226,8 +281,48 @@ public class InventoryServiceTest {
         
         assertNotNull(result);
         verify(branchRepo, times(1)).existsByCode("SFO");
-        verify(geoService, times(1)).getCoordinates(anyString());
+        verify(geoService, times(1)).geocode(anyString());
         verify(branchRepo, times(1)).save(any(Branch.class));
+        assertEquals(branchGeoIndex.all().size(), 1);
+    }
+
+    @Test
+    public void testCreateBranchWithUnknownAddressKeepsPlaceholderCoordinates() {
+        when(branchRepo.existsByCode("SFO")).thenReturn(false);
+        when(geoService.geocode(anyString())).thenReturn(new GeocodingResult.Miss());
+        when(branchRepo.save(any(Branch.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Branch result = inventoryService.createBranchWithDetails("SFO", "SFO Branch", "555-9999",
+                "456 Oak St", "San Francisco", "CA", "USA", "94102");
+
+        assertEquals(result.getAddress().getLatitude(), 0.0);
+        assertEquals(result.getAddress().getLongitude(), 0.0);
+    }
+
+    @Test(expectedExceptions = ExternalServiceException.class)
+    public void testCreateBranchFailsWhenGeocoderUnavailable() {
+        when(branchRepo.existsByCode("SFO")).thenReturn(false);
+        when(geoService.geocode(anyString())).thenReturn(new GeocodingResult.Failure("timeout"));
+
+        try {
+            inventoryService.createBranchWithDetails("SFO", "SFO Branch", "555-9999",
+                    "456 Oak St", "San Francisco", "CA", "USA", "94102");
+        } finally {
+            verify(branchRepo, never()).save(any(Branch.class));
+        }
+    }
+
+    @Test
+    public void testAddressSearchWithoutGeocodeFallsBackToPlainSearch() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(geoService.geocode("Nowhere")).thenReturn(new GeocodingResult.Failure("circuit open"));
+        when(carRepo.searchFleetUnified(any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Page.empty());
+
+        inventoryService.searchWithFilters("Nowhere", null, null, null, null, null, null, pageable);
+
+        verify(branchRepo, never()).findAllWithAddress();
+        verify(carRepo).searchFleetUnified(null, null, null, null, null, null, null, null, null, pageable);
     }
 
     @Test(expectedExceptions = DuplicateResourceException.class)
@@ -241,7 +336,7 @@ public class InventoryServiceTest {
     @Test
     public void testUpdateBranch() {
         when(branchRepo.findByCode("LAX")).thenReturn(Optional.of(branch));
-        when(geoService.getCoordinates(anyString())).thenReturn(new double[]{34.0522, -118.2437});
+        when(geoService.geocode(anyString())).thenReturn(new GeocodingResult.Hit(34.0522, -118.2437));
         when(branchRepo.save(any(Branch.class))).thenReturn(branch);
         
         Branch result = inventoryService.updateBranch("LAX", "Updated LAX", "555-1111", 
@@ -250,10 +345,12 @@ public class InventoryServiceTest {
         assertNotNull(result);
         verify(branchRepo, times(1)).findByCode("LAX");
         verify(branchRepo, times(1)).save(any(Branch.class));
+        verify(searchGenerations, times(1)).bumpBranch("LAX");
     }
 
     @Test
     public void testDeleteBranch() {
+        branchGeoIndex.rebuild(List.of(BranchLocation.from(branch)));
         when(branchRepo.findByCode("LAX")).thenReturn(Optional.of(branch));
         doNothing().when(branchRepo).delete(branch);
         
@@ -261,52 +358,222 @@ public class InventoryServiceTest {
         
         verify(branchRepo, times(1)).findByCode("LAX");
         verify(branchRepo, times(1)).delete(branch);
+        assertTrue(branchGeoIndex.all().isEmpty());
     }
 
     @Test
     public void testGetAvailableTypesAtBranch() {
-        List<CarType> types = Arrays.asList(CarType.SEDAN, CarType.SUV);
-        when(carRepo.findAvailableTypes("LAX")).thenReturn(types);
+        when(carRepo.countAvailableByFacet()).thenReturn(facetCounts());
         
         List<CarType> result = inventoryService.getAvailableTypesAtBranch("LAX");
         
-        assertNotNull(result);
-        assertEquals(result.size(), 2);
-        verify(carRepo, times(1)).findAvailableTypes("LAX");
+        assertEquals(result, List.of(CarType.SEDAN, CarType.SUV));
+        verify(carRepo, times(1)).countAvailableByFacet();
     }
 
     @Test
     public void testGetAvailableMakesAtBranch() {
-        List<String> makes = Arrays.asList("Toyota", "Honda");
-        when(carRepo.findAvailableMakes("LAX", CarType.SEDAN)).thenReturn(makes);
+        when(carRepo.countAvailableByFacet()).thenReturn(facetCounts());
         
         List<String> result = inventoryService.getAvailableMakesAtBranch("LAX", CarType.SEDAN);
         
-        assertNotNull(result);
-        assertEquals(result.size(), 2);
-        verify(carRepo, times(1)).findAvailableMakes("LAX", CarType.SEDAN);
+        assertEquals(result, List.of("Honda", "Toyota"));
     }
 
     @Test
     public void testGetAvailableYearsAtBranch() {
-        List<Integer> years = Arrays.asList(2023, 2022, 2021);
-        when(carRepo.findAvailableYears("LAX", CarType.SEDAN, "Toyota")).thenReturn(years);
+        when(carRepo.countAvailableByFacet()).thenReturn(facetCounts());
         
         List<Integer> result = inventoryService.getAvailableYearsAtBranch("LAX", CarType.SEDAN, "Toyota");
         
-        assertNotNull(result);
-        assertEquals(result.size(), 3);
-        verify(carRepo, times(1)).findAvailableYears("LAX", CarType.SEDAN, "Toyota");
+        assertEquals(result, List.of(2023, 2021));
+    }
+
+    @Test
+    public void testFacetIndexLoadsOnceAndFollowsCarChanges() {
+        when(carRepo.countAvailableByFacet()).thenReturn(facetCounts());
+        when(carRepo.findById(1L)).thenReturn(Optional.of(car));
+        when(carRepo.save(any(Car.class))).thenReturn(car);
+        assertEquals(inventoryService.getBranchFacets("LAX").availableCars(), 6);
+
+        inventoryService.updateCarAvailability(1L, false);
+
+        BranchFacets facets = inventoryService.getBranchFacets("LAX");
+        assertEquals(facets.availableCars(), 5);
+        assertEquals(facets.types().get(0).makes().get(1).years().get(0), new BranchFacets.YearFacet(2023, 1));
+        verify(carRepo, times(1)).countAvailableByFacet();
+    }
+
+    private static List<CarFacet> facetCounts() {
+        return List.of(
+                new CarFacet("LAX", CarType.SEDAN, "Toyota", 2023, 2),
+                new CarFacet("LAX", CarType.SEDAN, "Toyota", 2021, 1),
+                new CarFacet("LAX", CarType.SEDAN, "Honda", 2022, 1),
+                new CarFacet("LAX", CarType.SUV, "Ford", 2024, 2),
+                new CarFacet("JFK", CarType.VAN, "Kia", 2020, 3)
+        );
     }
 
     @Test
     public void testFindNearestBranches() {
-        List<BranchWithDistance> branches = new ArrayList<>();
-        when(branchRepo.findNearestBranches(34.0522, -118.2437, 5)).thenReturn(branches);
+        when(branchRepo.findAllWithAddress()).thenReturn(List.of(branch));
         
         List<BranchWithDistance> result = inventoryService.findNearestBranches(34.0522, -118.2437, 5);
         
-        assertNotNull(result);
-        verify(branchRepo, times(1)).findNearestBranches(34.0522, -118.2437, 5);
+        assertEquals(result.size(), 1);
+        assertEquals(result.get(0).getCode(), "LAX");
+        assertEquals(result.get(0).getDistanceKm(), 0.0, 1e-9);
+        verify(branchRepo, times(1)).findAllWithAddress();
+    }
+
+    @Test
+    public void testIsAirportBranchServedFromIndex() {
+        branchGeoIndex.rebuild(List.of(
+                new BranchLocation(1L, "BOS", "Logan", "555-0000", "1 Harborside Dr", "Boston", "MA", "USA",
+                        "02128", 42.3656, -71.0096, true),
+                location(2L, "CAM", 42.3736, -71.1097)));
+
+        assertTrue(inventoryService.isAirportBranch("BOS"));
+        assertFalse(inventoryService.isAirportBranch("CAM"));
+        verifyNoInteractions(branchRepo);
+    }
+
+    @Test
+    public void testIsAirportBranchLooksUpBranchesMissingFromIndex() {
+        branchGeoIndex.rebuild(List.of(location(2L, "CAM", 42.3736, -71.1097)));
+        when(branchRepo.isAirportBranch("JFK")).thenReturn(Optional.of(true));
+        when(branchRepo.isAirportBranch("NOPE")).thenReturn(Optional.empty());
+
+        assertTrue(inventoryService.isAirportBranch("JFK"));
+        assertFalse(inventoryService.isAirportBranch("NOPE"));
+        verify(branchRepo, never()).isAirportBranch("CAM");
+    }
+
+    @Test
+    public void testSearchWithFiltersUsesAvailabilityIndex() {
+        LocalDate pickup = LocalDate.now().plusDays(5);
+        LocalDate dropoff = LocalDate.now().plusDays(8);
+        Pageable pageable = PageRequest.of(0, 10);
+        Set<Long> booked = new LinkedHashSet<>(Arrays.asList(3L, 7L));
+        when(availabilityIndex.findBookedCarIds(pickup, dropoff)).thenReturn(Optional.of(booked));
+        when(carRepo.searchFleetUnified(any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Page.empty());
+
+        inventoryService.searchWithFilters(null, "LAX", null, null, null, pickup, dropoff, pageable);
+
+        verify(carRepo).searchFleetUnified(null, null, "LAX", null, null, null,
+                null, null, "{3,7}", pageable);
+    }
+
+    @Test
+    public void testAddressSearchLoadsBranchIndexAndFiltersByBranch() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(geoService.geocode("Los Angeles")).thenReturn(new GeocodingResult.Hit(34.05, -118.24));
+        when(branchRepo.findAllWithAddress()).thenReturn(List.of(branch));
+        when(carRepo.searchFleetUnified(any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Page.empty());
+        double distance = BranchGeoIndex.distanceKm(34.05, -118.24, 34.0522, -118.2437);
+
+        inventoryService.searchWithFilters("Los Angeles", null, null, null, null, null, null, pageable);
+        inventoryService.searchWithFilters("Los Angeles", null, null, null, null, null, null, pageable);
+
+        verify(branchRepo, times(1)).findAllWithAddress();
+        verify(carRepo, times(2)).searchFleetUnified("{1}", "{" + distance + "}", null, null, null, null,
+                null, null, null, pageable);
+    }
+
+    @Test
+    public void testSearchWithFiltersFallsBackToSqlOutsideIndexHorizon() {
+        LocalDate pickup = LocalDate.now().plusYears(2);
+        LocalDate dropoff = pickup.plusDays(3);
+        Pageable pageable = PageRequest.of(0, 10);
+        when(availabilityIndex.findBookedCarIds(pickup, dropoff)).thenReturn(Optional.empty());
+        when(carRepo.searchFleetUnified(any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Page.empty());
+
+        inventoryService.searchWithFilters(null, "LAX", null, null, null, pickup, dropoff, pageable);
+
+        verify(carRepo).searchFleetUnified(null, null, "LAX", null, null, null,
+                pickup, dropoff, null, pageable);
+    }
+
+    @Test
+    public void testScrollWithFiltersReturnsCursorWhenMoreRowsExist() {
+        List<CarWithDistance> rows = List.of(row(1L, null), row(2L, null), row(3L, null));
+        when(carRepo.scrollFleetUnified(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), anyInt()))
+                .thenReturn(rows);
+
+        CarScrollResponse result = inventoryService.scrollWithFilters(null, "LAX", null, null, null,
+                null, null, "", 2, false);
+
+        assertEquals(result.content().size(), 2);
+        assertTrue(result.hasNext());
+        assertEquals(FleetCursor.decode(result.nextCursor()), new FleetCursor(null, 2L));
+        assertNull(result.totalElements());
+        verify(carRepo).scrollFleetUnified(null, null, "LAX", null, null, null,
+                null, null, null, null, null, 3);
+        verify(carRepo, never()).countFleetUnified(any(), any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testScrollWithFiltersContinuesAfterCursor() {
+        when(geoService.geocode("Boston")).thenReturn(new GeocodingResult.Hit(42.36, -71.06));
+        branchGeoIndex.rebuild(List.of(location(5L, "BOS", 42.3656, -71.0096), location(6L, "NYC", 40.7128, -74.0060)));
+        double bosDistance = BranchGeoIndex.distanceKm(42.36, -71.06, 42.3656, -71.0096);
+        List<CarWithDistance> rows = List.of(row(9L, 4.25));
+        when(carRepo.scrollFleetUnified(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), anyInt()))
+                .thenReturn(rows);
+        when(carRepo.countFleetUnified(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(11L);
+        String cursor = new FleetCursor(3.5, 7L).encode();
+
+        CarScrollResponse result = inventoryService.scrollWithFilters("Boston", null, CarType.SUV, null, null,
+                null, null, cursor, 5, true);
+
+        assertFalse(result.hasNext());
+        assertNull(result.nextCursor());
+        assertEquals(result.totalElements(), Long.valueOf(11L));
+        verify(carRepo).scrollFleetUnified("{5}", "{" + bosDistance + "}", null, "SUV", null, null,
+                null, null, null, 3.5, 7L, 6);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testScrollWithFiltersRejectsInvalidCursor() {
+        inventoryService.scrollWithFilters(null, null, null, null, null, null, null, "not-a-cursor", 10, false);
+    }
+
+    private static BranchLocation location(Long id, String code, double lat, double lon) {
+        return new BranchLocation(id, code, code + " Branch", "555-0000", "1 Main St", "City", "ST", "USA",
+                "00000", lat, lon, false);
+    }
+
+    private static CarWithDistance row(Long id, Double distanceKm) {
+        CarWithDistance row = mock(CarWithDistance.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getType()).thenReturn("SEDAN");
+        when(row.getYear()).thenReturn(2023);
+        when(row.getAvailable()).thenReturn(true);
+        when(row.getDistanceKm()).thenReturn(distanceKm);
+        return row;
+    }
+
+    @Test
+    public void testMarkCarBookedWithoutTransactionAppliesImmediately() {
+        CarBooking booking = new CarBooking(1L, LocalDate.now(), LocalDate.now().plusDays(2));
+
+        inventoryService.markCarBooked(booking);
+        inventoryService.markCarReleased(booking);
+
+        verify(availabilityIndex).markBooked(booking);
+        verify(availabilityIndex).markReleased(booking);
+    }
+
+    @Test
+    public void testInvalidateSearchesForCar() {
+        when(carRepo.findById(1L)).thenReturn(Optional.of(car));
+
+        inventoryService.invalidateSearchesForCar(1L);
+
+        verify(searchGenerations, times(1)).bump("LAX", CarType.SEDAN);
     }
 }
@@ -0,0 +1,148 @@
+package com.rental.car.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * One visitor's walk through search → price → create → confirm against a running instance.
+ *
+ * A journey stops at its last step or at the first step that cannot feed the next one (no cars
+ * found, booking rejected). A share of searches go by street address instead of branch code;
+ * each address is unique, so those always miss the geocoding cache and call out to the
+ * geocoder. Every request, successful or not, is timed into the stats the supplier returns at
+ * the time of the call, so the runner can swap in fresh stats after warmup.
+ */
+class BookingFunnel {
+
+    static final String SEARCH = "search";
+    static final String PRICE = "price";
+    static final String CREATE = "create";
+    static final String CONFIRM = "confirm";
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * How far down the funnel a visitor goes.
+     */
+    enum Journey {
+        BROWSE, QUOTE, BOOK, CONFIRM;
+
+        boolean reaches(Journey step) {
+            return ordinal() >= step.ordinal();
+        }
+    }
+
+    private final HttpClient client;
+    private final URI baseUrl;
+    private final List<String> branches;
+    private final int addressSearchPercent;
+    private final Supplier<LatencyStats> stats;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicLong customers = new AtomicLong();
+    private final AtomicLong addresses = new AtomicLong();
+
+    BookingFunnel(HttpClient client, URI baseUrl, List<String> branches, int addressSearchPercent,
+                  Supplier<LatencyStats> stats) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.branches = branches;
+        this.addressSearchPercent = addressSearchPercent;
+        this.stats = stats;
+    }
+
+    void run(Journey journey, RandomGenerator random) {
+        String branch = branches.get(random.nextInt(branches.size()));
+        LocalDate pickup = LocalDate.now().plusDays(1 + random.nextInt(180));
+        LocalDate dropoff = pickup.plusDays(1 + random.nextInt(10));
+
+        String dates = "&pickupDate=" + pickup + "&returnDate=" + dropoff + "&size=20";
+        JsonNode page = random.nextInt(100) < addressSearchPercent
+                ? send(SEARCH, get("/api/v1/inventory/cars?address=" + encode(uniqueAddress()) + dates))
+                : send(SEARCH, get("/api/v1/inventory/cars?branch=" + branch + dates));
+        JsonNode cars = page != null ? page.path("content") : null;
+        if (cars == null || cars.isEmpty() || !journey.reaches(Journey.QUOTE)) {
+            return;
+        }
+        JsonNode car = cars.get(random.nextInt(cars.size()));
+        long carId = car.path("id").asLong();
+        branch = car.path("branchCode").asText(branch);
+
+        send(PRICE, get("/api/v1/reservations/price?carId=" + carId
+                + "&pickupDate=" + pickup + "&returnDate=" + dropoff));
+        if (!journey.reaches(Journey.BOOK)) {
+            return;
+        }
+
+        // Mostly round trips, some one-way rentals to exercise the fee path
+        String returnBranch = random.nextInt(5) == 0 ? branches.get(random.nextInt(branches.size())) : branch;
+        long customer = customers.incrementAndGet();
+        ObjectNode body = mapper.createObjectNode()
+                .put("carId", carId)
+                .put("customerEmail", "loadtest+" + customer + "@example.com")
+                .put("customerName", "Load Test " + customer)
+                .put("pickupBranchCode", branch)
+                .put("returnBranchCode", returnBranch)
+                .put("pickupDate", pickup.toString())
+                .put("returnDate", dropoff.toString());
+        JsonNode reservation = send(CREATE, post("/api/v1/reservations", body.toString()));
+        if (reservation == null || !journey.reaches(Journey.CONFIRM)) {
+            return;
+        }
+
+        send(CONFIRM, post("/api/internal/v1/reservations/" + reservation.path("id").asLong() + "/confirm", ""));
+    }
+
+    private String uniqueAddress() {
+        return addresses.incrementAndGet() + " Tremont St, Boston, MA";
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    // Body of a 2xx response, or null for anything else
+    private JsonNode send(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            stats.get().record(endpoint, System.nanoTime() - start, response.statusCode());
+            if (response.statusCode() / 100 != 2) {
+                return null;
+            }
+            return response.body().length > 0 ? mapper.readTree(response.body()) : mapper.nullNode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (IOException e) {
+            stats.get().recordFailure(endpoint, System.nanoTime() - start);
+            return null;
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUrl.resolve(path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(baseUrl.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.rental.car.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-endpoint latency samples and outcome counts, recorded from many threads and summarized
+ * once the run is over. Samples are kept whole (runs are minutes, not hours), so percentiles are
+ * exact nearest-rank values rather than histogram estimates.
+ */
+class LatencyStats {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long latencyNanos, int status) {
+        endpoints.computeIfAbsent(endpoint, k -> new Endpoint()).record(latencyNanos, status);
+    }
+
+    void recordFailure(String endpoint, long latencyNanos) {
+        record(endpoint, latencyNanos, 0);
+    }
+
+    /**
+     * Summaries sorted by endpoint name; throughput is over the given measurement window.
+     */
+    List<Summary> summarize(double elapsedSeconds) {
+        List<Summary> summaries = new ArrayList<>();
+        endpoints.forEach((name, endpoint) -> summaries.add(endpoint.summarize(name, elapsedSeconds)));
+        summaries.sort((a, b) -> a.endpoint().compareTo(b.endpoint()));
+        return summaries;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values, with p in (0, 100].
+     */
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    private static final class Endpoint {
+        private long[] samples = new long[1024];
+        private int count;
+        private long clientErrors;
+        private long serverErrors;
+        private long failures;
+
+        synchronized void record(long latencyNanos, int status) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = latencyNanos;
+            if (status == 0) {
+                failures++;
+            } else if (status >= 500) {
+                serverErrors++;
+            } else if (status >= 400) {
+                clientErrors++;
+            }
+        }
+
+        synchronized Summary summarize(String name, double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return new Summary(
+                    name,
+                    count,
+                    elapsedSeconds > 0 ? count / elapsedSeconds : 0,
+                    millis(percentile(sorted, 50)),
+                    millis(percentile(sorted, 90)),
+                    millis(percentile(sorted, 99)),
+                    millis(count > 0 ? sorted[count - 1] : 0),
+                    clientErrors,
+                    serverErrors,
+                    failures
+            );
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Latencies in milliseconds. Client errors are 4xx (a 409 on create is an expected outcome
+     * under contention), server errors 5xx, failures are timeouts and I/O errors.
+     */
+    record Summary(String endpoint, long requests, double throughputPerSecond, double p50Millis, double p90Millis,
+                   double p99Millis, double maxMillis, long clientErrors, long serverErrors, long failures) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.rental.car.loadtest;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class LatencyStatsTest {
+
+    @Test
+    public void testNearestRankPercentiles() {
+        long[] sorted = new long[100];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i + 1;
+        }
+
+        assertEquals(LatencyStats.percentile(sorted, 50), 50);
+        assertEquals(LatencyStats.percentile(sorted, 99), 99);
+        assertEquals(LatencyStats.percentile(sorted, 100), 100);
+        assertEquals(LatencyStats.percentile(new long[]{7}, 99), 7);
+        assertEquals(LatencyStats.percentile(new long[0], 50), 0);
+    }
+
+    @Test
+    public void testSummaryPerEndpoint() {
+        LatencyStats stats = new LatencyStats();
+        for (int i = 1; i <= 2_000; i++) {
+            stats.record("search", i * 1_000_000L, 200);
+        }
+        stats.record("create", 5_000_000L, 201);
+        stats.record("create", 7_000_000L, 409);
+        stats.record("create", 9_000_000L, 500);
+        stats.recordFailure("create", 30_000_000L);
+
+        List<LatencyStats.Summary> summaries = stats.summarize(10.0);
+
+        assertEquals(summaries.size(), 2);
+        LatencyStats.Summary create = summaries.get(0);
+        assertEquals(create.endpoint(), "create");
+        assertEquals(create.requests(), 4);
+        assertEquals(create.clientErrors(), 1);
+        assertEquals(create.serverErrors(), 1);
+        assertEquals(create.failures(), 1);
+        assertEquals(create.maxMillis(), 30.0);
+
+        LatencyStats.Summary search = summaries.get(1);
+        assertEquals(search.requests(), 2_000);
+        assertEquals(search.throughputPerSecond(), 200.0);
+        assertEquals(search.p50Millis(), 1_000.0);
+        assertEquals(search.p99Millis(), 1_980.0);
+        assertEquals(search.clientErrors() + search.serverErrors() + search.failures(), 0);
+    }
+}
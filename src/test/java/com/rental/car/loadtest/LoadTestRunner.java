@@ -0,0 +1,207 @@
+package com.rental.car.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rental.car.CarRentalApplication;
+import com.rental.car.TestcontainersConfiguration;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Drives a closed-model booking load against the application and reports latency per endpoint.
+ *
+ * Each virtual user loops: pick a journey from the weighted mix, walk it, wait the think time.
+ * Requests made during warmup are discarded. Without {@code loadtest.base-url} the application
+ * is started in-process against the Testcontainers Postgres and Redis, so Docker is required.
+ * While measuring, the Hikari and Tomcat gauges are sampled every second; run the same mix at a
+ * few user counts and pool sizes and compare where p99 turns up against pending connections and
+ * busy threads.
+ *
+ * To see how request threads cope with slow geocoding, send part of the searches by address
+ * ({@code loadtest.address-searches}, a percentage) and set {@code loadtest.geocoding-delay}: the
+ * in-process application is then pointed at a local geocoder stub that answers after that delay.
+ * Compare runs with and without {@code --spring.profiles.active=virtual-threads} (Java 21) at the
+ * same Hikari pool size. With the stub, the geocoder's concurrency and queue limits are raised to
+ * the user count and its read timeout to the delay plus a margin, unless given as arguments:
+ * otherwise at most two lookups run at once, the rest queue, time out or are rejected, and the run
+ * measures the geocoding client's request cap rather than the request threads.
+ *
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.rental.car.loadtest.LoadTestRunner \
+ *     -Dloadtest.users=50 -Dloadtest.duration=PT2M \
+ *     -Dexec.args="--spring.datasource.hikari.maximum-pool-size=20 --server.tomcat.threads.max=100"
+ * </pre>
+ *
+ * Program arguments are passed to the in-process application; they and the geocoding delay are
+ * ignored with a base URL.
+ */
+public class LoadTestRunner {
+
+    private static final List<String> BRANCHES = List.of(
+            "BOS-LOGAN", "BOS-DTN", "BOS-BACK", "CAM-MIT", "CAM-SQUARE", "WOR-DTN", "SPG-DTN", "QUI-QUINCY");
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("loadtest.base-url");
+        int users = Integer.getInteger("loadtest.users", 20);
+        Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+        Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT60S"));
+        Duration thinkTime = Duration.parse(System.getProperty("loadtest.think-time", "PT0S"));
+        String mix = System.getProperty("loadtest.mix", "browse=60,quote=25,book=10,confirm=5");
+        Path report = Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+        int addressSearches = Integer.getInteger("loadtest.address-searches", 0);
+        String geocodingDelay = System.getProperty("loadtest.geocoding-delay");
+
+        WeightedMix<BookingFunnel.Journey> journeys = parseMix(mix);
+        ConfigurableApplicationContext context = null;
+        SlowGeocoder geocoder = null;
+        if (baseUrl == null) {
+            if (geocodingDelay != null) {
+                geocoder = new SlowGeocoder(Duration.parse(geocodingDelay));
+                args = append(args, "--geocoding.base-url=" + geocoder.baseUrl());
+                args = withDefault(args, "geocoding.max-concurrent-requests", String.valueOf(users));
+                args = withDefault(args, "geocoding.max-queued-requests", String.valueOf(users));
+                args = withDefault(args, "geocoding.read-timeout",
+                        Duration.parse(geocodingDelay).plusSeconds(5).toString());
+            }
+            context = start(args);
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            System.out.printf("Started on Java %d, virtual threads %s, Hikari pool %s%n",
+                    Runtime.version().feature(),
+                    context.getEnvironment().getProperty("spring.threads.virtual.enabled", "false"),
+                    context.getEnvironment().getProperty("spring.datasource.hikari.maximum-pool-size", "10"));
+        }
+        try {
+            URI target = URI.create(baseUrl);
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            AtomicReference<LatencyStats> stats = new AtomicReference<>(new LatencyStats());
+            BookingFunnel funnel = new BookingFunnel(client, target, BRANCHES, addressSearches, stats::get);
+            PoolSampler sampler = new PoolSampler(client, target);
+
+            System.out.printf("Load test: %s, %d users, mix %s, %d%% address searches, warmup %s, duration %s%n",
+                    target, users, mix, addressSearches, warmup, duration);
+            long end = System.nanoTime() + warmup.plus(duration).toNanos();
+            ExecutorService pool = Executors.newFixedThreadPool(users);
+            for (int i = 0; i < users; i++) {
+                pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                        funnel.run(journeys.pick(random), random);
+                        pause(thinkTime);
+                    }
+                });
+            }
+
+            Thread.sleep(warmup.toMillis());
+            stats.set(new LatencyStats());
+            long measureStart = System.nanoTime();
+            while (System.nanoTime() < end) {
+                sampler.sample();
+                Thread.sleep(1_000);
+            }
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+            double elapsed = (System.nanoTime() - measureStart) / 1e9;
+
+            List<LatencyStats.Summary> endpoints = stats.get().summarize(elapsed);
+            Map<String, PoolSampler.Summary> gauges = sampler.summarize();
+            print(endpoints, gauges);
+            write(report, new Report(baseUrl, users, mix, addressSearches, geocodingDelay, warmup.toString(),
+                    duration.toString(), elapsed, endpoints, gauges));
+            System.out.println("Report written to " + report.toAbsolutePath());
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            if (geocoder != null) {
+                geocoder.close();
+            }
+        }
+    }
+
+    static WeightedMix<BookingFunnel.Journey> parseMix(String mix) {
+        Map<BookingFunnel.Journey, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split("=");
+            if (entry.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + part);
+            }
+            weights.merge(BookingFunnel.Journey.valueOf(entry[0].trim().toUpperCase()),
+                    Integer.parseInt(entry[1].trim()), Integer::sum);
+        }
+        return new WeightedMix<>(weights);
+    }
+
+    private static ConfigurableApplicationContext start(String[] args) {
+        String[] defaults = {"--server.port=0", "--server.tomcat.mbeanregistry.enabled=true"};
+        return SpringApplication.from(CarRentalApplication::main)
+                .with(TestcontainersConfiguration.class)
+                .run(append(defaults, args))
+                .getApplicationContext();
+    }
+
+    // Arguments repeated on the command line are joined with commas, so only add one not given
+    private static String[] withDefault(String[] args, String name, String value) {
+        String option = "--" + name + "=";
+        if (Arrays.stream(args).anyMatch(arg -> arg.startsWith(option))) {
+            return args;
+        }
+        return append(args, option + value);
+    }
+
+    private static String[] append(String[] first, String... second) {
+        return Stream.concat(Arrays.stream(first), Arrays.stream(second)).toArray(String[]::new);
+    }
+
+    private static void pause(Duration thinkTime) {
+        if (thinkTime.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(thinkTime.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void print(List<LatencyStats.Summary> endpoints, Map<String, PoolSampler.Summary> gauges) {
+        System.out.printf("%n%-10s %9s %9s %9s %9s %9s %9s %7s %7s %7s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "4xx", "5xx", "failed");
+        for (LatencyStats.Summary s : endpoints) {
+            System.out.printf("%-10s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %7d %7d %7d%n",
+                    s.endpoint(), s.requests(), s.throughputPerSecond(), s.p50Millis(), s.p90Millis(),
+                    s.p99Millis(), s.maxMillis(), s.clientErrors(), s.serverErrors(), s.failures());
+        }
+        System.out.printf("%n%-30s %9s %9s%n", "gauge", "mean", "max");
+        gauges.forEach((name, g) -> System.out.printf("%-30s %9.1f %9.1f%n", name, g.mean(), g.max()));
+    }
+
+    private static void write(Path path, Report report) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+    }
+
+    record Report(String baseUrl, int users, String mix, int addressSearchPercent, String geocodingDelay,
+                  String warmup, String duration, double measuredSeconds,
+                  List<LatencyStats.Summary> endpoints, Map<String, PoolSampler.Summary> gauges) {
+    }
+}
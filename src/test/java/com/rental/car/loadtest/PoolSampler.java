@@ -0,0 +1,96 @@
+package com.rental.car.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Polls the actuator for connection-pool and request-thread gauges while load is running.
+ *
+ * These are what the pool sizes are tuned against: pending Hikari connections mean requests
+ * queue for the database, busy Tomcat threads near the maximum mean they queue for a thread.
+ * Tomcat thread gauges need {@code server.tomcat.mbeanregistry.enabled=true}; gauges the
+ * target does not publish are skipped.
+ */
+class PoolSampler {
+
+    static final List<String> GAUGES = List.of(
+            "hikaricp.connections.active",
+            "hikaricp.connections.pending",
+            "hikaricp.connections.max",
+            "tomcat.threads.busy",
+            "tomcat.threads.config.max"
+    );
+
+    private final HttpClient client;
+    private final URI baseUrl;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Gauge> gauges = new LinkedHashMap<>();
+
+    PoolSampler(HttpClient client, URI baseUrl) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+    }
+
+    void sample() {
+        for (String name : GAUGES) {
+            Double value = read(name);
+            if (value != null) {
+                gauges.computeIfAbsent(name, k -> new Gauge()).add(value);
+            }
+        }
+    }
+
+    Map<String, Summary> summarize() {
+        Map<String, Summary> summaries = new LinkedHashMap<>();
+        gauges.forEach((name, gauge) -> summaries.put(name, gauge.summarize()));
+        return summaries;
+    }
+
+    private Double read(String name) {
+        HttpRequest request = HttpRequest.newBuilder(baseUrl.resolve("/actuator/metrics/" + name))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                return null;
+            }
+            JsonNode measurements = mapper.readTree(response.body()).path("measurements");
+            return measurements.isEmpty() ? null : measurements.get(0).path("value").asDouble();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static final class Gauge {
+        private long samples;
+        private double sum;
+        private double max;
+
+        void add(double value) {
+            samples++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        Summary summarize() {
+            return new Summary(samples, samples > 0 ? sum / samples : 0, max);
+        }
+    }
+
+    record Summary(long samples, double mean, double max) {
+    }
+}
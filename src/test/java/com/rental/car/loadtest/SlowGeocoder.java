@@ -0,0 +1,54 @@
+package com.rental.car.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for Nominatim's search endpoint that answers every query after a fixed delay,
+ * with a point somewhere in the Boston area. Pointing {@code geocoding.base-url} at it gives
+ * address searches a realistic, repeatable blocking call without depending on the public service.
+ */
+class SlowGeocoder implements AutoCloseable {
+
+    private final HttpServer server;
+
+    SlowGeocoder(Duration delay) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        // Unbounded so the stub itself never becomes the bottleneck being measured
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/search", exchange -> {
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            byte[] body = String.format(Locale.ROOT, "[{\"lat\":\"%.6f\",\"lon\":\"%.6f\"}]",
+                    42.30 + random.nextDouble(0.15), -71.15 + random.nextDouble(0.15)).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    URI baseUrl() {
+        return URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,44 @@
+package com.rental.car.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Picks items in proportion to integer weights, e.g. the share of visitors that only browse
+ * versus those that go on to book.
+ */
+class WeightedMix<T> {
+
+    private final List<T> items = new ArrayList<>();
+    private final int[] cumulative;
+    private final int total;
+
+    WeightedMix(Map<T, Integer> weights) {
+        cumulative = new int[weights.size()];
+        int sum = 0;
+        for (Map.Entry<T, Integer> entry : weights.entrySet()) {
+            if (entry.getValue() < 0) {
+                throw new IllegalArgumentException("Negative weight for " + entry.getKey());
+            }
+            sum += entry.getValue();
+            cumulative[items.size()] = sum;
+            items.add(entry.getKey());
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("Mix needs at least one positive weight");
+        }
+        total = sum;
+    }
+
+    T pick(RandomGenerator random) {
+        int ticket = random.nextInt(total);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (ticket < cumulative[i]) {
+                return items.get(i);
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+}
@@ -0,0 +1,55 @@
+package com.rental.car.loadtest;
+
+import org.testng.annotations.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+public class WeightedMixTest {
+
+    @Test
+    public void testPicksInProportionToWeights() {
+        WeightedMix<BookingFunnel.Journey> mix = LoadTestRunner.parseMix("browse=60, quote=25,book=10,confirm=5");
+        Random random = new Random(42);
+        Map<BookingFunnel.Journey, Integer> counts = new EnumMap<>(BookingFunnel.Journey.class);
+
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(mix.pick(random), 1, Integer::sum);
+        }
+
+        assertEquals(counts.get(BookingFunnel.Journey.BROWSE) / 1_000.0, 60.0, 1.0);
+        assertEquals(counts.get(BookingFunnel.Journey.QUOTE) / 1_000.0, 25.0, 1.0);
+        assertEquals(counts.get(BookingFunnel.Journey.BOOK) / 1_000.0, 10.0, 1.0);
+        assertEquals(counts.get(BookingFunnel.Journey.CONFIRM) / 1_000.0, 5.0, 1.0);
+    }
+
+    @Test
+    public void testZeroWeightIsNeverPicked() {
+        WeightedMix<BookingFunnel.Journey> mix = LoadTestRunner.parseMix("browse=0,book=1");
+        Random random = new Random(7);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(mix.pick(random), BookingFunnel.Journey.BOOK);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsMalformedMix() {
+        LoadTestRunner.parseMix("browse");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsAllZeroWeights() {
+        LoadTestRunner.parseMix("browse=0,quote=0");
+    }
+
+    @Test
+    public void testJourneysReachEarlierSteps() {
+        assertTrue(BookingFunnel.Journey.CONFIRM.reaches(BookingFunnel.Journey.BOOK));
+        assertTrue(BookingFunnel.Journey.QUOTE.reaches(BookingFunnel.Journey.QUOTE));
+        assertFalse(BookingFunnel.Journey.BROWSE.reaches(BookingFunnel.Journey.QUOTE));
+    }
+}
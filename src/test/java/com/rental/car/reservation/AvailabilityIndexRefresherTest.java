@@ -0,0 +1,51 @@
+package com.rental.car.reservation;
+
+import com.rental.car.inventory.CarBooking;
+import com.rental.car.inventory.InventoryService;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+
+public class AvailabilityIndexRefresherTest {
+
+    @Mock
+    private ReservationRepository reservationRepo;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    private AvailabilityIndexRefresher refresher;
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        refresher = new AvailabilityIndexRefresher(reservationRepo, inventoryService);
+    }
+
+    @Test
+    public void testRefreshRebuildsIndexFromActiveBookings() {
+        LocalDate today = LocalDate.now();
+        List<CarBooking> bookings = List.of(new CarBooking(10L, today.plusDays(1), today.plusDays(4)));
+        when(reservationRepo.findActiveBookingsEndingAfter(today)).thenReturn(bookings);
+
+        refresher.refresh();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Supplier<Collection<CarBooking>>> loader = ArgumentCaptor.forClass(Supplier.class);
+        verify(inventoryService, times(1)).rebuildAvailabilityIndex(eq(today), loader.capture());
+        // Loaded by the index itself, so it can keep changes made while the query runs
+        verifyNoInteractions(reservationRepo);
+        assertEquals(loader.getValue().get(), bookings);
+    }
+}
@@ -0,0 +1,99 @@
+package com.rental.car.reservation;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ExpiryWheelTest {
+
+    private static final long TICK = 1_000;
+    private static final long START = 1_750_000_000_123L;
+
+    @Test
+    public void testFiresAtDeadlineNotBefore() {
+        ExpiryWheel wheel = new ExpiryWheel(TICK, START);
+        wheel.schedule(1L, START + 30 * 60_000);
+
+        assertEquals(wheel.advance(START + 30 * 60_000 - 1), List.of());
+        assertEquals(wheel.advance(START + 30 * 60_000 + TICK), List.of(1L));
+        assertEquals(wheel.size(), 0);
+        assertEquals(wheel.advance(START + 40 * 60_000), List.of());
+    }
+
+    @Test
+    public void testPastDeadlineComesDueOnNextAdvance() {
+        ExpiryWheel wheel = new ExpiryWheel(TICK, START);
+        wheel.schedule(7L, START - 60_000);
+
+        assertEquals(wheel.advance(START), List.of(7L));
+    }
+
+    @Test
+    public void testCancelledAndRescheduledIdsFireOnlyForTheirCurrentDeadline() {
+        ExpiryWheel wheel = new ExpiryWheel(TICK, START);
+        wheel.schedule(1L, START + 10_000);
+        wheel.schedule(2L, START + 10_000);
+        wheel.schedule(3L, START - 1);
+        wheel.cancel(2L);
+        wheel.cancel(3L);
+        wheel.schedule(1L, START + 5 * 60_000);
+        assertEquals(wheel.size(), 1);
+
+        assertEquals(wheel.advance(START + 60_000), List.of());
+        assertEquals(wheel.advance(START + 6 * 60_000), List.of(1L));
+    }
+
+    @Test
+    public void testReturnsEarliestDeadlinesFirst() {
+        ExpiryWheel wheel = new ExpiryWheel(TICK, START);
+        wheel.schedule(3L, START + 3 * 3_600_000);
+        wheel.schedule(1L, START + 2_000);
+        wheel.schedule(2L, START + 90_000);
+
+        assertEquals(wheel.advance(START + 4 * 3_600_000), List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    public void testDeadlinesBeyondTopLevelWaitInOverflow() {
+        ExpiryWheel wheel = new ExpiryWheel(TICK, START);
+        long farAway = START + 400L * 24 * 3_600_000;
+        wheel.schedule(9L, farAway);
+
+        assertEquals(wheel.advance(farAway - TICK), List.of());
+        assertEquals(wheel.advance(farAway + TICK), List.of(9L));
+    }
+
+    @Test
+    public void testMatchesSortedScheduleAcrossLevels() {
+        Random random = new Random(42);
+        ExpiryWheel wheel = new ExpiryWheel(TICK, START);
+        TreeMap<Long, List<Long>> expected = new TreeMap<>();
+        for (long id = 0; id < 2_000; id++) {
+            // Mostly 30-minute holds, some spanning the second and third levels
+            long delay = random.nextInt(10) == 0 ? random.nextInt(3 * 24 * 3_600) : random.nextInt(1_900);
+            long deadline = START + delay * TICK + random.nextInt((int) TICK);
+            wheel.schedule(id, deadline);
+            expected.computeIfAbsent(Math.floorDiv(deadline + TICK - 1, TICK), tick -> new ArrayList<>()).add(id);
+        }
+
+        long now = START;
+        int fired = 0;
+        while (fired < 2_000) {
+            now += random.nextInt(600) * TICK;
+            List<Long> due = wheel.advance(now);
+            List<Long> want = new ArrayList<>();
+            expected.headMap(Math.floorDiv(now, TICK), true).values().forEach(want::addAll);
+            expected.headMap(Math.floorDiv(now, TICK), true).clear();
+            assertEquals(due, want, "due at " + now);
+            fired += due.size();
+        }
+        assertEquals(wheel.size(), 0);
+        assertTrue(expected.isEmpty());
+    }
+}
@@ -0,0 +1,236 @@
+package com.rental.car.reservation;
+
+import com.rental.car.inventory.CarType;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.testng.Assert.*;
+
+public class PricingKernelTest {
+
+    private static final String[] RULE_CODES = {
+            PricingKernel.ONE_WAY_FEE, PricingKernel.AIRPORT_FEE, PricingKernel.WEEKLY_DISCOUNT,
+            PricingKernel.MONTHLY_DISCOUNT, PricingKernel.SALES_TAX
+    };
+
+    @Test
+    public void testMatchesBigDecimalCalculationOnRandomQuotes() {
+        Random random = new Random(20261018L);
+        LocalDate base = LocalDate.of(2026, 1, 1);
+
+        for (int i = 0; i < 20_000; i++) {
+            RatePlan plan = randomPlan(random);
+            Map<String, PricingRule> rules = randomRules(random);
+            LocalDate pickup = base.plusDays(random.nextInt(730));
+            LocalDate dropoff = pickup.plusDays(1 + random.nextInt(random.nextBoolean() ? 10 : 90));
+            boolean airport = random.nextBoolean();
+            boolean oneWay = random.nextInt(3) == 0;
+            boolean available = random.nextBoolean();
+
+            PriceCalculationResponse expected = ReferencePricing.price(plan, code -> Optional.ofNullable(rules.get(code)),
+                    pickup, dropoff, airport, oneWay, available);
+            PricingKernel.RateCard card = PricingKernel.RateCard.from(plan);
+            PriceCalculationResponse actual = PricingKernel.toResponse(
+                    PricingKernel.quote(card, PricingKernel.Rules.from(rules), pickup.toEpochDay(), dropoff.toEpochDay(),
+                            airport, oneWay),
+                    card, available);
+
+            assertEquals(actual, expected, "case " + i + ": plan=" + describe(plan) + " rules=" + describe(rules)
+                    + " pickup=" + pickup + " return=" + dropoff + " airport=" + airport + " oneWay=" + oneWay);
+        }
+    }
+
+    @Test
+    public void testDefaultsMatchBigDecimalCalculation() {
+        RatePlan fallback = new RatePlan(null, "NYC", CarType.SUV, LocalDate.of(2025, 1, 1), LocalDate.of(2027, 1, 1),
+                new BigDecimal("50.00"), new BigDecimal("280.00"), null, "USD", "Default rate plan", true);
+        LocalDate pickup = LocalDate.of(2026, 2, 3);
+        LocalDate dropoff = LocalDate.of(2026, 3, 20);
+
+        PriceCalculationResponse expected = ReferencePricing.price(fallback, code -> Optional.empty(),
+                pickup, dropoff, true, true, true);
+        PriceCalculationResponse actual = PricingKernel.toResponse(
+                PricingKernel.quote(PricingKernel.RateCard.DEFAULT, PricingKernel.Rules.DEFAULT,
+                        pickup.toEpochDay(), dropoff.toEpochDay(), true, true),
+                PricingKernel.RateCard.DEFAULT, true);
+
+        assertEquals(actual, expected);
+    }
+
+    @Test
+    public void testRoundHalfUpMatchesBigDecimal() {
+        long[] numerators = {0, 1, 49, 50, 51, 149, 150, 151, -1, -49, -50, -51, -150, 123_456_789};
+        for (long n : numerators) {
+            assertEquals(PricingKernel.roundHalfUp(n, 100),
+                    BigDecimal.valueOf(n).divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP).longValueExact(),
+                    "n=" + n);
+        }
+    }
+
+    @Test
+    public void testBasisPointsRoundLikeFourDecimalDivide() {
+        assertEquals(PricingKernel.toBasisPoints(new BigDecimal("6.25")), 625);
+        assertEquals(PricingKernel.toBasisPoints(new BigDecimal("6.255")), 626);
+        assertEquals(PricingKernel.toBasisPoints(new BigDecimal("12")), 1200);
+    }
+
+    private static RatePlan randomPlan(Random random) {
+        long daily = 1_000 + random.nextInt(30_000);
+        long weekly = daily * (4 + random.nextInt(4)) + random.nextInt(100);
+        BigDecimal multiplier = switch (random.nextInt(4)) {
+            case 0 -> null;
+            case 1 -> BigDecimal.valueOf(80 + random.nextInt(21), 2);
+            default -> BigDecimal.valueOf(100 + random.nextInt(60), 2);
+        };
+        return new RatePlan(null, "BOS", CarType.SEDAN, LocalDate.of(2020, 1, 1), LocalDate.of(2030, 1, 1),
+                BigDecimal.valueOf(daily, 2), BigDecimal.valueOf(weekly, 2), multiplier, "USD", null, true);
+    }
+
+    private static Map<String, PricingRule> randomRules(Random random) {
+        Map<String, PricingRule> rules = new HashMap<>();
+        for (String code : RULE_CODES) {
+            if (random.nextInt(4) == 0) {
+                continue;
+            }
+            BigDecimal percentage = random.nextInt(5) == 0 ? null
+                    : random.nextInt(4) == 0 ? BigDecimal.valueOf(random.nextInt(30_000), 3)
+                    : BigDecimal.valueOf(random.nextInt(3_000), 2);
+            BigDecimal fixed = random.nextInt(5) == 0 ? null : BigDecimal.valueOf(random.nextInt(20_000), 2);
+            rules.put(code, new PricingRule(null, code, code, PricingRule.PricingRuleType.TAX, percentage, fixed,
+                    null, true));
+        }
+        return rules;
+    }
+
+    private static String describe(RatePlan plan) {
+        return plan.getDailyRate() + "/" + plan.getWeeklyRate() + "/" + plan.getWeekendMultiplier();
+    }
+
+    private static String describe(Map<String, PricingRule> rules) {
+        List<String> parts = new ArrayList<>();
+        rules.forEach((code, rule) -> parts.add(code + "=" + rule.getPercentageValue() + "%," + rule.getFixedAmount()));
+        return parts.toString();
+    }
+
+    /**
+     * The BigDecimal calculation the kernel replaced, kept as the reference for equivalence.
+     */
+    private static final class ReferencePricing {
+
+        static PriceCalculationResponse price(RatePlan ratePlan, Function<String, Optional<PricingRule>> rules,
+                                              LocalDate pickupDate, LocalDate returnDate, boolean airport,
+                                              boolean oneWay, boolean available) {
+            long totalDays = ChronoUnit.DAYS.between(pickupDate, returnDate);
+
+            int weeks = (int) (totalDays / 7);
+            int remainingDays = (int) (totalDays % 7);
+            BigDecimal weekCharge = ratePlan.getWeeklyRate().multiply(BigDecimal.valueOf(weeks));
+            BigDecimal dayCharge = ratePlan.getDailyRate().multiply(BigDecimal.valueOf(remainingDays));
+            PriceCalculationResponse.TimeCharge timeCharge = new PriceCalculationResponse.TimeCharge(
+                    weeks, remainingDays, ratePlan.getWeeklyRate(), ratePlan.getDailyRate(),
+                    weekCharge.add(dayCharge).setScale(2, RoundingMode.HALF_UP));
+
+            List<PriceCalculationResponse.LineItem> additionalCharges = new ArrayList<>();
+            BigDecimal additionalTotal = BigDecimal.ZERO;
+            if (airport) {
+                BigDecimal fee = rules.apply("AIRPORT_FEE_LOGAN").map(PricingRule::getFixedAmount)
+                        .orElse(new BigDecimal("25.00"));
+                additionalCharges.add(new PriceCalculationResponse.LineItem("Airport facility fee", fee, "FEE"));
+                additionalTotal = additionalTotal.add(fee);
+            }
+            if (oneWay) {
+                BigDecimal fee = rules.apply("ONE_WAY_FEE").map(PricingRule::getFixedAmount)
+                        .orElse(new BigDecimal("50.00"));
+                additionalCharges.add(new PriceCalculationResponse.LineItem(
+                        "One-way fee (different return location)", fee, "FEE"));
+                additionalTotal = additionalTotal.add(fee);
+            }
+            BigDecimal weekendSurcharge = weekendSurcharge(pickupDate, returnDate, ratePlan.getDailyRate(),
+                    ratePlan.getWeekendMultiplier());
+            if (weekendSurcharge.compareTo(BigDecimal.ZERO) > 0) {
+                additionalCharges.add(new PriceCalculationResponse.LineItem(
+                        "Weekend surcharge", weekendSurcharge, "SURCHARGE"));
+                additionalTotal = additionalTotal.add(weekendSurcharge);
+            }
+
+            BigDecimal subtotal = timeCharge.amount().add(additionalTotal);
+            BigDecimal discountTotal = BigDecimal.ZERO;
+            if (totalDays >= 30) {
+                BigDecimal discount = lengthDiscount(subtotal, "MONTHLY_DISCOUNT", rules);
+                if (discount.compareTo(BigDecimal.ZERO) > 0) {
+                    additionalCharges.add(new PriceCalculationResponse.LineItem(
+                            "Monthly rental discount (30+ days)", discount.negate(), "DISCOUNT"));
+                    discountTotal = discountTotal.add(discount);
+                }
+            } else if (totalDays >= 7) {
+                BigDecimal discount = lengthDiscount(subtotal, "WEEKLY_DISCOUNT", rules);
+                if (discount.compareTo(BigDecimal.ZERO) > 0) {
+                    additionalCharges.add(new PriceCalculationResponse.LineItem(
+                            "Weekly rental discount (7+ days)", discount.negate(), "DISCOUNT"));
+                    discountTotal = discountTotal.add(discount);
+                }
+            }
+            subtotal = subtotal.subtract(discountTotal);
+
+            BigDecimal taxRate = rules.apply("MA_SALES_TAX").map(PricingRule::getPercentageValue)
+                    .orElse(new BigDecimal("10.00"));
+            BigDecimal salesTax = subtotal.multiply(taxRate.divide(new BigDecimal("100"), 4, RoundingMode.HALF_UP))
+                    .setScale(2, RoundingMode.HALF_UP);
+
+            return new PriceCalculationResponse(
+                    totalDays,
+                    ratePlan.getDailyRate(),
+                    timeCharge,
+                    additionalCharges,
+                    subtotal,
+                    List.of(new PriceCalculationResponse.LineItem("Sales Tax", salesTax, "TAX")),
+                    salesTax,
+                    subtotal.add(salesTax).setScale(2, RoundingMode.HALF_UP),
+                    available,
+                    ratePlan.getCurrency()
+            );
+        }
+
+        private static BigDecimal weekendSurcharge(LocalDate pickupDate, LocalDate returnDate,
+                                                   BigDecimal dailyRate, BigDecimal weekendMultiplier) {
+            if (weekendMultiplier == null || weekendMultiplier.compareTo(BigDecimal.ONE) <= 0) {
+                return BigDecimal.ZERO;
+            }
+            long weekendDays = 0;
+            for (LocalDate current = pickupDate; current.isBefore(returnDate); current = current.plusDays(1)) {
+                DayOfWeek day = current.getDayOfWeek();
+                if (day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY) {
+                    weekendDays++;
+                }
+            }
+            if (weekendDays == 0) {
+                return BigDecimal.ZERO;
+            }
+            return dailyRate.multiply(weekendMultiplier.subtract(BigDecimal.ONE))
+                    .multiply(BigDecimal.valueOf(weekendDays))
+                    .setScale(2, RoundingMode.HALF_UP);
+        }
+
+        private static BigDecimal lengthDiscount(BigDecimal amount, String ruleCode,
+                                                 Function<String, Optional<PricingRule>> rules) {
+            BigDecimal percentage = rules.apply(ruleCode).map(PricingRule::getPercentageValue).orElse(BigDecimal.ZERO);
+            if (percentage.compareTo(BigDecimal.ZERO) <= 0) {
+                return BigDecimal.ZERO;
+            }
+            return amount.multiply(percentage.divide(new BigDecimal("100"), 4, RoundingMode.HALF_UP))
+                    .setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+}
@@ -8,8 +8,9 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.util.Optional;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -36,7 +37,7 @@ public class PricingServiceTest {
         pricingService = new PricingService(ratePlanRepo, pricingRuleRepo, inventoryService);
 
         ratePlan = new RatePlan(
-                1L, "LAX", CarType.SEDAN, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31),
+                1L, "LAX", CarType.SEDAN, LocalDate.of(2000, 1, 1), LocalDate.of(2099, 12, 31),
                 new BigDecimal("50.00"), new BigDecimal("280.00"), new BigDecimal("1.2"),
                 "USD", "Standard rate", true
         );
@@ -44,11 +45,9 @@ public class PricingServiceTest {
 
     @Test
     public void testCalculatePrice() {
-        when(ratePlanRepo.findApplicableRatePlan(anyString(), any(CarType.class), any(LocalDate.class)))
-                .thenReturn(Optional.of(ratePlan));
-        when(pricingRuleRepo.findByRuleCodeAndActiveTrue("SALES_TAX"))
-                .thenReturn(Optional.empty());
+        when(ratePlanRepo.findByActiveTrue()).thenReturn(List.of(ratePlan));
         when(inventoryService.isAirportBranch(anyString())).thenReturn(false);
+        pricingService.reloadPricing();
 
         PriceCalculationResponse result = pricingService.calculatePrice(
                 CarType.SEDAN, "LAX", "LAX",
@@ -63,13 +62,9 @@ public class PricingServiceTest {
 
     @Test
     public void testCalculatePriceWithOneWayFee() {
-        when(ratePlanRepo.findApplicableRatePlan(anyString(), any(CarType.class), any(LocalDate.class)))
-                .thenReturn(Optional.of(ratePlan));
-        when(pricingRuleRepo.findByRuleCodeAndActiveTrue("ONE_WAY_FEE"))
-                .thenReturn(Optional.empty());
-        when(pricingRuleRepo.findByRuleCodeAndActiveTrue("SALES_TAX"))
-                .thenReturn(Optional.empty());
+        when(ratePlanRepo.findByActiveTrue()).thenReturn(List.of(ratePlan));
         when(inventoryService.isAirportBranch(anyString())).thenReturn(false);
+        pricingService.reloadPricing();
 
         PriceCalculationResponse result = pricingService.calculatePrice(
                 CarType.SEDAN, "LAX", "SFO",
@@ -90,11 +85,9 @@ public class PricingServiceTest {
 
     @Test
     public void testCalculatePriceWithDefaultRatePlan() {
-        when(ratePlanRepo.findApplicableRatePlan(anyString(), any(CarType.class), any(LocalDate.class)))
-                .thenReturn(Optional.empty());
-        when(pricingRuleRepo.findByRuleCodeAndActiveTrue("SALES_TAX"))
-                .thenReturn(Optional.empty());
+        when(ratePlanRepo.findByActiveTrue()).thenReturn(List.of(ratePlan));
         when(inventoryService.isAirportBranch(anyString())).thenReturn(false);
+        pricingService.reloadPricing();
 
         PriceCalculationResponse result = pricingService.calculatePrice(
                 CarType.SUV, "NYC", "NYC",
@@ -104,4 +97,114 @@ public class PricingServiceTest {
         assertNotNull(result);
         assertEquals(result.rentalDays(), 3L);
     }
+
+    @Test
+    public void testQuotesAreServedFromSnapshot() {
+        when(ratePlanRepo.findByActiveTrue()).thenReturn(List.of(ratePlan));
+        when(pricingRuleRepo.findByActiveTrue()).thenReturn(List.of(rule("MA_SALES_TAX", new BigDecimal("6.25"), null)));
+        pricingService.reloadPricing();
+
+        for (int i = 0; i < 3; i++) {
+            pricingService.calculatePrice(CarType.SEDAN, "LAX", "BOS",
+                    LocalDate.now().plusDays(5), LocalDate.now().plusDays(10), true);
+        }
+
+        verify(ratePlanRepo, times(1)).findByActiveTrue();
+        verify(pricingRuleRepo, times(1)).findByActiveTrue();
+        verifyNoMoreInteractions(ratePlanRepo, pricingRuleRepo);
+    }
+
+    @Test
+    public void testReloadSwapsSnapshot() {
+        LocalDate pickup = LocalDate.now().plusDays(5);
+        RatePlan repriced = new RatePlan(
+                4L, "LAX", CarType.SEDAN, LocalDate.of(2000, 1, 1), LocalDate.of(2099, 12, 31),
+                new BigDecimal("60.00"), new BigDecimal("330.00"), null,
+                "USD", "Repriced", true
+        );
+        when(ratePlanRepo.findByActiveTrue()).thenReturn(List.of(ratePlan)).thenReturn(List.of(repriced));
+        pricingService.reloadPricing();
+
+        PriceCalculationResponse before = pricingService.calculatePrice(
+                CarType.SEDAN, "LAX", "LAX", pickup, pickup.plusDays(2), true);
+        PricingSnapshot reloaded = pricingService.reloadPricing();
+        PriceCalculationResponse after = pricingService.calculatePrice(
+                CarType.SEDAN, "LAX", "LAX", pickup, pickup.plusDays(2), true);
+
+        assertEquals(before.dailyRate(), new BigDecimal("50.00"));
+        assertEquals(after.dailyRate(), new BigDecimal("60.00"));
+        assertEquals(reloaded.ratePlanCount(), 1);
+    }
+
+    @Test
+    public void testCalculatePricesMatchesSingleQuotes() {
+        LocalDate pickup = LocalDate.of(2026, 3, 6);
+        LocalDate dropoff = LocalDate.of(2026, 3, 16);
+        RatePlan bosPlan = new RatePlan(
+                2L, "BOS", CarType.SUV, LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31),
+                new BigDecimal("70.00"), new BigDecimal("400.00"), null,
+                "USD", "Boston SUV", true
+        );
+        when(ratePlanRepo.findByActiveTrue()).thenReturn(List.of(ratePlan, bosPlan));
+        when(pricingRuleRepo.findByActiveTrue()).thenReturn(List.of(
+                rule("MA_SALES_TAX", new BigDecimal("6.25"), null),
+                rule("WEEKLY_DISCOUNT", new BigDecimal("12.00"), null),
+                rule("AIRPORT_FEE_LOGAN", null, new BigDecimal("30.00"))
+        ));
+        when(inventoryService.isAirportBranch("BOS")).thenReturn(true);
+
+        List<PriceQuery> queries = List.of(
+                new PriceQuery(CarType.SEDAN, "LAX", "LAX", pickup, dropoff, true),
+                new PriceQuery(CarType.SUV, "BOS", "LAX", pickup, dropoff, false),
+                new PriceQuery(CarType.VAN, "BOS", "BOS", pickup, pickup.plusDays(2), true)
+        );
+
+        pricingService.reloadPricing();
+        List<PriceCalculationResponse> batch = pricingService.calculatePrices(queries);
+
+        assertEquals(batch.size(), 3);
+        for (int i = 0; i < queries.size(); i++) {
+            PriceQuery q = queries.get(i);
+            assertEquals(batch.get(i), pricingService.calculatePrice(q.carType(), q.pickupBranchCode(),
+                    q.returnBranchCode(), q.pickupDate(), q.returnDate(), q.available()));
+        }
+        assertEquals(batch.get(1).taxes().get(0).amount(), batch.get(1).subtotal()
+                .multiply(new BigDecimal("0.0625")).setScale(2, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    public void testCalculatePricesPicksLatestPlanInEffect() {
+        LocalDate pickup = LocalDate.of(2026, 7, 1);
+        RatePlan summer = new RatePlan(
+                3L, "LAX", CarType.SEDAN, LocalDate.of(2026, 6, 1), LocalDate.of(2026, 8, 31),
+                new BigDecimal("65.00"), new BigDecimal("350.00"), null,
+                "USD", "Summer", true
+        );
+        when(ratePlanRepo.findByActiveTrue()).thenReturn(List.of(summer, ratePlan));
+        pricingService.reloadPricing();
+
+        List<PriceCalculationResponse> result = pricingService.calculatePrices(List.of(
+                new PriceQuery(CarType.SEDAN, "LAX", "LAX", pickup, pickup.plusDays(2), true),
+                new PriceQuery(CarType.SEDAN, "LAX", "LAX", pickup.plusMonths(3), pickup.plusMonths(3).plusDays(2), true)
+        ));
+
+        assertEquals(result.get(0).dailyRate(), new BigDecimal("65.00"));
+        assertEquals(result.get(1).dailyRate(), new BigDecimal("50.00"));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCalculatePriceBeforeSnapshotIsLoaded() {
+        pricingService.calculatePrice(CarType.SEDAN, "LAX", "LAX",
+                LocalDate.now().plusDays(5), LocalDate.now().plusDays(10), true);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCalculatePricesRejectsInvalidDates() {
+        pricingService.calculatePrices(List.of(
+                new PriceQuery(CarType.SEDAN, "LAX", "LAX", LocalDate.now(), LocalDate.now(), true)));
+    }
+
+    private static PricingRule rule(String code, BigDecimal percentage, BigDecimal fixedAmount) {
+        return new PricingRule(null, code, code, PricingRule.PricingRuleType.TAX, percentage, fixedAmount, null, true);
+    }
 }
@@ -0,0 +1,80 @@
+package com.rental.car.reservation;
+
+import com.rental.car.inventory.CarType;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+public class PricingSnapshotTest {
+
+    @Test
+    public void testRulesResolvedWithDefaults() {
+        PricingRule tax = new PricingRule(1L, "MA_SALES_TAX", "Tax", PricingRule.PricingRuleType.TAX,
+                new BigDecimal("6.25"), null, null, true);
+        PricingRule oneWay = new PricingRule(2L, "ONE_WAY_FEE", "One way", PricingRule.PricingRuleType.ONE_WAY_FEE,
+                null, new BigDecimal("75.00"), null, true);
+        PricingSnapshot snapshot = new PricingSnapshot(List.of(tax, oneWay), List.of());
+
+        assertEquals(snapshot.rules(), new PricingKernel.Rules(7_500, 2_500, 0, 0, 625));
+        assertEquals(snapshot.ruleCount(), 2);
+    }
+
+    @Test
+    public void testRatePlanIntervals() {
+        RatePlan year = plan("LAX", CarType.SEDAN, "2026-01-01", "2026-12-31", 4_000);
+        RatePlan summer = plan("LAX", CarType.SEDAN, "2026-06-01", "2026-08-31", 6_500);
+        RatePlan suv = plan("LAX", CarType.SUV, "2026-01-01", "2026-12-31", 7_000);
+        PricingSnapshot snapshot = new PricingSnapshot(List.of(), List.of(summer, suv, year));
+
+        assertEquals(dailyCents(snapshot, "LAX", CarType.SEDAN, "2026-03-01"), 4_000);
+        assertEquals(dailyCents(snapshot, "LAX", CarType.SEDAN, "2026-06-01"), 6_500);
+        assertEquals(dailyCents(snapshot, "LAX", CarType.SEDAN, "2026-08-31"), 6_500);
+        assertEquals(dailyCents(snapshot, "LAX", CarType.SEDAN, "2026-09-01"), 4_000);
+        assertEquals(dailyCents(snapshot, "LAX", CarType.SUV, "2026-06-15"), 7_000);
+        assertSame(snapshot.rateCard("LAX", CarType.SEDAN, LocalDate.parse("2027-01-01").toEpochDay()),
+                PricingKernel.RateCard.DEFAULT);
+        assertSame(snapshot.rateCard("BOS", CarType.SEDAN, LocalDate.parse("2026-03-01").toEpochDay()),
+                PricingKernel.RateCard.DEFAULT);
+        assertEquals(snapshot.ratePlanCount(), 3);
+    }
+
+    @Test
+    public void testMatchesLinearScanOnRandomPlans() {
+        Random random = new Random(42);
+        LocalDate base = LocalDate.of(2026, 1, 1);
+        List<RatePlan> plans = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            LocalDate from = base.plusDays(random.nextInt(365));
+            plans.add(plan("BOS", CarType.SEDAN, from.toString(), from.plusDays(random.nextInt(90)).toString(),
+                    1_000 + from.getDayOfYear()));
+        }
+        PricingSnapshot snapshot = new PricingSnapshot(List.of(), plans);
+
+        for (int day = -10; day < 470; day++) {
+            LocalDate date = base.plusDays(day);
+            Optional<RatePlan> expected = plans.stream()
+                    .filter(p -> !date.isBefore(p.getEffectiveFrom()) && !date.isAfter(p.getEffectiveTo()))
+                    .max(Comparator.comparing(RatePlan::getEffectiveFrom));
+            PricingKernel.RateCard card = snapshot.rateCard("BOS", CarType.SEDAN, date.toEpochDay());
+            assertEquals(card, expected.map(PricingKernel.RateCard::from).orElse(PricingKernel.RateCard.DEFAULT),
+                    date.toString());
+        }
+    }
+
+    private static long dailyCents(PricingSnapshot snapshot, String branchCode, CarType carType, String date) {
+        return snapshot.rateCard(branchCode, carType, LocalDate.parse(date).toEpochDay()).dailyCents();
+    }
+
+    private static RatePlan plan(String branchCode, CarType carType, String from, String to, long dailyCents) {
+        return new RatePlan(null, branchCode, carType, LocalDate.parse(from), LocalDate.parse(to),
+                BigDecimal.valueOf(dailyCents, 2), new BigDecimal("280.00"), null, "USD", null, true);
+    }
+}
@@ -0,0 +1,71 @@
+package com.rental.car.reservation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+
+public class ReservationArchiverTest {
+
+    @Mock
+    private ReservationRepository reservationRepo;
+
+    private SimpleMeterRegistry registry;
+    private ReservationArchiver archiver;
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registry = new SimpleMeterRegistry();
+        archiver = new ReservationArchiver(reservationRepo, registry, Duration.ofDays(90), 2);
+    }
+
+    @Test
+    public void testArchivesReservationsReturnedBeforeCutoff() {
+        when(reservationRepo.archiveReservations(any(LocalDate.class), eq(2))).thenReturn(1);
+
+        archiver.archive();
+
+        ArgumentCaptor<LocalDate> cutoff = ArgumentCaptor.forClass(LocalDate.class);
+        verify(reservationRepo, times(1)).archiveReservations(cutoff.capture(), eq(2));
+        assertEquals(cutoff.getValue(), LocalDate.now().minusDays(90));
+        assertEquals(registry.get("reservations.archived").counter().count(), 1.0);
+    }
+
+    @Test
+    public void testArchivesInBatchesUntilShortBatch() {
+        when(reservationRepo.archiveReservations(any(LocalDate.class), eq(2)))
+                .thenReturn(2)
+                .thenReturn(2)
+                .thenReturn(0);
+
+        archiver.archive();
+
+        verify(reservationRepo, times(3)).archiveReservations(any(LocalDate.class), eq(2));
+        assertEquals(registry.get("reservations.archived").counter().count(), 4.0);
+    }
+
+    @Test
+    public void testFailureStopsTheRun() {
+        when(reservationRepo.archiveReservations(any(LocalDate.class), eq(2)))
+                .thenReturn(2)
+                .thenThrow(new QueryTimeoutException("Database error"));
+
+        archiver.archive();
+
+        // The first batch is committed; the rest is left for the next run
+        verify(reservationRepo, times(2)).archiveReservations(any(LocalDate.class), eq(2));
+        assertEquals(registry.get("reservations.archived").counter().count(), 2.0);
+    }
+}
@@ -63,6 +63,19 @@ public class ReservationControllerTest {
         verify(service, times(1)).calculatePrice(anyLong(), any(LocalDate.class), any(LocalDate.class), any(), any());
     }
 
+    @Test
+    public void testCalculatePrices() {
+        BatchPriceRequest request = new BatchPriceRequest(
+                Arrays.asList(10L, 11L), LocalDate.now().plusDays(5), LocalDate.now().plusDays(10), null, null);
+        BatchPriceResponse response = new BatchPriceResponse(
+                Arrays.asList(new BatchPriceResponse.CarPrice(10L, "LAX", "LAX", pricingResponse)), Arrays.asList(11L));
+        when(service.calculatePrices(request)).thenReturn(response);
+
+        BatchPriceResponse result = controller.calculatePrices(request);
+
+        assertSame(result, response);
+    }
+
     @Test
     public void testCreateReservation() {
         ReservationCreateRequest request = new ReservationCreateRequest(
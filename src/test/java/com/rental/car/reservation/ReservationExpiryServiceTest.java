@@ -1,24 +1,38 @@
 package com.rental.car.reservation;
 
+import com.rental.car.inventory.CarBooking;
+import com.rental.car.inventory.InventoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class ReservationExpiryServiceTest {
 
     @Mock
     private ReservationRepository reservationRepo;
 
+    @Mock
+    private InventoryService inventoryService;
+
+    private SimpleMeterRegistry registry;
     private ReservationExpiryService expiryService;
 
     private Reservation expiredReservation;
@@ -26,62 +40,199 @@ public class ReservationExpiryServiceTest {
     @BeforeMethod
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        expiryService = new ReservationExpiryService(reservationRepo);
+        registry = new SimpleMeterRegistry();
+        expiryService = new ReservationExpiryService(reservationRepo, inventoryService, registry, 2, Duration.ofSeconds(1));
 
-        expiredReservation = new Reservation(
-                1L, 10L, "customer@example.com", "John Doe", "+1-555-0100",
-                "LAX", "LAX", LocalDate.now().plusDays(5), LocalDate.now().plusDays(10),
-                ReservationStatus.PENDING, new BigDecimal("250.00"), new BigDecimal("50.00"),
-                null, LocalDateTime.now().minusHours(1), LocalDateTime.now().minusHours(1),
-                LocalDateTime.now().minusMinutes(5), 0
-        );
+        expiredReservation = expired(1L, 10L, 5);
     }
 
     @Test
     public void testExpireStaleReservations() {
-        when(reservationRepo.findExpiredPendingReservations(any(LocalDateTime.class)))
-                .thenReturn(Arrays.asList(expiredReservation));
-        when(reservationRepo.updateStatusAtomically(1L, ReservationStatus.PENDING, ReservationStatus.CANCELLED))
-                .thenReturn(1);
+        when(reservationRepo.cancelExpiredPending(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(expiredReservation));
 
         expiryService.expireStaleReservations();
 
-        verify(reservationRepo, times(1)).findExpiredPendingReservations(any(LocalDateTime.class));
-        verify(reservationRepo, times(1)).updateStatusAtomically(1L, ReservationStatus.PENDING, ReservationStatus.CANCELLED);
+        verify(reservationRepo, times(1)).cancelExpiredPending(any(LocalDateTime.class), eq(2));
+        verify(inventoryService, times(1)).markCarReleased(new CarBooking(10L,
+                expiredReservation.getPickupDate(), expiredReservation.getReturnDate()));
+        verify(inventoryService, times(1)).invalidateSearchesForCars(Set.of(10L));
+        verify(reservationRepo, never()).updateStatusAtomically(anyLong(), any(), any());
+        assertEquals(registry.get("reservations.expiry.batch.size").tag("trigger", "sweep").summary().totalAmount(), 1.0);
+        assertTrue(registry.get("reservations.expiry.lag").tag("trigger", "sweep").timer().max(TimeUnit.MINUTES) >= 5);
     }
 
     @Test
     public void testExpireStaleReservationsNoExpired() {
-        when(reservationRepo.findExpiredPendingReservations(any(LocalDateTime.class)))
-                .thenReturn(Arrays.asList());
+        when(reservationRepo.cancelExpiredPending(any(LocalDateTime.class), eq(2))).thenReturn(List.of());
 
         expiryService.expireStaleReservations();
 
-        verify(reservationRepo, times(1)).findExpiredPendingReservations(any(LocalDateTime.class));
-        verify(reservationRepo, never()).updateStatusAtomically(anyLong(), any(), any());
+        verify(reservationRepo, times(1)).cancelExpiredPending(any(LocalDateTime.class), eq(2));
+        verify(inventoryService, never()).markCarReleased(any());
+        verify(inventoryService, never()).invalidateSearchesForCars(any());
+        assertEquals(registry.get("reservations.expiry.batch.size").tag("trigger", "sweep").summary().count(), 0L);
+    }
+
+    @Test
+    public void testDrainsInBatchesUntilShortBatch() {
+        when(reservationRepo.cancelExpiredPending(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(expiredReservation, expired(2L, 11L, 10)))
+                .thenReturn(List.of(expired(3L, 10L, 1)));
+
+        expiryService.expireStaleReservations();
+
+        verify(reservationRepo, times(2)).cancelExpiredPending(any(LocalDateTime.class), eq(2));
+        verify(inventoryService, times(3)).markCarReleased(any());
+        verify(inventoryService).invalidateSearchesForCars(Set.of(10L, 11L));
+        verify(inventoryService).invalidateSearchesForCars(Set.of(10L));
+        assertEquals(registry.get("reservations.expiry.batch.size").tag("trigger", "sweep").summary().count(), 2L);
+        assertEquals(registry.get("reservations.expiry.lag").tag("trigger", "sweep").timer().count(), 3L);
+    }
+
+    @Test
+    public void testSweepUsesOneCutoffForAllBatches() {
+        when(reservationRepo.cancelExpiredPending(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(expiredReservation, expired(2L, 11L, 10)))
+                .thenReturn(List.of());
+
+        expiryService.expireStaleReservations();
+
+        ArgumentCaptor<LocalDateTime> cutoffs = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(reservationRepo, times(2)).cancelExpiredPending(cutoffs.capture(), eq(2));
+        assertEquals(cutoffs.getAllValues().get(1), cutoffs.getAllValues().get(0));
     }
 
     @Test
     public void testExpireStaleReservationsWithFailure() {
-        Reservation reservation2 = new Reservation(
-                2L, 11L, "customer2@example.com", "Jane Doe", "+1-555-0200",
-                "SFO", "SFO", LocalDate.now().plusDays(3), LocalDate.now().plusDays(7),
-                ReservationStatus.PENDING, new BigDecimal("300.00"), new BigDecimal("60.00"),
-                null, LocalDateTime.now().minusHours(2), LocalDateTime.now().minusHours(2),
-                LocalDateTime.now().minusMinutes(10), 0
-        );
+        when(reservationRepo.cancelExpiredPending(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(expiredReservation, expired(2L, 11L, 10)))
+                .thenThrow(new QueryTimeoutException("Database error"));
+
+        expiryService.expireStaleReservations();
+
+        // The first batch is committed and released; the failed one is left for the next sweep
+        verify(reservationRepo, times(2)).cancelExpiredPending(any(LocalDateTime.class), eq(2));
+        verify(inventoryService, times(2)).markCarReleased(any());
+    }
+
+    @Test
+    public void testInvalidationFailureDoesNotStopSweep() {
+        when(reservationRepo.cancelExpiredPending(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(expiredReservation, expired(2L, 11L, 10)))
+                .thenReturn(List.of(expired(3L, 12L, 1)));
+        doThrow(new QueryTimeoutException("Database error"))
+                .when(inventoryService).invalidateSearchesForCars(Set.of(10L, 11L));
+
+        expiryService.expireStaleReservations();
 
-        List<Reservation> expiredList = Arrays.asList(expiredReservation, reservation2);
-        when(reservationRepo.findExpiredPendingReservations(any(LocalDateTime.class)))
-                .thenReturn(expiredList);
-        when(reservationRepo.updateStatusAtomically(1L, ReservationStatus.PENDING, ReservationStatus.CANCELLED))
-                .thenReturn(1);
-        when(reservationRepo.updateStatusAtomically(2L, ReservationStatus.PENDING, ReservationStatus.CANCELLED))
-                .thenThrow(new RuntimeException("Database error"));
+        verify(reservationRepo, times(2)).cancelExpiredPending(any(LocalDateTime.class), eq(2));
+        verify(inventoryService).invalidateSearchesForCars(Set.of(12L));
+    }
+
+    @Test
+    public void testSchedulesPendingReservationsAtStartup() {
+        LocalDateTime now = LocalDateTime.now();
+        when(reservationRepo.findPendingExpiries()).thenReturn(List.of(
+                new PendingExpiry(1L, now.minusMinutes(5)), new PendingExpiry(2L, now.plusMinutes(30))));
+        when(reservationRepo.cancelExpiredPendingIn(List.of(1L), now)).thenReturn(List.of(expiredReservation));
+
+        expiryService.schedulePending();
+        assertEquals(registry.get("reservations.expiry.scheduled").gauge().value(), 2.0);
+
+        expiryService.expireDue(now);
+
+        verify(reservationRepo).cancelExpiredPendingIn(List.of(1L), now);
+        verify(inventoryService).invalidateSearchesForCars(Set.of(10L));
+        assertEquals(registry.get("reservations.expiry.batch.size").tag("trigger", "wheel").summary().totalAmount(), 1.0);
+        assertEquals(registry.get("reservations.expiry.scheduled").gauge().value(), 1.0);
+    }
+
+    @Test
+    public void testExpiresDueReservationsInBatches() {
+        LocalDateTime now = LocalDateTime.now();
+        expiryService.schedule(1L, now.minusMinutes(5));
+        expiryService.schedule(2L, now.minusMinutes(2));
+        expiryService.schedule(3L, now.minusMinutes(1));
+        expiryService.schedule(4L, now.plusMinutes(30));
+        when(reservationRepo.cancelExpiredPendingIn(List.of(1L, 2L), now))
+                .thenReturn(List.of(expiredReservation, expired(2L, 11L, 2)));
+        when(reservationRepo.cancelExpiredPendingIn(List.of(3L), now)).thenReturn(List.of());
+
+        expiryService.expireDue(now);
+
+        verify(inventoryService, times(2)).markCarReleased(any());
+        verify(inventoryService).invalidateSearchesForCars(Set.of(10L, 11L));
+        verify(reservationRepo, never()).cancelExpiredPending(any(), anyInt());
+        assertEquals(registry.get("reservations.expiry.lag").tag("trigger", "wheel").timer().count(), 2L);
+        assertEquals(registry.get("reservations.expiry.scheduled").gauge().value(), 1.0);
+    }
+
+    @Test
+    public void testWheelTicksOnItsOwnThread() {
+        ReservationExpiryService ticking = new ReservationExpiryService(reservationRepo, inventoryService,
+                new SimpleMeterRegistry(), 2, Duration.ofMillis(10));
+        when(reservationRepo.cancelExpiredPendingIn(eq(List.of(1L)), any(LocalDateTime.class)))
+                .thenReturn(List.of(expiredReservation));
+        doThrow(new IllegalStateException("Index unavailable")).when(inventoryService).markCarReleased(any());
+        ticking.schedule(1L, LocalDateTime.now().minusMinutes(5));
+        ticking.schedule(2L, LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(50)));
+
+        ticking.startWheel();
+        try {
+            // Releasing the first reservation fails; the wheel keeps going and expires the next one
+            verify(reservationRepo, timeout(2000)).cancelExpiredPendingIn(eq(List.of(2L)), any(LocalDateTime.class));
+        } finally {
+            ticking.stopWheel();
+        }
+    }
+
+    @Test
+    public void testUnscheduledReservationsDoNotExpire() {
+        LocalDateTime now = LocalDateTime.now();
+        expiryService.schedule(1L, now.minusMinutes(5));
+        expiryService.unschedule(1L);
+
+        expiryService.expireDue(now);
+
+        verify(reservationRepo, never()).cancelExpiredPendingIn(any(), any());
+        verify(inventoryService, never()).markCarReleased(any());
+    }
+
+    @Test
+    public void testFailedBatchIsLeftToTheSweep() {
+        LocalDateTime now = LocalDateTime.now();
+        expiryService.schedule(1L, now.minusMinutes(5));
+        expiryService.schedule(2L, now.minusMinutes(2));
+        expiryService.schedule(3L, now.minusMinutes(1));
+        when(reservationRepo.cancelExpiredPendingIn(List.of(1L, 2L), now))
+                .thenThrow(new QueryTimeoutException("Database error"));
+
+        expiryService.expireDue(now);
+
+        verify(reservationRepo, never()).cancelExpiredPendingIn(eq(List.of(3L)), any());
+        verify(inventoryService, never()).markCarReleased(any());
+        assertEquals(registry.get("reservations.expiry.scheduled").gauge().value(), 0.0);
+    }
+
+    @Test
+    public void testSweepDropsReleasedReservationsFromTheWheel() {
+        expiryService.schedule(1L, LocalDateTime.now().plusMinutes(1));
+        when(reservationRepo.cancelExpiredPending(any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(expiredReservation));
 
         expiryService.expireStaleReservations();
 
-        verify(reservationRepo, times(1)).findExpiredPendingReservations(any(LocalDateTime.class));
-        verify(reservationRepo, times(2)).updateStatusAtomically(anyLong(), any(), any());
+        assertEquals(registry.get("reservations.expiry.scheduled").gauge().value(), 0.0);
+    }
+
+    private static Reservation expired(Long id, Long carId, int minutesAgo) {
+        return new Reservation(
+                id, carId, "customer" + id + "@example.com", "John Doe", "+1-555-0100",
+                "LAX", "LAX", LocalDate.now().plusDays(5), LocalDate.now().plusDays(10),
+                ReservationStatus.CANCELLED, new BigDecimal("250.00"), new BigDecimal("50.00"),
+                null, LocalDateTime.now().minusHours(1), LocalDateTime.now(),
+                LocalDateTime.now().minusMinutes(minutesAgo), 1
+        );
     }
 }
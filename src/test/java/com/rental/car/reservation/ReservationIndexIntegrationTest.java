@@ -0,0 +1,197 @@
+package com.rental.car.reservation;
+
+import com.rental.car.TestcontainersConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
+import org.springframework.transaction.annotation.Transactional;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Checks that the hot reservation queries are planned against the partial indexes from V7 and
+ * the overlap constraint's GiST index on the stored period (V8). Native queries are explained as
+ * declared on the repository; JPQL ones must contain the status filter of the SQL explained.
+ * The test tables are tiny, so sequential and bitmap scans are switched off for the
+ * transaction; the planner then still has to pick the index the query's predicate matches.
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+@Transactional
+public class ReservationIndexIntegrationTest extends AbstractTestNGSpringContextTests {
+
+    // The partial indexes' predicates, as the repository queries must spell them
+    private static final String ACTIVE = "r.status NOT IN ('CANCELLED', 'COMPLETED')";
+    private static final String PENDING = "r.status = 'PENDING'";
+    private static final Pattern PARAMETER = Pattern.compile("(?<!:):(\\w+)");
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeMethod
+    public void setUp() {
+        jdbc.execute("SET LOCAL enable_seqscan = off");
+        jdbc.execute("SET LOCAL enable_bitmapscan = off");
+    }
+
+    @Test
+    public void testConflictChecksProbeOverlapConstraintIndex() {
+        Map<String, String> params = Map.of(
+                "carId", "1", "reservationId", "1", "carIds", "1, 2",
+                "pickupDate", "DATE '2030-01-05'", "returnDate", "DATE '2030-01-10'");
+
+        for (String method : List.of(
+                "hasConflictingReservation", "hasConflictingReservationExcluding", "findConflictingCarIds")) {
+            String plan = explain(bind(repositoryQuery(ReservationRepository.class, method), params));
+
+            assertTrue(plan.contains("using reservations_no_overlap_per_car"), method + "\n" + plan);
+            assertTrue(plan.matches("(?s).*Index Cond: .*period && .*"), method + "\n" + plan);
+        }
+    }
+
+    @Test
+    public void testFleetSearchAvailabilityProbesOverlapConstraintIndex() throws Exception {
+        // The fleet search needs the full car query; check that its NOT EXISTS still filters like this one
+        String fleetQuery = repositoryQuery(Class.forName("com.rental.car.inventory.CarRepository"), "searchFleetUnified");
+        assertContains(fleetQuery, ACTIVE);
+        assertContains(fleetQuery, "r.period && daterange(");
+
+        String plan = explain("""
+            SELECT c.id FROM cars c
+            WHERE NOT EXISTS (
+                SELECT 1 FROM reservations r
+                WHERE r.car_id = c.id
+                AND %s
+                AND r.period && daterange(DATE '2030-01-05', DATE '2030-01-10', '[)')
+            )
+        """.formatted(ACTIVE));
+
+        assertTrue(plan.contains("using reservations_no_overlap_per_car"), plan);
+    }
+
+    @Test
+    public void testAvailabilityIndexReloadIsIndexOnly() {
+        String query = repositoryQuery(ReservationRepository.class, "findActiveBookingsEndingAfter");
+        assertContains(query, ACTIVE);
+        assertContains(query, "r.returnDate > :date");
+
+        String plan = explain("""
+            SELECT r.car_id, r.pickup_date, r.return_date FROM reservations r
+            WHERE %s
+            AND r.return_date > DATE '2030-01-01'
+        """.formatted(ACTIVE));
+
+        assertTrue(plan.contains("Index Only Scan using idx_reservations_active_return"), plan);
+    }
+
+    @Test
+    public void testOverlapConstraintUsesStoredPeriod() {
+        String definition = jdbc.queryForObject("""
+            SELECT pg_get_constraintdef(oid) FROM pg_constraint
+            WHERE conname = 'reservations_no_overlap_per_car'
+        """, String.class);
+
+        assertTrue(definition.contains("period WITH &&"), definition);
+    }
+
+    @Test
+    public void testPendingExpiriesReloadIsIndexOnly() {
+        String query = repositoryQuery(ReservationRepository.class, "findPendingExpiries");
+        assertContains(query, PENDING);
+        assertContains(query, "r.expiresAt IS NOT NULL");
+
+        String plan = explain("""
+            SELECT r.id, r.expires_at FROM reservations r
+            WHERE %s
+            AND r.expires_at IS NOT NULL
+        """.formatted(PENDING));
+
+        assertTrue(plan.contains("Index Only Scan using idx_reservations_pending_expiry"), plan);
+    }
+
+    @Test
+    public void testExpirySweepWalksPendingIndexInExpiryOrder() {
+        // Only the claim of expired rows is of interest; keep the UPDATE's join from sorting them by id
+        jdbc.execute("SET LOCAL enable_mergejoin = off");
+        String plan = explain(bind(repositoryQuery(ReservationRepository.class, "cancelExpiredPending"),
+                Map.of("now", "TIMESTAMP '2030-01-01 00:00:00'", "limit", "500")));
+
+        assertTrue(plan.contains("using idx_reservations_pending_expiry"), plan);
+        assertFalse(plan.contains("Sort"), plan);
+    }
+
+    @Test
+    public void testUpcomingForCustomerNeedsNoSort() {
+        String query = repositoryQuery(ReservationRepository.class, "findUpcomingReservationsForCustomer");
+        assertContains(query, ACTIVE);
+        assertContains(query, "ORDER BY r.pickupDate ASC");
+
+        String plan = explain("""
+            SELECT * FROM reservations r
+            WHERE r.customer_email = 'customer@example.com'
+            AND r.pickup_date >= DATE '2030-01-01'
+            AND %s
+            ORDER BY r.pickup_date
+        """.formatted(ACTIVE));
+
+        assertTrue(plan.contains("using idx_reservations_customer_upcoming"), plan);
+        assertFalse(plan.contains("Sort"), plan);
+    }
+
+    @Test
+    public void testSupersededIndexesAreGone() {
+        Integer count = jdbc.queryForObject("""
+            SELECT COUNT(*) FROM pg_indexes
+            WHERE tablename = 'reservations'
+            AND indexname IN ('idx_status', 'idx_customer_email')
+        """, Integer.class);
+
+        assertEquals(count, Integer.valueOf(0));
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    // The query as declared on the repository, so the plans follow edits to it
+    private static String repositoryQuery(Class<?> repository, String method) {
+        return Arrays.stream(repository.getDeclaredMethods())
+                .filter(m -> m.getName().equals(method))
+                .map(m -> m.getAnnotation(Query.class))
+                .filter(Objects::nonNull)
+                .findFirst()
+                .map(Query::value)
+                .orElseThrow(() -> new AssertionError("No @Query on " + repository.getSimpleName() + "." + method));
+    }
+
+    private static String bind(String sql, Map<String, String> params) {
+        Matcher matcher = PARAMETER.matcher(sql);
+        StringBuilder bound = new StringBuilder();
+        while (matcher.find()) {
+            String value = params.get(matcher.group(1));
+            assertNotNull(value, "No value for :" + matcher.group(1));
+            matcher.appendReplacement(bound, Matcher.quoteReplacement(value));
+        }
+        return matcher.appendTail(bound).toString();
+    }
+
+    // JPQL cannot be explained as is, so its status filter is compared with the one planned instead
+    private static void assertContains(String query, String fragment) {
+        assertTrue(query.replaceAll("\\s+", " ").contains(fragment), fragment + " not in:\n" + query);
+    }
+}
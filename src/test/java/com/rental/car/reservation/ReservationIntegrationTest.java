@@ -10,6 +10,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.testng.Assert.*;
 
@@ -23,6 +24,9 @@ public class ReservationIntegrationTest extends AbstractTestNGSpringContextTests
     @Autowired
     private InventoryService inventoryService;
 
+    @Autowired
+    private ReservationRepository reservationRepo;
+
     private String testBranchCode;
     private Long testCarId;
 
@@ -91,4 +95,50 @@ public class ReservationIntegrationTest extends AbstractTestNGSpringContextTests
         Reservation cancelled = reservationService.getReservationById(reservation.getId());
         assertEquals(cancelled.getStatus(), ReservationStatus.CANCELLED);
     }
+
+    @Test
+    public void testOverlapQueriesMatchOnStoredPeriod() {
+        LocalDate pickup = LocalDate.now().plusDays(20);
+        ReservationCreateRequest request = new ReservationCreateRequest(
+                testCarId, "customer@example.com", "John Doe", "+1-555-1234",
+                testBranchCode, testBranchCode, pickup, pickup.plusDays(3), null
+        );
+        Reservation reservation = reservationService.createReservation(request);
+
+        assertTrue(reservationRepo.hasConflictingReservation(testCarId, pickup.plusDays(2), pickup.plusDays(5)));
+        // Back-to-back rentals do not overlap
+        assertFalse(reservationRepo.hasConflictingReservation(testCarId, pickup.plusDays(3), pickup.plusDays(5)));
+        assertFalse(reservationRepo.hasConflictingReservationExcluding(
+                testCarId, reservation.getId(), pickup, pickup.plusDays(3)));
+        assertEquals(reservationRepo.findConflictingCarIds(List.of(testCarId, -1L), pickup, pickup.plusDays(1)),
+                List.of(testCarId));
+        // The branch schedule includes reservations touching either end of the range
+        assertEquals(reservationRepo.findByBranchAndDateRange(testBranchCode, pickup.plusDays(3), pickup.plusDays(4))
+                .stream().map(Reservation::getId).toList(), List.of(reservation.getId()));
+        assertTrue(reservationRepo.findByBranchAndDateRange(testBranchCode, pickup.plusDays(4), pickup.plusDays(5))
+                .isEmpty());
+    }
+
+    @Test
+    public void testCompletedReservationsAreArchivedButStillReadable() {
+        String email = "archive" + System.currentTimeMillis() + "@example.com";
+        ReservationCreateRequest request = new ReservationCreateRequest(
+                testCarId, email, "John Doe", "+1-555-1234",
+                testBranchCode, testBranchCode,
+                LocalDate.now().minusDays(3), LocalDate.now(), null
+        );
+        Reservation reservation = reservationService.createReservation(request);
+        reservationService.confirmReservation(reservation.getId());
+        reservationService.startReservation(reservation.getId());
+        reservationService.completeReservation(reservation.getId());
+
+        assertTrue(reservationRepo.archiveReservations(LocalDate.now().plusDays(1), 1000) >= 1);
+
+        assertTrue(reservationRepo.findById(reservation.getId()).isEmpty());
+        assertEquals(reservationService.getReservationById(reservation.getId()).getStatus(),
+                ReservationStatus.COMPLETED);
+        assertEquals(reservationService.getCustomerReservations(email,
+                        org.springframework.data.domain.PageRequest.of(0, 10))
+                .getContent().stream().map(Reservation::getId).toList(), List.of(reservation.getId()));
+    }
 }
@@ -12,6 +12,7 @@ import org.testng.annotations.Test;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -22,6 +23,9 @@ public class ReservationInternalControllerTest {
     @Mock
     private ReservationService service;
 
+    @Mock
+    private PricingService pricingService;
+
     private ReservationInternalController controller;
 
     private Reservation reservation;
@@ -29,7 +33,7 @@ public class ReservationInternalControllerTest {
     @BeforeMethod
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        controller = new ReservationInternalController(service);
+        controller = new ReservationInternalController(service, pricingService);
 
         reservation = new Reservation(
                 1L, 10L, "customer@example.com", "John Doe", "+1-555-0100",
@@ -109,4 +113,17 @@ public class ReservationInternalControllerTest {
         assertEquals(result.getBody().id(), Long.valueOf(1L));
         verify(service, times(1)).getReservationById(1L);
     }
+
+    @Test
+    public void testReloadPricing() {
+        when(pricingService.reloadPricing()).thenReturn(new PricingSnapshot(
+                List.of(new PricingRule(1L, "MA_SALES_TAX", "Tax", PricingRule.PricingRuleType.TAX,
+                        new BigDecimal("6.25"), null, null, true)),
+                List.of()));
+
+        ReservationInternalController.PricingReloadResponse result = controller.reloadPricing();
+
+        assertEquals(result.pricingRules(), 1);
+        assertEquals(result.ratePlans(), 0);
+    }
 }
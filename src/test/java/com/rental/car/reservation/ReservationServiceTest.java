@@ -1,11 +1,15 @@
 package com.rental.car.reservation;
 
+import com.rental.car.common.TransactionHooks;
 import com.rental.car.exceptions.BusinessRuleViolationException;
 import com.rental.car.exceptions.ResourceNotFoundException;
 import com.rental.car.exceptions.ReservationConflictException;
+import com.rental.car.inventory.CarBooking;
 import com.rental.car.inventory.CarDTO;
 import com.rental.car.inventory.CarType;
 import com.rental.car.inventory.InventoryService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
@@ -15,13 +19,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -38,16 +46,24 @@ public class ReservationServiceTest {
     @Mock
     private PricingService pricingService;
 
+    @Mock
+    private ReservationExpiryService expiryService;
+
+    private SimpleMeterRegistry registry;
     private ReservationService reservationService;
 
     private CarDTO carDTO;
     private Reservation reservation;
     private PriceCalculationResponse pricingResponse;
 
+    private PricingService.PriceTotal priceTotal;
+
     @BeforeMethod
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        reservationService = new ReservationService(reservationRepo, inventoryService, pricingService);
+        registry = new SimpleMeterRegistry();
+        reservationService = new ReservationService(reservationRepo, inventoryService, pricingService,
+                expiryService, registry);
 
         carDTO = new CarDTO(10L, CarType.SEDAN, "ABC123", "Toyota", "Camry",
                 2023, "LAX", "LAX Branch", "Los Angeles", true, null);
@@ -70,6 +86,7 @@ public class ReservationServiceTest {
                 new BigDecimal("275.00"),
                 true, "USD"
         );
+        priceTotal = new PricingService.PriceTotal(new BigDecimal("50.00"), new BigDecimal("275.00"));
     }
 
     @Test
@@ -81,6 +98,17 @@ public class ReservationServiceTest {
         assertNotNull(result);
         assertEquals(result.getId(), Long.valueOf(1L));
         verify(reservationRepo, times(1)).findById(1L);
+        verify(reservationRepo, never()).findArchivedById(anyLong());
+    }
+
+    @Test
+    public void testGetReservationByIdFallsBackToArchive() {
+        when(reservationRepo.findById(1L)).thenReturn(Optional.empty());
+        when(reservationRepo.findArchivedById(1L)).thenReturn(Optional.of(reservation));
+
+        Reservation result = reservationService.getReservationById(1L);
+
+        assertEquals(result, reservation);
     }
 
     @Test
@@ -88,14 +116,14 @@ public class ReservationServiceTest {
         Pageable pageable = PageRequest.of(0, 10);
         Page<Reservation> page = new PageImpl<>(Arrays.asList(reservation));
 
-        when(reservationRepo.findByCustomerEmailOrderByCreatedAtDesc("customer@example.com", pageable))
+        when(reservationRepo.findCustomerHistory("customer@example.com", pageable))
                 .thenReturn(page);
 
         Page<Reservation> result = reservationService.getCustomerReservations("customer@example.com", pageable);
 
         assertNotNull(result);
         assertEquals(result.getTotalElements(), 1);
-        verify(reservationRepo, times(1)).findByCustomerEmailOrderByCreatedAtDesc("customer@example.com", pageable);
+        verify(reservationRepo, times(1)).findCustomerHistory("customer@example.com", pageable);
     }
 
     @Test
@@ -153,10 +181,8 @@ public class ReservationServiceTest {
         );
 
         when(inventoryService.getCarById(10L)).thenReturn(Optional.of(carDTO));
-        when(inventoryService.isValidBranch("LAX")).thenReturn(true);
-        when(reservationRepo.hasConflictingReservation(anyLong(), any(), any())).thenReturn(false);
-        when(pricingService.calculatePrice(any(), anyString(), anyString(), any(), any(), anyBoolean()))
-                .thenReturn(pricingResponse);
+        when(pricingService.calculateTotal(any(), anyString(), anyString(), any(), any()))
+                .thenReturn(priceTotal);
         when(reservationRepo.save(any(Reservation.class))).thenReturn(reservation);
 
         Reservation result = reservationService.createReservation(request);
@@ -164,6 +190,73 @@ public class ReservationServiceTest {
         assertNotNull(result);
         verify(inventoryService, times(1)).getCarById(10L);
         verify(reservationRepo, times(1)).save(any(Reservation.class));
+        verify(inventoryService, times(1)).markCarBooked(
+                new CarBooking(10L, reservation.getPickupDate(), reservation.getReturnDate()));
+        verify(inventoryService, times(1)).invalidateSearchesForCar(10L);
+        verify(expiryService, times(1)).schedule(eq(1L), any(LocalDateTime.class));
+        // The car's branch is the pickup and return branch; overlaps are left to the exclusion constraint
+        verify(inventoryService, never()).isValidBranch(anyString());
+        verify(reservationRepo, never()).hasConflictingReservation(anyLong(), any(), any());
+        for (String stage : List.of("load", "price", "insert", "index")) {
+            assertEquals(registry.get("reservations.create").tag("stage", stage).timer().count(), 1L, stage);
+        }
+    }
+
+    @Test
+    public void testCreateReservationTimesIndexingAfterCommit() {
+        ReservationCreateRequest request = new ReservationCreateRequest(
+                10L, "customer@example.com", "John Doe", "+1-555-0100",
+                "LAX", "LAX", LocalDate.now().plusDays(5), LocalDate.now().plusDays(10),
+                null
+        );
+        when(inventoryService.getCarById(10L)).thenReturn(Optional.of(carDTO));
+        when(pricingService.calculateTotal(any(), anyString(), anyString(), any(), any())).thenReturn(priceTotal);
+        when(reservationRepo.save(any(Reservation.class))).thenReturn(reservation);
+        // Stands in for the after-commit work the real index update registers
+        doAnswer(invocation -> {
+            TransactionHooks.afterCommit(() -> sleep(20));
+            return null;
+        }).when(inventoryService).markCarBooked(any());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            reservationService.createReservation(request);
+            Timer index = registry.get("reservations.create").tag("stage", "index").timer();
+            assertEquals(index.count(), 0L);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            assertEquals(index.count(), 1L);
+            assertTrue(index.totalTime(TimeUnit.MILLISECONDS) >= 20, String.valueOf(index.totalTime(TimeUnit.MILLISECONDS)));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void testCreateOneWayReservationChecksOnlyReturnBranch() {
+        ReservationCreateRequest request = new ReservationCreateRequest(
+                10L, "customer@example.com", "John Doe", "+1-555-0100",
+                "LAX", "SFO", LocalDate.now().plusDays(5), LocalDate.now().plusDays(10), null
+        );
+        when(inventoryService.getCarById(10L)).thenReturn(Optional.of(carDTO));
+        when(inventoryService.isValidBranch("SFO")).thenReturn(true);
+        when(pricingService.calculateTotal(any(), anyString(), anyString(), any(), any()))
+                .thenReturn(priceTotal);
+        when(reservationRepo.save(any(Reservation.class))).thenReturn(reservation);
+
+        reservationService.createReservation(request);
+
+        verify(inventoryService, times(1)).isValidBranch("SFO");
+        verify(inventoryService, never()).isValidBranch("LAX");
     }
 
     @Test
@@ -177,6 +270,8 @@ public class ReservationServiceTest {
 
         assertNotNull(result);
         verify(reservationRepo, times(1)).updateStatusAtomically(1L, ReservationStatus.PENDING, ReservationStatus.CONFIRMED);
+        // PENDING and CONFIRMED block the same dates, so cached searches stay valid
+        verify(inventoryService, never()).invalidateSearchesForCar(anyLong());
     }
 
     @Test
@@ -192,6 +287,9 @@ public class ReservationServiceTest {
 
         assertNotNull(result);
         verify(reservationRepo, times(1)).updateStatusAtomically(1L, ReservationStatus.PENDING, ReservationStatus.CANCELLED);
+        verify(inventoryService, times(1)).markCarReleased(
+                new CarBooking(10L, reservation.getPickupDate(), reservation.getReturnDate()));
+        verify(inventoryService, times(1)).invalidateSearchesForCar(10L);
     }
 
     // Additional error path tests for better coverage
@@ -271,27 +369,59 @@ public class ReservationServiceTest {
                 "LAX", "LAX", LocalDate.now().plusDays(5), LocalDate.now().plusDays(10), null
         );
         when(inventoryService.getCarById(10L)).thenReturn(Optional.of(carDTO));
-        when(inventoryService.isValidBranch("LAX")).thenReturn(true);
-        when(reservationRepo.hasConflictingReservation(anyLong(), any(), any())).thenReturn(true);
-        reservationService.createReservation(request);
+        when(pricingService.calculateTotal(any(), anyString(), anyString(), any(), any()))
+                .thenReturn(priceTotal);
+        when(reservationRepo.save(any(Reservation.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new SQLException(
+                        "conflicting key value violates exclusion constraint \"reservations_no_overlap_per_car\"",
+                        "23P01")));
+        try {
+            reservationService.createReservation(request);
+        } finally {
+            verify(inventoryService, never()).markCarBooked(any());
+            assertEquals(registry.get("reservations.create").tag("stage", "insert").timer().count(), 1L);
+        }
     }
 
-    @Test(expectedExceptions = ReservationConflictException.class)
-    public void testCreateReservationDatabaseConstraintViolation() {
+    @Test(expectedExceptions = ResourceNotFoundException.class)
+    public void testCreateReservationForeignKeyViolationIsNotFound() {
         ReservationCreateRequest request = new ReservationCreateRequest(
                 10L, "customer@example.com", "John Doe", "+1-555-0100",
                 "LAX", "LAX", LocalDate.now().plusDays(5), LocalDate.now().plusDays(10), null
         );
         when(inventoryService.getCarById(10L)).thenReturn(Optional.of(carDTO));
-        when(inventoryService.isValidBranch("LAX")).thenReturn(true);
-        when(reservationRepo.hasConflictingReservation(anyLong(), any(), any())).thenReturn(false);
-        when(pricingService.calculatePrice(any(), anyString(), anyString(), any(), any(), anyBoolean()))
-                .thenReturn(pricingResponse);
-        when(reservationRepo.save(any(Reservation.class)))
-                .thenThrow(new DataIntegrityViolationException("reservations_no_overlap_per_car"));
+        when(pricingService.calculateTotal(any(), anyString(), anyString(), any(), any()))
+                .thenReturn(priceTotal);
+        when(reservationRepo.save(any(Reservation.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new SQLException(
+                        "insert or update on table \"reservations\" violates foreign key constraint", "23503")));
         reservationService.createReservation(request);
     }
 
+    @Test
+    public void testCreateReservationOtherConstraintViolationsAreNotConflicts() {
+        ReservationCreateRequest request = new ReservationCreateRequest(
+                10L, "customer@example.com", "John Doe", "+1-555-0100",
+                "LAX", "LAX", LocalDate.now().plusDays(5), LocalDate.now().plusDays(10), null
+        );
+        when(inventoryService.getCarById(10L)).thenReturn(Optional.of(carDTO));
+        when(pricingService.calculateTotal(any(), anyString(), anyString(), any(), any()))
+                .thenReturn(priceTotal);
+        // not_null_violation, check_violation, and no SQL state at all
+        for (SQLException cause : List.of(new SQLException("null value in column", "23502"),
+                new SQLException("violates check constraint", "23514"), new SQLException("unknown"))) {
+            DataIntegrityViolationException violation =
+                    new DataIntegrityViolationException("could not execute statement", cause);
+            when(reservationRepo.save(any(Reservation.class))).thenThrow(violation);
+            try {
+                reservationService.createReservation(request);
+                fail("Expected " + cause.getSQLState() + " to be rethrown");
+            } catch (DataIntegrityViolationException ex) {
+                assertSame(ex, violation);
+            }
+        }
+    }
+
     @Test(expectedExceptions = BusinessRuleViolationException.class)
     public void testUpdateReservationInActiveStatus() {
         reservation.setStatus(ReservationStatus.ACTIVE);
@@ -314,6 +444,25 @@ public class ReservationServiceTest {
         reservationService.updateReservation(1L, request);
     }
 
+    @Test
+    public void testUpdateReservationDatesRepricesWithTotalOnly() {
+        reservation.setStatus(ReservationStatus.PENDING);
+        LocalDate pickup = LocalDate.now().plusDays(6);
+        LocalDate dropoff = LocalDate.now().plusDays(11);
+        ReservationUpdateRequest request = new ReservationUpdateRequest(pickup, dropoff, null);
+        when(reservationRepo.findById(1L)).thenReturn(Optional.of(reservation));
+        when(reservationRepo.hasConflictingReservationExcluding(anyLong(), anyLong(), any(), any())).thenReturn(false);
+        when(inventoryService.getCarById(10L)).thenReturn(Optional.of(carDTO));
+        when(pricingService.calculateTotal(CarType.SEDAN, "LAX", "LAX", pickup, dropoff)).thenReturn(priceTotal);
+        when(reservationRepo.save(any(Reservation.class))).thenReturn(reservation);
+
+        reservationService.updateReservation(1L, request);
+
+        assertEquals(reservation.getTotalPrice(), new BigDecimal("275.00"));
+        assertEquals(reservation.getDailyRate(), new BigDecimal("50.00"));
+        verify(pricingService, never()).calculatePrice(any(), anyString(), anyString(), any(), any(), anyBoolean());
+    }
+
     @Test
     public void testUpdateReservationOnlyNotes() {
         reservation.setStatus(ReservationStatus.PENDING);
@@ -486,6 +635,7 @@ public class ReservationServiceTest {
 
         assertNotNull(result);
         assertEquals(result.getStatus(), ReservationStatus.CANCELLED);
+        verify(inventoryService, never()).markCarReleased(any());
     }
 
     @Test(expectedExceptions = BusinessRuleViolationException.class)
@@ -523,4 +673,29 @@ public class ReservationServiceTest {
         assertEquals(result.size(), 1);
         verify(reservationRepo, times(1)).findUpcomingReservationsForCustomer("customer@example.com", LocalDate.now());
     }
+
+    @Test
+    public void testCalculatePricesBatchesLookups() {
+        LocalDate pickup = LocalDate.now().plusDays(5);
+        LocalDate dropoff = LocalDate.now().plusDays(10);
+        CarDTO suv = new CarDTO(11L, CarType.SUV, "XYZ789", "Ford", "Explorer",
+                2024, "BOS", "BOS Branch", "Boston", true, null);
+        when(inventoryService.getCarsByIds(List.of(10L, 11L, 99L))).thenReturn(List.of(suv, carDTO));
+        when(reservationRepo.findConflictingCarIds(anyCollection(), eq(pickup), eq(dropoff))).thenReturn(List.of(11L));
+        when(pricingService.calculatePrices(anyList())).thenReturn(List.of(pricingResponse, pricingResponse));
+
+        BatchPriceResponse result = reservationService.calculatePrices(
+                new BatchPriceRequest(List.of(10L, 11L, 99L, 10L), pickup, dropoff, null, "LAX"));
+
+        assertEquals(result.notFound(), List.of(99L));
+        assertEquals(result.prices().stream().map(BatchPriceResponse.CarPrice::carId).toList(), List.of(10L, 11L));
+        assertEquals(result.prices().get(1).pickupBranchCode(), "BOS");
+        assertEquals(result.prices().get(1).returnBranchCode(), "LAX");
+        verify(pricingService).calculatePrices(List.of(
+                new PriceQuery(CarType.SEDAN, "LAX", "LAX", pickup, dropoff, true),
+                new PriceQuery(CarType.SUV, "BOS", "LAX", pickup, dropoff, false)
+        ));
+        verify(inventoryService, never()).getCarById(anyLong());
+        verify(reservationRepo, never()).hasConflictingReservation(anyLong(), any(), any());
+    }
 }
@@ -0,0 +1,64 @@
+package com.rental.car.reservation;
+
+import org.testng.annotations.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+public class SurchargeCalendarTest {
+
+    @Test
+    public void testWeekendsInKnownRanges() {
+        // 2026-03-06 is a Friday
+        LocalDate friday = LocalDate.of(2026, 3, 6);
+
+        assertEquals(SurchargeCalendar.WEEKENDS.count(friday, friday.plusDays(1)), 0);
+        assertEquals(SurchargeCalendar.WEEKENDS.count(friday, friday.plusDays(3)), 2);
+        assertEquals(SurchargeCalendar.WEEKENDS.count(friday, friday.plusDays(7)), 2);
+        assertEquals(SurchargeCalendar.WEEKENDS.count(friday.plusDays(2), friday.plusDays(3)), 1);
+        assertEquals(SurchargeCalendar.WEEKENDS.count(friday, friday.plusDays(365)), 104);
+        assertEquals(SurchargeCalendar.WEEKENDS.count(friday, friday), 0);
+        assertEquals(SurchargeCalendar.WEEKENDS.count(friday.plusDays(5), friday), 0);
+    }
+
+    @Test
+    public void testSpecialDatesAreNotCountedTwice() {
+        LocalDate july4 = LocalDate.of(2026, 7, 4); // Saturday
+        LocalDate july3 = LocalDate.of(2026, 7, 3); // Friday
+        SurchargeCalendar calendar = SurchargeCalendar.of(
+                EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY), List.of(july3, july4, july3));
+
+        assertEquals(calendar.count(LocalDate.of(2026, 7, 1), LocalDate.of(2026, 7, 8)), 3);
+        assertEquals(calendar.count(july3, july3.plusDays(1)), 1);
+        assertEquals(calendar.count(july3.plusDays(1), july3.plusDays(2)), 1);
+    }
+
+    @Test
+    public void testMatchesDayByDayCount() {
+        Random random = new Random(7);
+        LocalDate base = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < 2_000; i++) {
+            Set<DayOfWeek> weekdays = EnumSet.noneOf(DayOfWeek.class);
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (random.nextInt(4) == 0) {
+                    weekdays.add(day);
+                }
+            }
+            List<LocalDate> special = random.ints(random.nextInt(20), 0, 800).mapToObj(base::plusDays).toList();
+            SurchargeCalendar calendar = SurchargeCalendar.of(weekdays, special);
+            LocalDate from = base.plusDays(random.nextInt(700));
+            LocalDate to = from.plusDays(random.nextInt(400));
+
+            long expected = from.datesUntil(to)
+                    .filter(d -> weekdays.contains(d.getDayOfWeek()) || special.contains(d))
+                    .count();
+            assertEquals(calendar.count(from, to), expected, from + ".." + to + " " + weekdays);
+        }
+    }
+}